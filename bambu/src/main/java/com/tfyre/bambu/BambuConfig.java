@@ -1,8 +1,14 @@
 package com.tfyre.bambu;
 
+import com.tfyre.bambu.alert.Alert;
+import com.tfyre.bambu.alert.AlertRule;
+import com.tfyre.bambu.printer.PrinterState;
+import com.tfyre.bambu.security.ApiTokens;
 import io.smallrye.config.ConfigMapping;
 import io.smallrye.config.WithDefault;
+import io.smallrye.config.WithName;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -18,8 +24,36 @@ public interface BambuConfig {
 
     Map<String, Printer> printers();
 
+    /**
+     * Properties file with more bambu.printers.* entries, watched for changes and applied without a restart
+     */
+    Optional<String> printersFile();
+
     Map<String, User> users();
 
+    Auth auth();
+
+    /**
+     * API tokens for scripts and displays, sent as Authorization: Bearer
+     */
+    Map<String, Token> tokens();
+
+    Tracing tracing();
+
+    Health health();
+
+    Cluster cluster();
+
+    Dashboard dashboard();
+
+    Catalogs catalogs();
+
+    Alerts alerts();
+
+    Jobs jobs();
+
+    Eta eta();
+
     public interface Printer {
 
         @WithDefault("true")
@@ -36,6 +70,22 @@ public interface BambuConfig {
 
         String ip();
 
+        /**
+         * Printer model, eg X1C or P1S, used to select printers
+         */
+        Optional<String> model();
+
+        /**
+         * Free form labels, used to select printers
+         */
+        Optional<List<String>> tags();
+
+        /**
+         * Messages kept per printer for the logs view, the history API and exports
+         */
+        @WithDefault("1000")
+        int historySize();
+
         @WithDefault("true")
         boolean useAms();
 
@@ -91,6 +141,347 @@ public interface BambuConfig {
         }
     }
 
+    public interface Health {
+
+        @WithDefault("5s")
+        Duration interval();
+
+        /**
+         * Minimum silence before a printer is stale
+         */
+        @WithDefault("30s")
+        Duration staleAfter();
+
+        /**
+         * Stale after this many average message intervals, if longer than staleAfter
+         */
+        @WithDefault("10")
+        double staleFactor();
+
+        @WithDefault("5m")
+        Duration offlineAfter();
+
+        /**
+         * Degraded when no camera frame is received for this long
+         */
+        @WithDefault("1m")
+        Duration streamStaleAfter();
+
+        @WithDefault("true")
+        boolean recovery();
+
+        /**
+         * Minimum time between recovery attempts of a printer
+         */
+        @WithDefault("2m")
+        Duration recoveryInterval();
+
+        /**
+         * Detect abnormal layer progress, temperatures and heatbreak fan speed, an anomaly degrades the printer and raises an alert
+         */
+        @WithDefault("true")
+        boolean anomalies();
+
+        /**
+         * Standard deviations from the rolling mean that count as abnormal
+         */
+        @WithDefault("4")
+        double anomalyThreshold();
+
+        /**
+         * Temperature deltas to the target within this band (°C) are never abnormal
+         */
+        @WithDefault("5")
+        double temperatureBand();
+
+        /**
+         * Minimum time on a layer before it counts as stalled
+         */
+        @WithDefault("2m")
+        Duration layerStallAfter();
+
+    }
+
+    public interface Dashboard {
+
+        /**
+         * Compact tiles instead of full cards, a tab can override this with ?tiles=true or ?tiles=false
+         */
+        @WithDefault("false")
+        boolean tiles();
+
+        /**
+         * Most cards kept built per tab, off screen cards beyond this are released
+         */
+        @WithDefault("40")
+        int maxCards();
+
+    }
+
+    public interface Alerts {
+
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * How often pending (for) and stalled rules are checked, rules on message fields are evaluated as messages arrive
+         */
+        @WithDefault("5s")
+        Duration interval();
+
+        Map<String, Rule> rules();
+
+        Webhook webhook();
+
+        Smtp smtp();
+
+        public interface Rule {
+
+            @WithDefault("threshold")
+            AlertRule.Type type();
+
+            /**
+             * Print field path with proto field names, eg nozzle_temper or ams.ams.humidity, hms is the number of active HMS entries
+             */
+            String field();
+
+            /**
+             * Threshold: compared with value, deviation: the target field, eg nozzle_target_temper
+             */
+            Optional<String> target();
+
+            @WithDefault("gt")
+            AlertRule.Operator operator();
+
+            /**
+             * Threshold to compare with or the largest allowed deviation
+             */
+            Optional<String> value();
+
+            /**
+             * Numeric band the value must move back past before a firing alert resolves
+             */
+            @WithDefault("0")
+            double hysteresis();
+
+            /**
+             * How long the condition must hold, for stalled rules how long the field must stay unchanged
+             */
+            @WithName("for")
+            @WithDefault("0s")
+            Duration duration();
+
+            /**
+             * Only evaluated while the printer is in this state
+             */
+            Optional<PrinterState> state();
+
+            @WithDefault("warning")
+            Alert.Severity severity();
+
+            /**
+             * Placeholders: {printer} {rule} {field} {value} {target} {operator} {threshold}
+             */
+            Optional<String> message();
+
+            /**
+             * Sink names, all sinks when omitted
+             */
+            Optional<List<String>> sinks();
+
+        }
+
+        public interface Webhook {
+
+            /**
+             * Receives every alert as a JSON POST, disabled when omitted
+             */
+            Optional<String> url();
+
+            @WithDefault("10s")
+            Duration timeout();
+
+        }
+
+        public interface Smtp {
+
+            /**
+             * Local relay without authentication
+             */
+            @WithDefault("localhost")
+            String host();
+
+            @WithDefault("25")
+            int port();
+
+            @WithDefault("bambu-farm@localhost")
+            String from();
+
+            /**
+             * Recipients, disabled when omitted
+             */
+            Optional<List<String>> to();
+
+            @WithDefault("10s")
+            Duration timeout();
+
+        }
+
+    }
+
+    public interface Jobs {
+
+        /**
+         * Start queued jobs on idle printers, jobs can be queued while this is off. The queue is per node, in a cluster a job only starts on
+         * printers connected to the node it was queued on
+         */
+        @WithDefault("false")
+        boolean dispatch();
+
+        /**
+         * Job files (.3mf) are read from this directory and uploaded to the printer before printing
+         */
+        @WithDefault("jobs")
+        String directory();
+
+        @WithDefault("10s")
+        Duration interval();
+
+        /**
+         * A dispatched job that did not start printing within this time after the print command was sent is queued again, the upload is not
+         * included
+         */
+        @WithDefault("3m")
+        Duration startTimeout();
+
+        /**
+         * Printers are skipped for this long after a failed dispatch
+         */
+        @WithDefault("5m")
+        Duration retryAfter();
+
+        /**
+         * Waiting this long raises the priority of a job by one, so low priority jobs are not starved
+         */
+        @WithDefault("1h")
+        Duration aging();
+
+        /**
+         * A printer only receives a job once its bed is confirmed cleared, after every print and after a restart
+         */
+        @WithDefault("true")
+        boolean requireBedCleared();
+
+    }
+
+    public interface Auth {
+
+        /**
+         * Verified logins are remembered this long so repeated logins skip bcrypt, 0s disables the cache
+         */
+        @WithDefault("5m")
+        Duration cacheTtl();
+
+        @WithDefault("1000")
+        int cacheSize();
+
+        /**
+         * Failed password checks allowed per user and per client address within attempt-window, 0 disables the limit
+         */
+        @WithDefault("10")
+        int maxAttempts();
+
+        @WithDefault("1m")
+        Duration attemptWindow();
+
+    }
+
+    public interface Token {
+
+        @WithDefault("true")
+        boolean enabled();
+
+        /**
+         * sha256:HEX of the token, or the token itself (insecure)
+         */
+        String token();
+
+        @WithDefault("read")
+        ApiTokens.Scope scope();
+
+        /**
+         * Printers (by bambu.printers.x.tags) a command token can control, all printers when omitted
+         */
+        Optional<List<String>> tags();
+
+    }
+
+    public interface Eta {
+
+        /**
+         * Learned print times are kept in this JSON file across restarts, in memory only when omitted
+         */
+        Optional<String> file();
+
+        /**
+         * Weight of the latest finished job in the learned print times, 0 to 1
+         */
+        @WithDefault("0.3")
+        double learnRate();
+
+    }
+
+    public interface Catalogs {
+
+        /**
+         * Properties file with hex error codes, extends and overrides the built in catalog and is reloaded on change
+         */
+        Optional<String> errorsFile();
+
+        /**
+         * Properties file with HMS codes (attr and code as 16 hex digits), extends and overrides the built in catalog and is reloaded on change
+         */
+        Optional<String> hmsFile();
+
+    }
+
+    public interface Cluster {
+
+        /**
+         * Split printer ownership between all nodes sharing the directory
+         */
+        @WithDefault("false")
+        boolean enabled();
+
+        /**
+         * Unique per node, defaults to the host name
+         */
+        Optional<String> nodeId();
+
+        @WithDefault("cluster")
+        String directory();
+
+        @WithDefault("5s")
+        Duration heartbeat();
+
+        /**
+         * A node or printer lease not renewed for this long has failed over
+         */
+        @WithDefault("30s")
+        Duration lease();
+
+    }
+
+    public interface Tracing {
+
+        /**
+         * Fraction of received messages to trace, 0 disables and 1 traces everything
+         */
+        @WithDefault("0.01")
+        double sampleRate();
+
+    }
+
     public interface User {
 
         String password();
@@ -8,5 +8,9 @@ public class SystemRoles {
 
     public static final String ROLE_ADMIN = "admin";
     public static final String ROLE_NORMAL = "normal";
+    /**
+     * API tokens allowed to send printer commands, see {@link com.tfyre.bambu.security.ApiTokens}
+     */
+    public static final String ROLE_COMMAND = "command";
 
 }
@@ -0,0 +1,31 @@
+package com.tfyre.bambu.alert;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A rule that started or stopped firing for one printer
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public record Alert(String printer, String rule, Severity severity, Status status, String message, OffsetDateTime time) {
+
+    public Alert resolved() {
+        return new Alert(printer, rule, severity, Status.RESOLVED, message, OffsetDateTime.now());
+    }
+
+    public String getSubject() {
+        return "[%s] %s %s: %s".formatted(severity, printer, status, rule);
+    }
+
+    public enum Severity {
+        INFO,
+        WARNING,
+        CRITICAL
+    }
+
+    public enum Status {
+        FIRING,
+        RESOLVED
+    }
+
+}
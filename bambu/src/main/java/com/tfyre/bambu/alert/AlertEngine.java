@@ -0,0 +1,318 @@
+package com.tfyre.bambu.alert;
+
+import com.google.protobuf.Descriptors;
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.model.Print;
+import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.printer.HmsEvent;
+import com.tfyre.bambu.printer.PrinterEvents;
+import com.tfyre.bambu.timer.FarmTimer;
+import io.quarkus.runtime.Startup;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.jboss.logging.Logger;
+
+/**
+ * Evaluates the alert rules of every owned printer as its messages arrive.
+ * <p>
+ * Only rules with an input field in the message are evaluated, rules with a duration, a state or a stalled condition are checked on the
+ * {@link FarmTimer} as well. A rule notifies once when it starts firing and once when it resolves.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Startup
+@ApplicationScoped
+public class AlertEngine {
+
+    @Inject
+    Logger log;
+    @Inject
+    BambuConfig config;
+    @Inject
+    BambuPrinters printers;
+    @Inject
+    PrinterEvents events;
+    @Inject
+    FarmTimer timer;
+    @Inject
+    ManagedExecutor executor;
+    @Inject
+    @Any
+    Instance<AlertSink> sinkInstances;
+
+    private final List<AlertRule> rules = new ArrayList<>();
+    private final Map<Descriptors.FieldDescriptor, int[]> rulesByInput = new LinkedHashMap<>();
+    private final Map<String, PrinterAlerts> alerts = new ConcurrentHashMap<>();
+    private final Map<String, Alert> external = new ConcurrentHashMap<>();
+    private final List<AlertSink> sinks = new ArrayList<>();
+    private int[] hmsRules = new int[0];
+    private int[] timedRules = new int[0];
+    private Cancellable subscription;
+    private FarmTimer.Task task;
+
+    @PostConstruct
+    public void postConstruct() {
+        if (!config.alerts().enabled()) {
+            return;
+        }
+        config.alerts().rules().forEach((id, rule) -> rules.add(AlertRule.of(id, rule)));
+        final Map<Descriptors.FieldDescriptor, List<Integer>> byInput = new LinkedHashMap<>();
+        final List<Integer> hms = new ArrayList<>();
+        final List<Integer> timed = new ArrayList<>();
+        for (int i = 0; i < rules.size(); i++) {
+            final AlertRule rule = rules.get(i);
+            final int index = i;
+            if (rule.isHms()) {
+                hms.add(i);
+            } else {
+                byInput.computeIfAbsent(rule.getInput(), k -> new ArrayList<>()).add(i);
+            }
+            rule.getTargetInput().ifPresent(fd -> byInput.computeIfAbsent(fd, k -> new ArrayList<>()).add(index));
+            if (rule.isTimed()) {
+                timed.add(i);
+            }
+        }
+        byInput.forEach((fd, list) -> rulesByInput.put(fd, list.stream().mapToInt(Integer::intValue).distinct().toArray()));
+        hmsRules = hms.stream().mapToInt(Integer::intValue).toArray();
+        timedRules = timed.stream().mapToInt(Integer::intValue).toArray();
+        sinkInstances.stream().filter(AlertSink::isEnabled).forEach(sinks::add);
+        log.infof("Alerts: rules%s sinks%s", rules.stream().map(AlertRule::getId).toList(), sinks.stream().map(AlertSink::getName).toList());
+
+        subscription = events.stream()
+                .filter(e -> e.getMessage().message().hasPrint())
+                .subscribe().with(this::onEvent, t -> log.errorf(t, "Alert evaluation stopped - %s", t.getMessage()));
+        task = timer.schedule("alerts", config.alerts().interval(), config.alerts().interval(), this::onTick);
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    private void onEvent(final PrinterEvents.Event event) {
+        try {
+            printers.getPrinterDetail(event.getName())
+                    .filter(detail -> !detail.isMirrored())
+                    .ifPresent(detail -> alerts.computeIfAbsent(detail.name(), k -> new PrinterAlerts(detail))
+                    .onPrint(event.getMessage().message().getPrint(), System.nanoTime()));
+        } catch (RuntimeException ex) {
+            log.errorf(ex, "%s: alert evaluation failed - %s", event.getName(), ex.getMessage());
+        }
+    }
+
+    private void onTick() {
+        final long now = System.nanoTime();
+        alerts.values().removeIf(pa -> {
+            final boolean gone = printers.getPrinterDetail(pa.detail.name())
+                    .map(d -> d != pa.detail || d.isMirrored())
+                    .orElse(true);
+            if (gone) {
+                pa.resolveAll();
+            } else {
+                pa.onTick(now);
+            }
+            return gone;
+        });
+        external.values().removeIf(alert -> {
+            final boolean gone = printers.getPrinterDetail(alert.printer()).isEmpty();
+            if (gone) {
+                send(alert.resolved(), null);
+            }
+            return gone;
+        });
+    }
+
+    private void send(final Alert alert, final AlertRule rule) {
+        sinks.stream()
+                .filter(sink -> rule == null || rule.hasSink(sink.getName()))
+                .forEach(sink -> executor.execute(() -> {
+            try {
+                sink.send(alert);
+            } catch (Exception ex) {
+                log.errorf(ex, "Alert sink %s failed: %s - %s", sink.getName(), alert.getSubject(), ex.getMessage());
+            }
+        }));
+    }
+
+    /**
+     * @return firing alerts, rule alerts first
+     */
+    public List<Alert> getActive() {
+        final List<Alert> result = new ArrayList<>();
+        alerts.values().forEach(pa -> pa.getActive(result));
+        result.addAll(external.values());
+        return result;
+    }
+
+    /**
+     * Raises an alert from outside the rules, eg a detector. Notifies only when it was not already active, an active alert takes the new
+     * severity and message but keeps the time it started firing.
+     */
+    public void raise(final String printer, final String rule, final Alert.Severity severity, final String message) {
+        final AtomicBoolean started = new AtomicBoolean();
+        final Alert alert = external.compute("%s/%s".formatted(printer, rule), (key, active) -> {
+            started.set(active == null);
+            return new Alert(printer, rule, severity, Alert.Status.FIRING, message, active == null ? OffsetDateTime.now() : active.time());
+        });
+        if (started.get()) {
+            send(alert, null);
+        }
+    }
+
+    public void resolve(final String printer, final String rule) {
+        final Alert alert = external.remove("%s/%s".formatted(printer, rule));
+        if (alert != null) {
+            send(alert.resolved(), null);
+        }
+    }
+
+    private static final class RuleState {
+
+        private boolean pending;
+        private long since;
+        private Object lastValue;
+        private long lastChange;
+        private Alert alert;
+    }
+
+    /**
+     * Last value of every input field and the state of every rule for one printer
+     */
+    private final class PrinterAlerts {
+
+        private final BambuPrinters.PrinterDetail detail;
+        private final Map<Descriptors.FieldDescriptor, Object> values = new HashMap<>();
+        private final RuleState[] states = new RuleState[rules.size()];
+        private final boolean[] dirty = new boolean[rules.size()];
+        private List<HmsEvent> hms = List.of();
+
+        private PrinterAlerts(final BambuPrinters.PrinterDetail detail) {
+            this.detail = detail;
+            for (int i = 0; i < states.length; i++) {
+                states[i] = new RuleState();
+                states[i].lastChange = System.nanoTime();
+            }
+        }
+
+        private static boolean isPresent(final Print print, final Descriptors.FieldDescriptor fd) {
+            return fd.isRepeated() ? print.getRepeatedFieldCount(fd) > 0 : print.hasField(fd);
+        }
+
+        private void mark(final int[] indexes) {
+            for (final int i : indexes) {
+                dirty[i] = true;
+            }
+        }
+
+        synchronized void onPrint(final Print print, final long now) {
+            rulesByInput.forEach((fd, indexes) -> {
+                if (isPresent(print, fd)) {
+                    values.put(fd, print.getField(fd));
+                    mark(indexes);
+                }
+            });
+            final List<HmsEvent> _hms = detail.printer().getHms();
+            if (_hms != hms) {
+                hms = _hms;
+                mark(hmsRules);
+            }
+            for (int i = 0; i < dirty.length; i++) {
+                if (dirty[i]) {
+                    dirty[i] = false;
+                    evaluate(i, now, true);
+                }
+            }
+        }
+
+        synchronized void onTick(final long now) {
+            for (final int i : timedRules) {
+                evaluate(i, now, false);
+            }
+        }
+
+        private List<Object> getValues(final AlertRule rule) {
+            if (rule.isHms()) {
+                return List.of(hms.size());
+            }
+            return AlertRule.getValues(values.get(rule.getInput()), rule.getPath());
+        }
+
+        private void evaluate(final int index, final long now, final boolean changed) {
+            final AlertRule rule = rules.get(index);
+            final RuleState state = states[index];
+            final List<Object> _values = getValues(rule);
+            final List<Object> targets = rule.getTargetInput().map(fd -> AlertRule.getValues(values.get(fd), rule.getTargetPath())).orElse(List.of());
+            if (rule.getType() == AlertRule.Type.STALLED && changed && !Objects.equals(_values, state.lastValue)) {
+                state.lastValue = _values;
+                state.lastChange = now;
+            }
+            final boolean holds = rule.getState().map(s -> s == detail.printer().getState()).orElse(true)
+                    && rule.test(_values, targets, state.alert != null);
+            if (!holds) {
+                state.pending = false;
+                resolve(state, rule);
+                return;
+            }
+            if (!state.pending) {
+                state.pending = true;
+                state.since = now;
+            }
+            final long since = rule.getType() == AlertRule.Type.STALLED ? state.lastChange : state.since;
+            if (now - since < rule.getDurationNanos()) {
+                if (rule.getType() == AlertRule.Type.STALLED) {
+                    resolve(state, rule);
+                }
+                return;
+            }
+            if (state.alert == null) {
+                state.alert = new Alert(detail.name(), rule.getId(), rule.getSeverity(), Alert.Status.FIRING,
+                        rule.format(detail.name(), _values, targets), OffsetDateTime.now());
+                send(state.alert, rule);
+            }
+        }
+
+        private void resolve(final RuleState state, final AlertRule rule) {
+            if (state.alert == null) {
+                return;
+            }
+            send(state.alert.resolved(), rule);
+            state.alert = null;
+        }
+
+        synchronized void resolveAll() {
+            for (int i = 0; i < states.length; i++) {
+                resolve(states[i], rules.get(i));
+            }
+        }
+
+        synchronized void getActive(final List<Alert> result) {
+            for (final RuleState state : states) {
+                if (state.alert != null) {
+                    result.add(state.alert);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,290 @@
+package com.tfyre.bambu.alert;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.model.Print;
+import com.tfyre.bambu.printer.PrinterState;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A compiled {@link BambuConfig.Alerts.Rule}: field paths are resolved against the {@link Print} model once
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class AlertRule {
+
+    /**
+     * Virtual field with the number of active HMS entries
+     */
+    public static final String FIELD_HMS = "hms";
+
+    private final String id;
+    private final Type type;
+    private final String field;
+    private final List<Descriptors.FieldDescriptor> path;
+    private final Optional<String> target;
+    private final List<Descriptors.FieldDescriptor> targetPath;
+    private final Operator operator;
+    private final String value;
+    private final double number;
+    private final double hysteresis;
+    private final long durationNanos;
+    private final Optional<PrinterState> state;
+    private final Alert.Severity severity;
+    private final Optional<String> message;
+    private final Optional<Set<String>> sinks;
+
+    private AlertRule(final String id, final BambuConfig.Alerts.Rule config) {
+        this.id = id;
+        this.type = config.type();
+        this.field = config.field();
+        this.path = FIELD_HMS.equals(field) ? List.of() : resolve(field);
+        this.target = config.target();
+        this.targetPath = target.map(AlertRule::resolve).orElse(List.of());
+        this.operator = config.operator();
+        this.value = config.value().orElse("");
+        this.number = parse(value);
+        this.hysteresis = config.hysteresis();
+        this.durationNanos = config.duration().toNanos();
+        this.state = config.state();
+        this.severity = config.severity();
+        this.message = config.message();
+        this.sinks = config.sinks().map(Set::copyOf);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the rule is incomplete or a field does not exist
+     */
+    public static AlertRule of(final String id, final BambuConfig.Alerts.Rule config) {
+        final AlertRule result = new AlertRule(id, config);
+        switch (result.type) {
+            case THRESHOLD -> {
+                if (config.value().isEmpty()) {
+                    throw new IllegalArgumentException("%s: threshold rules need a value".formatted(id));
+                }
+            }
+            case DEVIATION -> {
+                if (result.target.isEmpty() || Double.isNaN(result.number)) {
+                    throw new IllegalArgumentException("%s: deviation rules need a target field and a numeric value".formatted(id));
+                }
+            }
+            case STALLED -> {
+                if (result.durationNanos <= 0) {
+                    throw new IllegalArgumentException("%s: stalled rules need a duration (for)".formatted(id));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<Descriptors.FieldDescriptor> resolve(final String path) {
+        final List<Descriptors.FieldDescriptor> result = new ArrayList<>();
+        Descriptors.Descriptor descriptor = Print.getDescriptor();
+        for (final String name : path.split("\\.")) {
+            final Descriptors.FieldDescriptor fd = descriptor == null ? null : descriptor.findFieldByName(name);
+            if (fd == null) {
+                throw new IllegalArgumentException("Unknown print field: %s".formatted(path));
+            }
+            result.add(fd);
+            descriptor = fd.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE ? fd.getMessageType() : null;
+        }
+        return List.copyOf(result);
+    }
+
+    private static double parse(final Object value) {
+        if (value instanceof Number n) {
+            return n.doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
+    private static void collect(final Object value, final List<Descriptors.FieldDescriptor> path, final int index, final List<Object> result) {
+        if (value instanceof List<?> list) {
+            list.forEach(v -> collect(v, path, index, result));
+            return;
+        }
+        if (index == path.size()) {
+            result.add(value instanceof Descriptors.EnumValueDescriptor e ? e.getName() : value);
+            return;
+        }
+        if (value instanceof Message m) {
+            final Descriptors.FieldDescriptor fd = path.get(index);
+            if (fd.isRepeated() || m.hasField(fd)) {
+                collect(m.getField(fd), path, index + 1, result);
+            }
+        }
+    }
+
+    /**
+     * @param top value of the top level print field
+     * @return every value on the path, repeated fields on the way are flattened
+     */
+    static List<Object> getValues(final Object top, final List<Descriptors.FieldDescriptor> path) {
+        final List<Object> result = new ArrayList<>(1);
+        if (top != null) {
+            collect(top, path, 1, result);
+        }
+        return result;
+    }
+
+    /**
+     * @param firing the band set by hysteresis applies while firing
+     */
+    boolean test(final List<Object> values, final List<Object> targets, final boolean firing) {
+        return switch (type) {
+            case THRESHOLD ->
+                values.stream().anyMatch(v -> compare(v, firing));
+            case DEVIATION -> {
+                if (values.isEmpty() || targets.isEmpty()) {
+                    yield false;
+                }
+                final double t = parse(targets.getFirst());
+                yield t > 0 && Math.abs(parse(values.getFirst()) - t) > number - (firing ? hysteresis : 0);
+            }
+            case STALLED ->
+                !values.isEmpty();
+        };
+    }
+
+    private boolean compare(final Object v, final boolean firing) {
+        final double d = parse(v);
+        final double band = firing ? hysteresis : 0;
+        if (Double.isNaN(d) || Double.isNaN(number)) {
+            final boolean equal = value.equalsIgnoreCase(String.valueOf(v));
+            return switch (operator) {
+                case EQ ->
+                    equal;
+                case NE ->
+                    !equal;
+                default ->
+                    false;
+            };
+        }
+        return switch (operator) {
+            case EQ ->
+                d == number;
+            case NE ->
+                d != number;
+            case GT ->
+                d > number - band;
+            case GE ->
+                d >= number - band;
+            case LT ->
+                d < number + band;
+            case LE ->
+                d <= number + band;
+        };
+    }
+
+    String format(final String printer, final List<Object> values, final List<Object> targets) {
+        final String _value = values.size() == 1 ? String.valueOf(values.getFirst()) : values.toString();
+        final String _target = targets.isEmpty() ? "" : String.valueOf(targets.getFirst());
+        return message
+                .orElseGet(() -> switch (type) {
+            case THRESHOLD ->
+                "{field} = {value} ({operator} {threshold})";
+            case DEVIATION ->
+                "{field} = {value}, target {target}";
+            case STALLED ->
+                "{field} unchanged at {value}";
+        })
+                .replace("{printer}", printer)
+                .replace("{rule}", id)
+                .replace("{field}", field)
+                .replace("{value}", _value)
+                .replace("{target}", _target)
+                .replace("{operator}", operator.name().toLowerCase())
+                .replace("{threshold}", value);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    boolean isHms() {
+        return path.isEmpty();
+    }
+
+    /**
+     * @return top level print field, null for the hms field
+     */
+    Descriptors.FieldDescriptor getInput() {
+        return path.isEmpty() ? null : path.getFirst();
+    }
+
+    List<Descriptors.FieldDescriptor> getPath() {
+        return path;
+    }
+
+    Optional<Descriptors.FieldDescriptor> getTargetInput() {
+        return targetPath.isEmpty() ? Optional.empty() : Optional.of(targetPath.getFirst());
+    }
+
+    List<Descriptors.FieldDescriptor> getTargetPath() {
+        return targetPath;
+    }
+
+    long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Pending, stalled and state bound rules need to be checked on the timer as well
+     */
+    boolean isTimed() {
+        return durationNanos > 0 || state.isPresent();
+    }
+
+    Optional<PrinterState> getState() {
+        return state;
+    }
+
+    public Alert.Severity getSeverity() {
+        return severity;
+    }
+
+    boolean hasSink(final String sink) {
+        return sinks.map(s -> s.contains(sink)).orElse(true);
+    }
+
+    public enum Type {
+        /**
+         * The field compared with value
+         */
+        THRESHOLD,
+        /**
+         * The field differs from the target field by more than value, not evaluated while the target is 0 (off)
+         */
+        DEVIATION,
+        /**
+         * The field has not changed for the duration
+         */
+        STALLED
+    }
+
+    public enum Operator {
+        EQ,
+        NE,
+        GT,
+        GE,
+        LT,
+        LE
+    }
+
+}
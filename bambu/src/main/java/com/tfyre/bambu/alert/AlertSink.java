@@ -0,0 +1,27 @@
+package com.tfyre.bambu.alert;
+
+import java.io.IOException;
+
+/**
+ * Delivers alerts, called on a worker thread. Notifications are sent independently and may run concurrently, the resolved notification of an
+ * alert can arrive before the firing one, {@link Alert#time()} orders them.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public interface AlertSink {
+
+    /**
+     * Name used by the sinks of a rule
+     */
+    String getName();
+
+    /**
+     * @return false when the sink is not configured
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    void send(Alert alert) throws IOException;
+
+}
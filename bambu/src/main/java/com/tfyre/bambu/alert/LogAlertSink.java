@@ -0,0 +1,41 @@
+package com.tfyre.bambu.alert;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+/**
+ * Writes alerts to the application log, always enabled
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class LogAlertSink implements AlertSink {
+
+    @Inject
+    Logger log;
+
+    @Override
+    public String getName() {
+        return "log";
+    }
+
+    @Override
+    public void send(final Alert alert) {
+        final Logger.Level level = switch (alert.status()) {
+            case RESOLVED ->
+                Logger.Level.INFO;
+            case FIRING ->
+                switch (alert.severity()) {
+                    case CRITICAL ->
+                        Logger.Level.ERROR;
+                    case WARNING ->
+                        Logger.Level.WARN;
+                    case INFO ->
+                        Logger.Level.INFO;
+                };
+        };
+        log.logf(level, "%s - %s", alert.getSubject(), alert.message());
+    }
+
+}
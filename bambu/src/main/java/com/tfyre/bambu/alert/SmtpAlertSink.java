@@ -0,0 +1,105 @@
+package com.tfyre.bambu.alert;
+
+import com.tfyre.bambu.BambuConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Mails alerts through a local relay (plain SMTP without authentication), eg a postfix or smtp container next to the farm
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class SmtpAlertSink implements AlertSink {
+
+    private static final String CRLF = "\r\n";
+
+    @Inject
+    BambuConfig config;
+
+    @Override
+    public String getName() {
+        return "smtp";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return config.alerts().smtp().to().filter(to -> !to.isEmpty()).isPresent();
+    }
+
+    private static String expect(final BufferedReader reader, final String code) throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Connection closed, expected %s".formatted(code));
+            }
+        } while (line.length() > 3 && line.charAt(3) == '-');
+        if (!line.startsWith(code)) {
+            throw new IOException("Expected %s got: %s".formatted(code, line));
+        }
+        return line;
+    }
+
+    private static void command(final Writer writer, final BufferedReader reader, final String command, final String code) throws IOException {
+        writer.write(command);
+        writer.write(CRLF);
+        writer.flush();
+        expect(reader, code);
+    }
+
+    /**
+     * Lines starting with a dot are escaped as required by the DATA command
+     */
+    private static String escape(final String body) {
+        return body.replace("\n.", "\n..");
+    }
+
+    @Override
+    public void send(final Alert alert) throws IOException {
+        final BambuConfig.Alerts.Smtp smtp = config.alerts().smtp();
+        final List<String> recipients = smtp.to().orElseThrow();
+        final int timeout = (int) smtp.timeout().toMillis();
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(smtp.host(), smtp.port()), timeout);
+            socket.setSoTimeout(timeout);
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            final Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            expect(reader, "220");
+            command(writer, reader, "HELO %s".formatted(socket.getLocalAddress().getHostName()), "250");
+            command(writer, reader, "MAIL FROM:<%s>".formatted(smtp.from()), "250");
+            for (final String to : recipients) {
+                command(writer, reader, "RCPT TO:<%s>".formatted(to), "25");
+            }
+            command(writer, reader, "DATA", "354");
+            final String message = """
+                    From: %s
+                    To: %s
+                    Subject: %s
+                    Date: %s
+                    Content-Type: text/plain; charset=UTF-8
+
+                    %s
+                    Printer: %s
+                    Rule: %s
+                    Time: %s
+                    """.formatted(smtp.from(), String.join(", ", recipients), alert.getSubject(),
+                    DateTimeFormatter.RFC_1123_DATE_TIME.format(OffsetDateTime.now()), alert.message(), alert.printer(), alert.rule(), alert.time());
+            // the terminating dot must not be escaped
+            command(writer, reader, escape(message).replace("\n", CRLF) + ".", "250");
+            command(writer, reader, "QUIT", "221");
+        }
+    }
+
+}
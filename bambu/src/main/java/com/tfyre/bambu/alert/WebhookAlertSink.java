@@ -0,0 +1,59 @@
+package com.tfyre.bambu.alert;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tfyre.bambu.BambuConfig;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Posts every alert as JSON to bambu.alerts.webhook.url
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class WebhookAlertSink implements AlertSink {
+
+    @Inject
+    BambuConfig config;
+    @Inject
+    ObjectMapper mapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Override
+    public String getName() {
+        return "webhook";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return config.alerts().webhook().url().isPresent();
+    }
+
+    @Override
+    public void send(final Alert alert) throws IOException {
+        final BambuConfig.Alerts.Webhook webhook = config.alerts().webhook();
+        final String url = webhook.url().orElseThrow();
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(webhook.timeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(alert)))
+                .build();
+        final HttpResponse<Void> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", ex);
+        }
+        if (response.statusCode() >= 300) {
+            throw new IOException("HTTP %d from %s".formatted(response.statusCode(), url));
+        }
+    }
+
+}
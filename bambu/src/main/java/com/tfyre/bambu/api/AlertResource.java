@@ -0,0 +1,32 @@
+package com.tfyre.bambu.api;
+
+import com.tfyre.bambu.SystemRoles;
+import com.tfyre.bambu.alert.Alert;
+import com.tfyre.bambu.alert.AlertEngine;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import java.util.List;
+
+/**
+ * Alerts currently firing
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Path("/api/alerts")
+@RolesAllowed({ SystemRoles.ROLE_ADMIN, SystemRoles.ROLE_NORMAL })
+@Produces(MediaType.APPLICATION_JSON)
+public class AlertResource {
+
+    @Inject
+    AlertEngine engine;
+
+    @GET
+    public List<Alert> active() {
+        return engine.getActive();
+    }
+
+}
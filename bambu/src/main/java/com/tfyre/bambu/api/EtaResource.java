@@ -0,0 +1,87 @@
+package com.tfyre.bambu.api;
+
+import com.tfyre.bambu.SystemRoles;
+import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.printer.PrintTimes;
+import com.tfyre.bambu.printer.PrinterEta;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Corrected finish times of running prints and when printers are free
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Path("/api/eta")
+@RolesAllowed({ SystemRoles.ROLE_ADMIN, SystemRoles.ROLE_NORMAL })
+@Produces(MediaType.APPLICATION_JSON)
+public class EtaResource {
+
+    @Inject
+    BambuPrinters printers;
+    @Inject
+    PrintTimes times;
+
+    @GET
+    @Path("/printers")
+    public List<PrinterEstimate> estimates() {
+        final List<PrinterEstimate> result = new ArrayList<>();
+        for (final BambuPrinter printer : printers.getPrinters()) {
+            printer.getEta().getEstimate().ifPresent(estimate -> result.add(new PrinterEstimate(printer.getName(), estimate)));
+        }
+        return result;
+    }
+
+    /**
+     * @param at ISO date time, eg 2024-01-31T10:15:30+02:00, defaults to now
+     */
+    @GET
+    @Path("/free")
+    public List<Free> free(@QueryParam("at") final String at) {
+        final OffsetDateTime time;
+        try {
+            time = Optional.ofNullable(at).filter(v -> !v.isBlank()).map(OffsetDateTime::parse).orElseGet(OffsetDateTime::now);
+        } catch (DateTimeParseException ex) {
+            throw new BadRequestException("at: %s".formatted(ex.getMessage()), ex);
+        }
+        final List<Free> result = new ArrayList<>();
+        for (final BambuPrinter printer : printers.getPrinters()) {
+            times.getFreeAt(printer)
+                    .filter(freeAt -> !freeAt.isAfter(time))
+                    .ifPresent(freeAt -> result.add(new Free(printer.getName(), freeAt)));
+        }
+        result.sort(Comparator.comparing(Free::freeAt));
+        return result;
+    }
+
+    /**
+     * Print times learnt per file and printer model
+     */
+    @GET
+    @Path("/curves")
+    public List<PrintTimes.Curve.Info> curves() {
+        return times.getCurves();
+    }
+
+    public record PrinterEstimate(String printer, PrinterEta.Estimate estimate) {
+
+    }
+
+    public record Free(String printer, OffsetDateTime freeAt) {
+
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.tfyre.bambu.api;
+
+import com.tfyre.bambu.SystemRoles;
+import com.tfyre.bambu.filament.FilamentIndex;
+import com.tfyre.bambu.filament.FilamentInventory;
+import com.tfyre.bambu.filament.PrinterStock;
+import com.tfyre.bambu.filament.Spool;
+import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.printer.PrinterState;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Filament inventory: spools, loaded filament per printer and run out forecasts
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Path("/api/filament")
+@RolesAllowed({ SystemRoles.ROLE_ADMIN, SystemRoles.ROLE_NORMAL })
+@Produces(MediaType.APPLICATION_JSON)
+public class FilamentResource {
+
+    @Inject
+    FilamentInventory inventory;
+    @Inject
+    FilamentIndex index;
+    @Inject
+    BambuPrinters printers;
+
+    @GET
+    @Path("/spools")
+    public List<Spool.Info> spools() {
+        return inventory.getSpools();
+    }
+
+    @GET
+    @Path("/spools/{id}")
+    public Spool.Info spool(@PathParam("id") final String id) {
+        return inventory.getSpool(id).orElseThrow(() -> new NotFoundException(id));
+    }
+
+    @GET
+    @Path("/printers")
+    public List<PrinterStock> printers() {
+        return inventory.getStocks();
+    }
+
+    @GET
+    @Path("/printers/{name}")
+    public PrinterStock printer(@PathParam("name") final String name) {
+        return inventory.getStock(name).orElseThrow(() -> new NotFoundException(name));
+    }
+
+    /**
+     * Printers with a spool forecast to run out before their current job ends
+     */
+    @GET
+    @Path("/runout")
+    public List<PrinterStock> runout() {
+        return inventory.getRunningOut();
+    }
+
+    private static FilamentIndex.Need getNeed(final String filament, final int remain) {
+        final String[] parts = filament.split(":", -1);
+        if (parts.length > 3 || parts[0].isBlank()) {
+            throw new BadRequestException("Invalid filament: %s, expected TYPE[:COLOR[:INFO_IDX]]".formatted(filament));
+        }
+        return FilamentIndex.Need.of(parts[0], parts.length > 1 ? parts[1] : "", parts.length > 2 ? parts[2] : "", remain);
+    }
+
+    /**
+     * Printers holding every filament in its own slot, with the ams_mapping to print with
+     *
+     * @param filaments TYPE[:COLOR[:INFO_IDX]] eg PLA:000000:GFA01, in the order of the filaments of the project
+     * @param remain minimum percentage left of every spool
+     * @param idle only printers that are idle
+     */
+    @GET
+    @Path("/match")
+    public List<FilamentIndex.Match> match(@QueryParam("filament") final List<String> filaments,
+            @QueryParam("remain") @DefaultValue("0") final int remain, @QueryParam("idle") @DefaultValue("false") final boolean idle) {
+        if (remain < 0 || remain > 100) {
+            throw new BadRequestException("remain must be 0 to 100");
+        }
+        final List<FilamentIndex.Need> needs = filaments.stream().map(f -> getNeed(f, remain)).toList();
+        final Predicate<String> filter;
+        if (idle) {
+            final Set<String> names = printers.getPrintersByState(PrinterState.IDLE).stream()
+                    .map(BambuPrinters.PrinterDetail::name)
+                    .collect(Collectors.toSet());
+            filter = names::contains;
+        } else {
+            filter = name -> true;
+        }
+        return index.find(needs, filter);
+    }
+
+}
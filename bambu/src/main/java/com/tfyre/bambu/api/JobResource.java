@@ -0,0 +1,106 @@
+package com.tfyre.bambu.api;
+
+import com.tfyre.bambu.SystemRoles;
+import com.tfyre.bambu.job.JobDispatcher;
+import com.tfyre.bambu.job.JobQueue;
+import com.tfyre.bambu.job.JobRequest;
+import com.tfyre.bambu.job.PrintJob;
+import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.security.ApiTokens;
+import io.quarkus.security.identity.SecurityIdentity;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.ForbiddenException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.SecurityContext;
+import java.util.List;
+
+/**
+ * Print job queue, jobs are started on idle printers when bambu.jobs.dispatch is enabled
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Path("/api/jobs")
+@RolesAllowed({ SystemRoles.ROLE_ADMIN, SystemRoles.ROLE_NORMAL })
+@Produces(MediaType.APPLICATION_JSON)
+public class JobResource {
+
+    @Inject
+    JobQueue queue;
+    @Inject
+    JobDispatcher dispatcher;
+    @Inject
+    BambuPrinters printers;
+    @Inject
+    ApiTokens tokens;
+    @Inject
+    SecurityIdentity identity;
+
+    @GET
+    public List<PrintJob.Info> list() {
+        return queue.list();
+    }
+
+    @GET
+    @Path("/{id}")
+    public PrintJob.Info get(@PathParam("id") final long id) {
+        return queue.get(id).orElseThrow(() -> new NotFoundException("Job %d".formatted(id)));
+    }
+
+    /**
+     * The printer expected to be free first for a job
+     */
+    @GET
+    @Path("/{id}/forecast")
+    public JobDispatcher.Forecast forecast(@PathParam("id") final long id) {
+        return dispatcher.getForecast(get(id).requirements()).orElseThrow(() -> new NotFoundException("No printer for job %d".formatted(id)));
+    }
+
+    @POST
+    @RolesAllowed(SystemRoles.ROLE_ADMIN)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public PrintJob.Info submit(final JobRequest request, @Context final SecurityContext context) {
+        try {
+            return queue.submit(request, context.getUserPrincipal().getName());
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
+
+    @DELETE
+    @Path("/{id}")
+    @RolesAllowed(SystemRoles.ROLE_ADMIN)
+    public void cancel(@PathParam("id") final long id) {
+        if (!queue.cancel(id)) {
+            throw new NotFoundException("Job %d".formatted(id));
+        }
+    }
+
+    /**
+     * Confirms the bed of a printer is cleared after a print, so it can receive the next job. This can start a print, so it needs the same
+     * access as a printer command.
+     */
+    @POST
+    @Path("/printers/{name}/bed-cleared")
+    @RolesAllowed({ SystemRoles.ROLE_ADMIN, SystemRoles.ROLE_COMMAND })
+    public void bedCleared(@PathParam("name") final String name) {
+        final BambuPrinters.PrinterDetail detail = printers.getPrinterDetail(name).orElseThrow(() -> new NotFoundException(name));
+        if (!tokens.canCommand(identity, detail)) {
+            throw new ForbiddenException("%s may not control %s".formatted(identity.getPrincipal().getName(), name));
+        }
+        if (!dispatcher.setBedCleared(name)) {
+            throw new NotFoundException(name);
+        }
+    }
+
+}
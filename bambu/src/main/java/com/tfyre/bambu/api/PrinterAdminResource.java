@@ -0,0 +1,79 @@
+package com.tfyre.bambu.api;
+
+import com.tfyre.bambu.SystemRoles;
+import com.tfyre.bambu.camel.CamelController;
+import com.tfyre.bambu.printer.BambuPrinterException;
+import com.tfyre.bambu.printer.BambuPrinters;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import org.jboss.logging.Logger;
+
+/**
+ * Runtime registration of printers, changes are not persisted, use bambu.printers-file for that
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Path("/api/admin/printers")
+@RolesAllowed(SystemRoles.ROLE_ADMIN)
+@Produces(MediaType.APPLICATION_JSON)
+public class PrinterAdminResource {
+
+    @Inject
+    Logger log;
+    @Inject
+    CamelController controller;
+    @Inject
+    BambuPrinters printers;
+
+    @GET
+    public List<PrinterInfo> list() {
+        return controller.getPrinterNames().entrySet().stream()
+                .map(e -> new PrinterInfo(e.getKey(), e.getValue(),
+                printers.getPrinterDetail(e.getValue()).map(BambuPrinters.PrinterDetail::isRunning).orElse(false)))
+                .sorted(Comparator.comparing(PrinterInfo::id))
+                .toList();
+    }
+
+    /**
+     * Adds or replaces a printer, only this printer reconnects
+     */
+    @PUT
+    @Path("/{id}")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public void update(@PathParam("id") final String id, final Map<String, String> properties) {
+        try {
+            controller.updatePrinter(id, properties);
+        } catch (BambuPrinterException ex) {
+            log.errorf("update id[%s] failed - %s", id, ex.getMessage());
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
+
+    @DELETE
+    @Path("/{id}")
+    public void remove(@PathParam("id") final String id) {
+        try {
+            controller.removePrinter(id);
+        } catch (BambuPrinterException ex) {
+            log.errorf("remove id[%s] failed - %s", id, ex.getMessage());
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
+
+    public record PrinterInfo(String id, String name, boolean running) {
+
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.tfyre.bambu.api;
+
+import com.tfyre.bambu.SystemRoles;
+import com.tfyre.bambu.printer.BambuConst;
+import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.security.ApiTokens;
+import io.quarkus.security.identity.SecurityIdentity;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.ForbiddenException;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import java.util.Locale;
+import java.util.function.Function;
+import org.jboss.logging.Logger;
+
+/**
+ * Printer commands for admins and command tokens, a token only controls printers with one of its tags
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Path("/api/printers/{name}")
+@RolesAllowed({ SystemRoles.ROLE_ADMIN, SystemRoles.ROLE_COMMAND })
+public class PrinterCommandResource {
+
+    @Inject
+    Logger log;
+    @Inject
+    BambuPrinters printers;
+    @Inject
+    ApiTokens tokens;
+    @Inject
+    SecurityIdentity identity;
+
+    private BambuPrinters.PrinterDetail getPrinter(final String name) {
+        final BambuPrinters.PrinterDetail detail = printers.getPrinterDetail(name).orElseThrow(() -> new NotFoundException(name));
+        if (!tokens.canCommand(identity, detail)) {
+            throw new ForbiddenException("%s may not control %s".formatted(identity.getPrincipal().getName(), name));
+        }
+        if (!detail.isRunning() || detail.isMirrored()) {
+            throw new BadRequestException("%s is not running on this node".formatted(name));
+        }
+        log.infof("%s: command by %s", name, identity.getPrincipal().getName());
+        return detail;
+    }
+
+    private static <T> T getValue(final String value, final Function<String, T> function) {
+        try {
+            return function.apply(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Unknown value: %s".formatted(value), ex);
+        }
+    }
+
+    /**
+     * @param control stop, pause or resume
+     */
+    @POST
+    @Path("/control/{control}")
+    public void control(@PathParam("name") final String name, @PathParam("control") final String control) {
+        final BambuConst.CommandControl value = getValue(control, BambuConst.CommandControl::valueOf);
+        getPrinter(name).printer().commandControl(value);
+    }
+
+    /**
+     * @param mode on or off
+     */
+    @POST
+    @Path("/light/{mode}")
+    public void light(@PathParam("name") final String name, @PathParam("mode") final String mode) {
+        final BambuConst.LightMode value = getValue(mode, BambuConst.LightMode::valueOf);
+        getPrinter(name).printer().commandLight(value);
+    }
+
+    /**
+     * @param speed silent, normal, sport or ludicrous
+     */
+    @POST
+    @Path("/speed/{speed}")
+    public void speed(@PathParam("name") final String name, @PathParam("speed") final String speed) {
+        final BambuConst.Speed value = getValue(speed, BambuConst.Speed::valueOf);
+        if (value == BambuConst.Speed.UNKNOWN) {
+            throw new BadRequestException("Unknown value: %s".formatted(speed));
+        }
+        getPrinter(name).printer().commandSpeed(value);
+    }
+
+    @POST
+    @Path("/clear-error")
+    public void clearError(@PathParam("name") final String name) {
+        getPrinter(name).printer().commandClearPrinterError();
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.tfyre.bambu.api;
+
+import com.tfyre.bambu.SystemRoles;
+import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.printer.HistoryExport;
+import com.tfyre.bambu.printer.MessageHistory;
+import com.tfyre.bambu.printer.PrinterEvents;
+import io.smallrye.mutiny.Multi;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+
+/**
+ * Read only printer state for scripts and displays
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Path("/api/printers")
+@RolesAllowed({ SystemRoles.ROLE_ADMIN, SystemRoles.ROLE_NORMAL })
+@Produces(MediaType.APPLICATION_JSON)
+public class PrinterResource {
+
+    private static final int MAX_HISTORY = 1_000;
+    private static final String GZIP = "application/gzip";
+
+    @Inject
+    PrinterStateCache cache;
+    @Inject
+    PrinterEvents events;
+    @Inject
+    BambuPrinters printers;
+
+    @GET
+    public String list() {
+        return cache.getPrinters();
+    }
+
+    @GET
+    @Path("/{name}/state")
+    public String state(@PathParam("name") final String name) {
+        return cache.getState(name).orElseThrow(() -> new NotFoundException(name));
+    }
+
+    @GET
+    @Path("/{name}/history")
+    public String history(@PathParam("name") final String name, @QueryParam("limit") @DefaultValue("100") final int limit) {
+        return cache.getHistory(name, Math.max(0, Math.min(limit, MAX_HISTORY))).orElseThrow(() -> new NotFoundException(name));
+    }
+
+    private static List<String> getFields(final String fields) {
+        return Optional.ofNullable(fields)
+                .map(f -> Arrays.stream(f.split(",")).map(String::trim).filter(s -> !s.isEmpty()).sorted().distinct().toList())
+                .orElse(List.of());
+    }
+
+    private static Optional<Instant> getInstant(final String name, final String value) {
+        try {
+            return Optional.ofNullable(value).filter(v -> !v.isBlank()).map(Instant::parse);
+        } catch (DateTimeParseException ex) {
+            throw new BadRequestException("%s: %s".formatted(name, ex.getMessage()), ex);
+        }
+    }
+
+    private List<BambuPrinter> getPrinters(final String names) {
+        final List<String> selected = getFields(names);
+        if (selected.isEmpty()) {
+            return printers.getPrinters().stream().toList();
+        }
+        return selected.stream()
+                .map(name -> printers.getPrinter(name).orElseThrow(() -> new NotFoundException(name)))
+                .toList();
+    }
+
+    /**
+     * Message history as gzip compressed JSON lines, streamed while it is read
+     *
+     * @param names comma separated printers, all printers when omitted
+     * @param from ISO instant, eg 2024-01-31T10:15:30Z
+     * @param filter space separated terms as in the logs view, path=value or raw text
+     * @param format jsonl for a message per line or columnar for a line per chunk of messages with a column per field
+     */
+    @GET
+    @Path("/export")
+    @RolesAllowed({ SystemRoles.ROLE_ADMIN })
+    @Produces(GZIP)
+    public Response export(@QueryParam("printers") final String names, @QueryParam("from") final String from, @QueryParam("to") final String to,
+            @QueryParam("command") final String command, @QueryParam("filter") final String filter,
+            @QueryParam("format") @DefaultValue("jsonl") final String format) {
+        final HistoryExport export;
+        try {
+            export = new HistoryExport(getPrinters(names),
+                    MessageHistory.Query.parse(getInstant("from", from), getInstant("to", to), Optional.ofNullable(command), filter),
+                    HistoryExport.Format.of(format));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+        final StreamingOutput output = export::write;
+        return Response.ok(output, GZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"%s\"".formatted(export.getFileName()))
+                .build();
+    }
+
+    /**
+     * Every status message as it arrives, status messages are deltas and full status messages are complete
+     *
+     * @param printer only this printer, all printers when omitted
+     * @param fields comma separated paths to keep, eg print.mc_percent,print.gcode_state
+     */
+    @GET
+    @Path("/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.TEXT_PLAIN)
+    public Multi<String> stream(@QueryParam("printer") final String printer, @QueryParam("fields") final String fields) {
+        final List<String> paths = getFields(fields);
+        return events.stream()
+                .onOverflow().drop()
+                .filter(e -> printer == null || printer.equals(e.getName()))
+                .map(e -> cache.getEvent(e, paths))
+                .filter(Optional::isPresent)
+                .map(Optional::get);
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.tfyre.bambu.api;
+
+import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.printer.PrinterEvents;
+import io.smallrye.mutiny.subscription.Cancellable;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.jboss.logging.Logger;
+
+/**
+ * Binary websocket feed for headless monitors: every frame is a protobuf {@link com.tfyre.bambu.model.PrinterUpdate}.
+ * Query parameters: printers (comma separated, all when omitted) and interval (ms between flushes, default 1000)
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class PrinterSocket {
+
+    public static final String PATH = "/ws/printers";
+    private static final long MIN_INTERVAL = 100;
+    private static final long DEFAULT_INTERVAL = 1_000;
+
+    @Inject
+    Logger log;
+    @Inject
+    Vertx vertx;
+    @Inject
+    BambuPrinters printers;
+    @Inject
+    PrinterEvents events;
+
+    public void init(@Observes final Router router) {
+        router.route(PATH).handler(this::onRequest);
+    }
+
+    private static Set<String> getPrinters(final RoutingContext rc) {
+        return Optional.ofNullable(rc.request().getParam("printers"))
+                .map(p -> Arrays.stream(p.split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toUnmodifiableSet()))
+                .orElse(Set.of());
+    }
+
+    private static long getInterval(final RoutingContext rc) {
+        try {
+            return Optional.ofNullable(rc.request().getParam("interval"))
+                    .map(Long::parseLong)
+                    .map(i -> Math.max(MIN_INTERVAL, i))
+                    .orElse(DEFAULT_INTERVAL);
+        } catch (NumberFormatException ex) {
+            return DEFAULT_INTERVAL;
+        }
+    }
+
+    private void onRequest(final RoutingContext rc) {
+        final Set<String> selected = getPrinters(rc);
+        final long interval = getInterval(rc);
+        rc.request().toWebSocket()
+                .onSuccess(socket -> onConnect(socket, selected, interval))
+                .onFailure(t -> log.errorf(t, "websocket upgrade failed - %s", t.getMessage()));
+    }
+
+    private void onConnect(final ServerWebSocket socket, final Set<String> selected, final long interval) {
+        log.infof("websocket connected from %s printers%s interval[%d]", socket.remoteAddress(), selected, interval);
+        final PrinterSocketSession session = new PrinterSocketSession(socket, selected);
+        printers.getPrinters().stream()
+                .filter(p -> session.accepts(p.getName()))
+                .forEach(p -> {
+                    p.getFullStatus().ifPresent(m -> session.onMessage(p.getName(), true, m));
+                    p.getStatus().ifPresent(m -> session.onMessage(p.getName(), false, m));
+                });
+        final Cancellable subscription = events.stream()
+                .onOverflow().drop()
+                .filter(e -> session.accepts(e.getName()))
+                .subscribe().with(session::onEvent);
+        session.flush();
+        final long timerId = vertx.setPeriodic(interval, id -> session.flush());
+        socket.closeHandler(v -> {
+            vertx.cancelTimer(timerId);
+            subscription.cancel();
+            log.infof("websocket disconnected - sent[%d] coalesced[%d]", session.getSent(), session.getCoalesced());
+        });
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.tfyre.bambu.api;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import com.tfyre.bambu.model.BambuMessage;
+import com.tfyre.bambu.model.PrinterUpdate;
+import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.printer.PrinterEvents;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.ServerWebSocket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One websocket subscriber. Updates are coalesced per printer between flushes, a slow client gets the latest state and never a backlog.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+class PrinterSocketSession {
+
+    private final ServerWebSocket socket;
+    private final Set<String> printers;
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    PrinterSocketSession(final ServerWebSocket socket, final Set<String> printers) {
+        this.socket = socket;
+        this.printers = printers;
+    }
+
+    boolean accepts(final String printer) {
+        return printers.isEmpty() || printers.contains(printer);
+    }
+
+    /**
+     * Copies the fields set in source, repeated fields are replaced as a whole like the printer does
+     */
+    static void merge(final Message.Builder target, final Message source) {
+        for (final Map.Entry<Descriptors.FieldDescriptor, Object> entry : source.getAllFields().entrySet()) {
+            final Descriptors.FieldDescriptor field = entry.getKey();
+            if (!field.isRepeated() && field.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE && target.hasField(field)) {
+                merge(target.getFieldBuilder(field), (Message) entry.getValue());
+            } else {
+                target.setField(field, entry.getValue());
+            }
+        }
+    }
+
+    synchronized void onEvent(final PrinterEvents.Event event) {
+        onMessage(event.getName(), PrinterEvents.TYPE_FULLSTATUS.equals(event.getType()), event.getMessage());
+    }
+
+    synchronized void onMessage(final String printer, final boolean fullStatus, final BambuPrinter.Message message) {
+        final Pending p = pending.computeIfAbsent(printer, k -> new Pending());
+        p.timestamp = message.lastUpdated().toInstant().toEpochMilli();
+        if (fullStatus) {
+            if (p.fullStatus != null || p.status != null) {
+                coalesced.incrementAndGet();
+            }
+            p.fullStatus = message.message();
+            p.status = null;
+            return;
+        }
+        if (p.status == null) {
+            p.status = message.message().toBuilder();
+            return;
+        }
+        coalesced.incrementAndGet();
+        merge(p.status, message.message());
+    }
+
+    private void write(final String printer, final boolean fullStatus, final long timestamp, final BambuMessage message) {
+        final PrinterUpdate update = PrinterUpdate.newBuilder()
+                .setPrinter(printer)
+                .setFullStatus(fullStatus)
+                .setTimestamp(timestamp)
+                .setMessage(message)
+                .build();
+        socket.writeBinaryMessage(Buffer.buffer(update.toByteArray()));
+        sent.incrementAndGet();
+    }
+
+    /**
+     * Called on the event loop at the client rate, skipped while the socket is still busy with the previous flush
+     */
+    synchronized void flush() {
+        if (pending.isEmpty() || socket.writeQueueFull()) {
+            return;
+        }
+        pending.forEach((printer, p) -> {
+            if (p.fullStatus != null) {
+                write(printer, true, p.timestamp, p.fullStatus);
+            }
+            if (p.status != null) {
+                write(printer, false, p.timestamp, p.status.build());
+            }
+        });
+        pending.clear();
+    }
+
+    long getSent() {
+        return sent.get();
+    }
+
+    long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private static class Pending {
+
+        private long timestamp;
+        private BambuMessage fullStatus;
+        private BambuMessage.Builder status;
+    }
+
+}
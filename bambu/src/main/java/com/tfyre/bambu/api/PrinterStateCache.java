@@ -0,0 +1,176 @@
+package com.tfyre.bambu.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.printer.HmsEvent;
+import com.tfyre.bambu.printer.MessageHistory;
+import com.tfyre.bambu.printer.PrinterEvents;
+import com.tfyre.bambu.printer.PrinterHealth;
+import com.tfyre.bambu.printer.PrinterState;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.jboss.logging.Logger;
+
+/**
+ * JSON views of the in memory printer state. Printer messages are embedded as received (raw), a snapshot is only encoded again once it changed.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class PrinterStateCache {
+
+    @Inject
+    Logger log;
+    @Inject
+    ObjectMapper mapper;
+    @Inject
+    BambuPrinters printers;
+
+    private final Map<String, Encoded> cache = new ConcurrentHashMap<>();
+
+    private String quote(final Object value) {
+        try {
+            return mapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot encode %s - %s".formatted(value, ex.getMessage()), ex);
+        }
+    }
+
+    private String raw(final Optional<BambuPrinter.Message> message) {
+        return message.map(BambuPrinter.Message::raw).orElse("null");
+    }
+
+    private String lastUpdated(final Optional<BambuPrinter.Message> message) {
+        return message.map(m -> quote(m.lastUpdated().toString())).orElse("null");
+    }
+
+    private Map<String, String> toMap(final HmsEvent event) {
+        return Map.of("code", event.getCode(), "severity", event.severity().name(), "module", event.module(), "message", event.message());
+    }
+
+    private Encoded encode(final BambuPrinter printer) {
+        final Optional<BambuPrinter.Message> fullStatus = printer.getFullStatus();
+        final Optional<BambuPrinter.Message> status = printer.getStatus();
+        final PrinterState state = printer.getState();
+        final PrinterHealth.State health = printer.getHealth().getState();
+        final List<HmsEvent> hms = printer.getHms();
+        final String summary = "{\"name\":%s,\"state\":\"%s\",\"health\":\"%s\",\"lastUpdated\":%s,\"hms\":%s}"
+                .formatted(quote(printer.getName()), state, health, lastUpdated(status.or(() -> fullStatus)), quote(hms.stream().map(this::toMap).toList()));
+        final String full = "%s,\"fullStatus\":%s,\"status\":%s}"
+                .formatted(summary.substring(0, summary.length() - 1), raw(fullStatus), raw(status));
+        return new Encoded(fullStatus.orElse(null), status.orElse(null), state, health, hms, summary, full);
+    }
+
+    private Encoded getEncoded(final BambuPrinter printer) {
+        return cache.compute(printer.getName(), (k, v) -> v != null && v.isCurrent(printer) ? v : encode(printer));
+    }
+
+    /**
+     * @return summary of every printer
+     */
+    public String getPrinters() {
+        return printers.getPrintersDetail().stream()
+                .map(pd -> getEncoded(pd.printer()).summary())
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    public Optional<String> getState(final String name) {
+        return printers.getPrinter(name).map(p -> getEncoded(p).state());
+    }
+
+    /**
+     * @return the latest messages first
+     */
+    public Optional<String> getHistory(final String name, final int limit) {
+        return printers.getPrinter(name).map(printer -> {
+            final StringBuilder sb = new StringBuilder("[");
+            for (final MessageHistory.Entry entry : printer.getHistory().search(MessageHistory.Query.ALL).fetch(0, limit)) {
+                final BambuPrinter.Message message = entry.message();
+                if (sb.length() > 1) {
+                    sb.append(',');
+                }
+                sb.append("{\"lastUpdated\":").append(quote(message.lastUpdated().toString()))
+                        .append(",\"data\":").append(message.raw()).append('}');
+            }
+            return sb.append(']').toString();
+        });
+    }
+
+    /**
+     * Encodes an event once per distinct field selection, subscribers with the same selection share the result
+     *
+     * @return empty when none of the fields are in the event
+     */
+    public Optional<String> getEvent(final PrinterEvents.Event event, final Collection<String> fields) {
+        final String key = String.join(",", fields);
+        final String result = event.getEncoded(key, e -> encodeEvent(e, fields));
+        return result.isEmpty() ? Optional.empty() : Optional.of(result);
+    }
+
+    private String encodeEvent(final PrinterEvents.Event event, final Collection<String> fields) {
+        final String prefix = "{\"name\":%s,\"type\":\"%s\",\"lastUpdated\":%s,\"data\":"
+                .formatted(quote(event.getName()), event.getType(), quote(event.getMessage().lastUpdated().toString()));
+        if (fields.isEmpty()) {
+            return "%s%s}".formatted(prefix, event.getMessage().raw());
+        }
+        try {
+            final JsonNode data = mapper.readTree(event.getMessage().raw());
+            final ObjectNode result = mapper.createObjectNode();
+            fields.forEach(field -> copy(data, result, field));
+            return result.isEmpty() ? "" : "%s%s}".formatted(prefix, mapper.writeValueAsString(result));
+        } catch (JsonProcessingException ex) {
+            log.errorf(ex, "%s: cannot filter event - %s", event.getName(), ex.getMessage());
+            return "";
+        }
+    }
+
+    /**
+     * Copies the value at a dotted path, eg print.mc_percent
+     */
+    private static void copy(final JsonNode source, final ObjectNode target, final String field) {
+        final String[] path = field.split("\\.");
+        JsonNode node = source;
+        for (final String p : path) {
+            node = node.path(p);
+        }
+        if (node.isMissingNode()) {
+            return;
+        }
+        ObjectNode parent = target;
+        for (int i = 0; i < path.length - 1; i++) {
+            final JsonNode child = parent.get(path[i]);
+            if (child == null) {
+                parent = parent.putObject(path[i]);
+            } else if (child instanceof ObjectNode o) {
+                parent = o;
+            } else {
+                return;
+            }
+        }
+        parent.set(path[path.length - 1], node);
+    }
+
+    private record Encoded(BambuPrinter.Message fullStatus, BambuPrinter.Message status, PrinterState printerState, PrinterHealth.State health,
+            List<HmsEvent> hms, String summary, String state) {
+
+        boolean isCurrent(final BambuPrinter printer) {
+            return printer.getFullStatus().orElse(null) == fullStatus
+                    && printer.getStatus().orElse(null) == status
+                    && printer.getState() == printerState
+                    && printer.getHealth().getState() == health
+                    && printer.getHms() == hms;
+        }
+
+    }
+
+}
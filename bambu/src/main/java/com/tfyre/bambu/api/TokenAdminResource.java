@@ -0,0 +1,69 @@
+package com.tfyre.bambu.api;
+
+import com.tfyre.bambu.SystemRoles;
+import com.tfyre.bambu.security.ApiTokens;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import java.util.List;
+
+/**
+ * API tokens, tokens created here are lost on restart, use bambu.tokens for permanent tokens
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Path("/api/admin/tokens")
+@RolesAllowed(SystemRoles.ROLE_ADMIN)
+@Produces(MediaType.APPLICATION_JSON)
+public class TokenAdminResource {
+
+    @Inject
+    ApiTokens tokens;
+
+    @GET
+    public List<ApiTokens.Info> list() {
+        return tokens.list();
+    }
+
+    /**
+     * @return the token, it is only shown once
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public ApiTokens.Created create(final TokenRequest request) {
+        try {
+            return tokens.create(request.name(), ApiTokens.Scope.of(request.scope()), request.tags());
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Requests with the token fail from now on, open streams are not closed
+     */
+    @DELETE
+    @Path("/{name}")
+    public void revoke(@PathParam("name") final String name) {
+        if (!tokens.revoke(name)) {
+            throw new NotFoundException(name);
+        }
+    }
+
+    /**
+     * @param scope read (default) or command
+     * @param tags printers a command token can control, all when empty
+     */
+    public record TokenRequest(String name, String scope, List<String> tags) {
+
+    }
+
+}
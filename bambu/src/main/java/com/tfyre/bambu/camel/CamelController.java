@@ -3,16 +3,17 @@ package com.tfyre.bambu.camel;
 import com.tfyre.bambu.BambuConfig;
 import com.tfyre.bambu.BambuConfig.Printer;
 import com.tfyre.bambu.printer.BambuPrinters;
-import com.tfyre.bambu.mqtt.AbstractMqttController;
 import com.tfyre.bambu.printer.BambuPrinterException;
 import io.quarkus.runtime.Startup;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.StartupListener;
-import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.builder.RouteBuilder;
 import org.eclipse.microprofile.context.ManagedExecutor;
 import org.jboss.logging.Logger;
 
@@ -22,7 +23,7 @@ import org.jboss.logging.Logger;
  */
 @Startup
 @ApplicationScoped
-public class CamelController extends AbstractMqttController implements StartupListener {
+public class CamelController extends RouteBuilder implements StartupListener {
 
     @Inject
     BambuConfig config;
@@ -35,6 +36,9 @@ public class CamelController extends AbstractMqttController implements StartupLi
     @Inject
     ManagedExecutor executor;
 
+    private final Map<String, PrinterRoutes> routes = new ConcurrentHashMap<>();
+    private volatile boolean started;
+
     @Override
     public void onCamelContextStarted(final CamelContext context, final boolean alreadyStarted) throws Exception {
 
@@ -44,51 +48,151 @@ public class CamelController extends AbstractMqttController implements StartupLi
     public void onCamelContextFullyStarted(final CamelContext context, final boolean alreadyStarted) throws Exception {
         executor.submit(() -> {
             try {
-                printers.startPrinters();
+                startPrinters();
             } catch (BambuPrinterException ex) {
                 log.errorf(ex, "onCamelContextFullyStarted: %s", ex.getMessage());
             }
         });
     }
 
+    private synchronized void startPrinters() throws BambuPrinterException {
+        started = true;
+        if (!config.cluster().enabled()) {
+            printers.startPrinters();
+        }
+    }
+
     @Override
     public void configure() throws Exception {
         getCamelContext().addStartupListener(this);
-        config.printers().forEach(this::configurePrinter);
+        for (final Map.Entry<String, Printer> entry : config.printers().entrySet()) {
+            addPrinter(entry.getKey(), entry.getValue());
+        }
         log.info("configured");
     }
 
-    private String getUrl(final Printer config) {
-        return config.mqtt().url().orElseGet(() -> "ssl://%s:%d".formatted(config.ip(), config.mqtt().port()));
+    /**
+     * @return printer name by id of every configured printer
+     */
+    public Map<String, String> getPrinterNames() {
+        return routes.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().getName()));
     }
 
-    private void configurePrinter(final String id, final Printer config) {
+    /**
+     * Adds the routes of a printer, once the context is running the printer is started immediately unless the cluster decides ownership
+     */
+    public synchronized void addPrinter(final String id, final Printer config) throws BambuPrinterException {
         final String name = config.name().orElse(id);
         if (!config.enabled()) {
             log.infof("Skipping: id[%s] as name[%s]", id, name);
             return;
         }
+        if (routes.containsKey(id)) {
+            throw new BambuPrinterException("id[%s] already configured".formatted(id));
+        }
         log.infof("Configuring: id[%s] as name[%s]", id, name);
-        final String producerTopic = getTopic(config.mqtt().requestTopic(), config.deviceId(), "request");
-        final String consumerTopic = getTopic(config.mqtt().reportTopic(), config.deviceId(), "report");
-        final Endpoint producer = getMqttEndpoint(producerTopic, getUrl(config), config.username(), config.accessCode());
-        final Endpoint consumer = getMqttEndpoint(consumerTopic, getUrl(config), config.username(), config.accessCode());
-        final Endpoint printer = getPrinterEndpoint(name);
-
-        final BambuPrinters.PrinterDetail detail = printers.newPrinter(name, config, printer);
-
-        //producer
-        from(printer)
-                .id("producer-%s".formatted(name))
-                .autoStartup(false)
-                .group(name)
-                .to(producer);
-        //consumer
-        from(consumer)
-                .id("consumer-%s".formatted(name))
-                .autoStartup(false)
-                .group(name)
-                .process(detail.processor());
+        final PrinterRoutes printerRoutes = new PrinterRoutes(name, config, printers);
+        try {
+            getCamelContext().addRoutes(printerRoutes);
+        } catch (Exception ex) {
+            final BambuPrinterException result = new BambuPrinterException("%s: Error adding routes - %s".formatted(name, ex.getMessage()), ex);
+            try {
+                discard(printerRoutes);
+            } catch (BambuPrinterException discardEx) {
+                result.addSuppressed(discardEx);
+            }
+            throw result;
+        }
+        routes.put(id, printerRoutes);
+        if (started && !this.config.cluster().enabled()) {
+            printers.startPrinter(name);
+        }
+    }
+
+    /**
+     * Stops the printer and removes its routes and endpoints, other printers are not touched
+     */
+    public synchronized void removePrinter(final String id) throws BambuPrinterException {
+        final PrinterRoutes printerRoutes = routes.remove(id);
+        if (printerRoutes == null) {
+            throw new BambuPrinterException("id[%s] not configured".formatted(id));
+        }
+        log.infof("Removing: id[%s] as name[%s]", id, printerRoutes.getName());
+        discard(printerRoutes);
+    }
+
+    /**
+     * Removes whatever part of the printer was added, also used to clean up after a failed add
+     */
+    private void discard(final PrinterRoutes printerRoutes) throws BambuPrinterException {
+        final String name = printerRoutes.getName();
+        if (printers.getPrinterDetail(name).isPresent()) {
+            printers.removePrinter(name);
+        }
+        for (final String routeId : printerRoutes.getRouteIds()) {
+            if (getCamelContext().getRoute(routeId) == null) {
+                continue;
+            }
+            try {
+                getCamelContext().getRouteController().stopRoute(routeId);
+                getCamelContext().removeRoute(routeId);
+            } catch (Exception ex) {
+                throw new BambuPrinterException("%s: Error removing route: %s".formatted(name, routeId), ex);
+            }
+        }
+        for (final Endpoint endpoint : printerRoutes.getEndpoints()) {
+            try {
+                getCamelContext().removeEndpoint(endpoint);
+            } catch (Exception ex) {
+                throw new BambuPrinterException("%s: Error removing endpoints".formatted(name), ex);
+            }
+        }
+    }
+
+    /**
+     * Replaces the printer with the new config, only this printer reconnects. The new config is checked before the running printer is
+     * removed and the previous config is restored when the new one cannot be added
+     */
+    public synchronized void updatePrinter(final String id, final Printer config) throws BambuPrinterException {
+        final PrinterRoutes current = routes.get(id);
+        if (current == null) {
+            addPrinter(id, config);
+            return;
+        }
+        final String name = config.name().orElse(id);
+        if (!name.equals(current.getName()) && printers.getPrinterDetail(name).isPresent()) {
+            throw new BambuPrinterException("id[%s] name[%s] already used by another printer".formatted(id, name));
+        }
+        removePrinter(id);
+        try {
+            addPrinter(id, config);
+        } catch (BambuPrinterException ex) {
+            log.errorf("Restoring: id[%s] as name[%s] - %s", id, current.getName(), ex.getMessage());
+            try {
+                if (routes.containsKey(id)) {
+                    removePrinter(id);
+                }
+                addPrinter(id, current.getConfig());
+            } catch (BambuPrinterException restoreEx) {
+                ex.addSuppressed(restoreEx);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * @param properties printer properties without the bambu.printers.[id]. prefix, eg device-id, access-code and ip
+     */
+    public void updatePrinter(final String id, final Map<String, String> properties) throws BambuPrinterException {
+        final String prefix = "%s%s.".formatted(PrinterConfigs.PREFIX, id);
+        final Printer printer = PrinterConfigs.parse(properties.entrySet().stream()
+                .collect(Collectors.toMap(e -> prefix + e.getKey(), Map.Entry::getValue)))
+                .get(id);
+        if (printer == null) {
+            throw new BambuPrinterException("id[%s] has no properties".formatted(id));
+        }
+        updatePrinter(id, printer);
     }
 
 }
@@ -0,0 +1,62 @@
+package com.tfyre.bambu.camel;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.printer.BambuPrinterException;
+import io.quarkus.runtime.configuration.DurationConverter;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Binds bambu.printers.* properties from outside the application config onto {@link BambuConfig.Printer}
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+final class PrinterConfigs {
+
+    static final String PREFIX = "bambu.printers.";
+
+    private PrinterConfigs() {
+    }
+
+    static Map<String, BambuConfig.Printer> parse(final Map<String, String> properties) throws BambuPrinterException {
+        try {
+            final SmallRyeConfig config = new SmallRyeConfigBuilder()
+                    .addDefaultInterceptors()
+                    .withConverter(Duration.class, 100, new DurationConverter())
+                    .withSources(new PropertiesConfigSource(properties, "bambu-printers", 100))
+                    .withMapping(BambuConfig.class)
+                    .withValidateUnknown(false)
+                    .build();
+            return config.getConfigMapping(BambuConfig.class).printers();
+        } catch (RuntimeException ex) {
+            throw new BambuPrinterException("Invalid printer config: %s".formatted(ex.getMessage()), ex);
+        }
+    }
+
+    /**
+     * @return the printer id of a bambu.printers.[id].* key, null for any other key
+     */
+    static String getId(final String key) {
+        if (!key.startsWith(PREFIX)) {
+            return null;
+        }
+        final int index = key.indexOf('.', PREFIX.length());
+        return index == -1 ? null : key.substring(PREFIX.length(), index);
+    }
+
+    /**
+     * The properties of every printer, used to detect which printers changed
+     */
+    static Map<String, Map<String, String>> group(final Map<String, String> properties) {
+        return properties.entrySet().stream()
+                .filter(e -> getId(e.getKey()) != null)
+                .collect(Collectors.groupingBy(e -> getId(e.getKey()), TreeMap::new,
+                        Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> b, TreeMap::new)));
+    }
+
+}
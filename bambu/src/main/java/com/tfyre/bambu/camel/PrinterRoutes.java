@@ -0,0 +1,80 @@
+package com.tfyre.bambu.camel;
+
+import com.tfyre.bambu.BambuConfig.Printer;
+import com.tfyre.bambu.mqtt.AbstractMqttController;
+import com.tfyre.bambu.printer.BambuPrinters;
+import java.util.List;
+import org.apache.camel.Endpoint;
+
+/**
+ * The producer and consumer routes of a single printer, added and removed as a unit
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+class PrinterRoutes extends AbstractMqttController {
+
+    private final String name;
+    private final Printer config;
+    private final BambuPrinters printers;
+    private List<Endpoint> endpoints = List.of();
+
+    PrinterRoutes(final String name, final Printer config, final BambuPrinters printers) {
+        this.name = name;
+        this.config = config;
+        this.printers = printers;
+    }
+
+    private String getUrl() {
+        return config.mqtt().url().orElseGet(() -> "ssl://%s:%d".formatted(config.ip(), config.mqtt().port()));
+    }
+
+    private static String getProducerId(final String name) {
+        return "producer-%s".formatted(name);
+    }
+
+    private static String getConsumerId(final String name) {
+        return "consumer-%s".formatted(name);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Printer getConfig() {
+        return config;
+    }
+
+    List<String> getRouteIds() {
+        return List.of(getProducerId(name), getConsumerId(name));
+    }
+
+    List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    @Override
+    public void configure() throws Exception {
+        final String producerTopic = getTopic(config.mqtt().requestTopic(), config.deviceId(), "request");
+        final String consumerTopic = getTopic(config.mqtt().reportTopic(), config.deviceId(), "report");
+        final Endpoint producer = getMqttEndpoint(producerTopic, getUrl(), config.username(), config.accessCode());
+        final Endpoint consumer = getMqttEndpoint(consumerTopic, getUrl(), config.username(), config.accessCode());
+        final Endpoint printer = getPrinterEndpoint(name);
+        endpoints = List.of(printer, producer, consumer);
+
+        final BambuPrinters.PrinterDetail detail = printers.newPrinter(name, config, printer);
+
+        //producer
+        from(printer)
+                .id(getProducerId(name))
+                .autoStartup(false)
+                .group(name)
+                .to(producer);
+        //consumer
+        from(consumer)
+                .id(getConsumerId(name))
+                .autoStartup(false)
+                .group(name)
+                .process(detail.processor());
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.tfyre.bambu.camel;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.printer.BambuPrinterConsumer;
+import com.tfyre.bambu.printer.BambuPrinterException;
+import com.tfyre.bambu.timer.FarmTimer;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.jboss.logging.Logger;
+
+/**
+ * Applies bambu.printers-file on change: new printers are added, removed printers are stopped and only changed printers reconnect
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Startup
+@ApplicationScoped
+public class PrintersFileWatcher {
+
+    private static final Duration INTERVAL = Duration.ofSeconds(10);
+
+    @Inject
+    Logger log;
+    @Inject
+    BambuConfig config;
+    @Inject
+    CamelController controller;
+    @Inject
+    FarmTimer timer;
+    @Inject
+    ManagedExecutor executor;
+
+    private Path path;
+    private FileTime lastModified;
+    private Map<String, Map<String, String>> current = Map.of();
+    private FarmTimer.Task task;
+
+    @PostConstruct
+    public void postConstruct() {
+        config.printersFile().ifPresent(file -> {
+            path = Paths.get(file);
+            log.infof("Watching printers file: %s", path.toAbsolutePath());
+            task = timer.schedule("printers-file", file, INTERVAL, executor, this::check);
+        });
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    private Map<String, String> load() throws IOException {
+        final Properties properties = new Properties();
+        try (final Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        final Map<String, String> result = new HashMap<>();
+        properties.stringPropertyNames().forEach(key -> result.put(key, properties.getProperty(key)));
+        return result;
+    }
+
+    private void check() {
+        final Map<String, String> properties;
+        try {
+            final FileTime modified = Files.getLastModifiedTime(path);
+            if (modified.equals(lastModified)) {
+                return;
+            }
+            lastModified = modified;
+            properties = load();
+        } catch (NoSuchFileException ex) {
+            log.warnf("Printers file not found: %s", path);
+            return;
+        } catch (IOException ex) {
+            log.errorf(ex, "Printers file cannot be read: %s - %s", path, ex.getMessage());
+            return;
+        }
+        final Map<String, BambuConfig.Printer> printers;
+        try {
+            printers = PrinterConfigs.parse(properties);
+        } catch (BambuPrinterException ex) {
+            log.errorf("Printers file ignored: %s - %s", path, ex.getMessage());
+            return;
+        }
+        final Map<String, Map<String, String>> next = PrinterConfigs.group(properties);
+        // failed printers keep their last applied values, so the next change to the file retries them
+        final Map<String, Map<String, String>> applied = new HashMap<>(next);
+        current.forEach((id, values) -> {
+            if (!next.containsKey(id) && !apply(id, "remove", controller::removePrinter)) {
+                applied.put(id, values);
+            }
+        });
+        next.forEach((id, values) -> {
+            if (!values.equals(current.get(id)) && !apply(id, "update", i -> controller.updatePrinter(i, printers.get(i)))) {
+                final Map<String, String> previous = current.get(id);
+                if (previous == null) {
+                    applied.remove(id);
+                } else {
+                    applied.put(id, previous);
+                }
+            }
+        });
+        current = applied;
+    }
+
+    private boolean apply(final String id, final String action, final BambuPrinterConsumer<String> consumer) {
+        try {
+            consumer.accept(id);
+            return true;
+        } catch (BambuPrinterException ex) {
+            log.errorf(ex, "Printers file: %s id[%s] failed - %s", action, id, ex.getMessage());
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,227 @@
+package com.tfyre.bambu.cluster;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.printer.BambuPrinterException;
+import com.tfyre.bambu.printer.BambuPrinterImpl;
+import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.printer.BambuPrintersImpl;
+import com.tfyre.bambu.printer.PrinterEvents;
+import com.tfyre.bambu.timer.FarmTimer;
+import io.quarkus.runtime.Startup;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.camel.CamelContext;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.jboss.logging.Logger;
+
+/**
+ * Splits printers between the nodes of a cluster with rendezvous hashing, a printer only connects on the node holding its lease.
+ * Owners publish every status message to the {@link LeaseStore} so every node can show every printer and replay every change.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Startup
+@ApplicationScoped
+public class ClusterService {
+
+    private static final String TYPE_STATUS = PrinterEvents.TYPE_STATUS;
+    private static final String TYPE_FULLSTATUS = PrinterEvents.TYPE_FULLSTATUS;
+
+    @Inject
+    Logger log;
+    @Inject
+    BambuConfig config;
+    @Inject
+    BambuPrintersImpl printers;
+    @Inject
+    CamelContext camelContext;
+    @Inject
+    FarmTimer timer;
+    @Inject
+    ManagedExecutor executor;
+    @Inject
+    PrinterEvents events;
+
+    private final Map<String, Queue<BambuPrinter.Message>> pending = new ConcurrentHashMap<>();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private String nodeId;
+    private LeaseStore store;
+    private FarmTimer.Task task;
+    private Cancellable subscription;
+
+    @PostConstruct
+    public void postConstruct() {
+        if (!config.cluster().enabled()) {
+            return;
+        }
+        nodeId = config.cluster().nodeId().orElseGet(ClusterService::getHostName);
+        try {
+            store = new FileLeaseStore(Paths.get(config.cluster().directory()));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot open cluster directory %s - %s".formatted(config.cluster().directory(), ex.getMessage()), ex);
+        }
+        log.infof("Cluster node[%s] directory[%s]", nodeId, config.cluster().directory());
+        subscription = events.stream()
+                .subscribe().with(this::onEvent, t -> log.errorf(t, "Cluster publishing stopped - %s", t.getMessage()));
+        task = timer.schedule("cluster", nodeId, config.cluster().heartbeat(), executor, this::check);
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        if (task == null) {
+            return;
+        }
+        task.cancel();
+        subscription.cancel();
+        try {
+            for (final BambuPrinters.PrinterDetail detail : printers.getPrintersDetail()) {
+                store.release(detail.name(), nodeId);
+            }
+            store.leave(nodeId);
+        } catch (IOException ex) {
+            log.errorf(ex, "Cluster leave failed - %s", ex.getMessage());
+        }
+    }
+
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Rendezvous hashing: every node agrees on the owner without coordination and only printers of a joining or leaving node move
+     */
+    static Optional<String> getOwner(final String printer, final Collection<String> nodes) {
+        final long key = (long) printer.hashCode() << 32;
+        return nodes.stream()
+                .max(Comparator.<String>comparingLong(node -> mix(key ^ (node.hashCode() & 0xffffffffL)))
+                        .thenComparing(Comparator.naturalOrder()));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Set<String> getNodes() throws IOException {
+        return store.getNodes(config.cluster().lease());
+    }
+
+    private static String getKey(final String name, final String type) {
+        return "%s.%s".formatted(name, type);
+    }
+
+    /**
+     * Queues the messages of the printers this node connects to, mirrored messages are not running printers and are not queued
+     */
+    private void onEvent(final PrinterEvents.Event event) {
+        if (printers.getPrinterDetail(event.getName()).filter(BambuPrinters.PrinterDetail::isRunning).isEmpty()) {
+            return;
+        }
+        final Queue<BambuPrinter.Message> queue = pending.computeIfAbsent(getKey(event.getName(), event.getType()), k -> new ConcurrentLinkedQueue<>());
+        queue.add(event.getMessage());
+        // the store only keeps this many, older ones would be dropped on publish anyway
+        while (queue.size() > FileLeaseStore.RETAIN) {
+            queue.poll();
+        }
+    }
+
+    private void check() {
+        if (!camelContext.isStarted()) {
+            return;
+        }
+        final Set<String> nodes;
+        try {
+            store.heartbeat(nodeId);
+            nodes = new HashSet<>(getNodes());
+        } catch (IOException ex) {
+            log.errorf(ex, "Cluster heartbeat failed - %s", ex.getMessage());
+            return;
+        }
+        nodes.add(nodeId);
+        printers.getPrintersDetail().forEach(detail -> {
+            try {
+                check(detail, nodes);
+            } catch (IOException | BambuPrinterException ex) {
+                log.errorf(ex, "%s: cluster check failed - %s", detail.name(), ex.getMessage());
+            }
+        });
+    }
+
+    private void check(final BambuPrinters.PrinterDetail detail, final Set<String> nodes) throws IOException, BambuPrinterException {
+        final String name = detail.name();
+        final boolean owner = getOwner(name, nodes).filter(nodeId::equals).isPresent();
+        if (owner && store.acquire(name, nodeId, config.cluster().lease())) {
+            if (!detail.isRunning()) {
+                log.infof("%s: cluster owner is now %s", name, nodeId);
+                printers.setMirrored(name, false);
+                printers.startPrinter(name);
+            }
+            publish(name, TYPE_FULLSTATUS);
+            publish(name, TYPE_STATUS);
+            return;
+        }
+        if (detail.isRunning()) {
+            log.infof("%s: cluster handing over", name);
+            printers.stopPrinter(name);
+            store.release(name, nodeId);
+        }
+        pending.remove(getKey(name, TYPE_FULLSTATUS));
+        pending.remove(getKey(name, TYPE_STATUS));
+        if (detail.printer() instanceof BambuPrinterImpl impl) {
+            mirror(name, TYPE_FULLSTATUS, impl);
+            mirror(name, TYPE_STATUS, impl);
+            printers.setMirrored(name, true);
+        }
+    }
+
+    /**
+     * Publishes every message received since the previous heartbeat, a message that fails to publish is retried on the next one
+     */
+    private void publish(final String name, final String type) throws IOException {
+        final Queue<BambuPrinter.Message> queue = pending.get(getKey(name, type));
+        if (queue == null || queue.isEmpty()) {
+            return;
+        }
+        final List<BambuPrinter.Message> messages = new ArrayList<>(queue);
+        store.publish(name, type, messages.stream().map(BambuPrinter.Message::raw).toList());
+        messages.forEach(queue::remove);
+    }
+
+    private void mirror(final String name, final String type, final BambuPrinterImpl impl) throws IOException {
+        final String key = getKey(name, type);
+        for (final LeaseStore.Published value : store.read(name, type, versions.getOrDefault(key, 0L))) {
+            versions.put(key, value.version());
+            impl.mirror(type, value.raw());
+        }
+    }
+
+}
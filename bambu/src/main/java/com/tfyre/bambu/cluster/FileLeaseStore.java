@@ -0,0 +1,226 @@
+package com.tfyre.bambu.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link LeaseStore} on a directory shared by all nodes (eg NFS), file modification times are the heartbeats and lease renewals.
+ * <p>
+ * Every printer has a directory of numbered lease files, the highest number holds the lease. A node takes over an expired lease by
+ * hard linking a fully written file as the next number, linking fails when the number exists, so only one of the nodes racing for the
+ * same expired lease wins. Numbers only grow, a release expires the lease file instead of deleting it. The shared file system must
+ * support hard links.
+ * <p>
+ * Published state carries its own sequence number, modification times are too coarse on some file systems to order writes. The
+ * state file of a printer keeps the last {@value #RETAIN} messages, so a reader that polls less often than the owner publishes still
+ * sees every message in between.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class FileLeaseStore implements LeaseStore {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+    private static final TypeReference<List<Published>> PUBLISHED = new TypeReference<>() {
+    };
+    static final int RETAIN = 100;
+
+    private final Path nodes;
+    private final Path leases;
+    private final Path state;
+
+    public FileLeaseStore(final Path root) throws IOException {
+        nodes = Files.createDirectories(root.resolve("nodes"));
+        leases = Files.createDirectories(root.resolve("leases"));
+        state = Files.createDirectories(root.resolve("state"));
+    }
+
+    private static String getFileName(final String name) {
+        return URLEncoder.encode(name, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isAlive(final Path path, final Duration ttl) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis() + ttl.toMillis() > System.currentTimeMillis();
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static void touch(final Path path) throws IOException {
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    private static void write(final Path path, final String data) throws IOException {
+        final Path tmp = path.resolveSibling("%s.tmp".formatted(path.getFileName()));
+        Files.writeString(tmp, data);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void heartbeat(final String node) throws IOException {
+        final Path path = nodes.resolve(getFileName(node));
+        if (Files.exists(path)) {
+            touch(path);
+        } else {
+            Files.writeString(path, node);
+        }
+    }
+
+    @Override
+    public void leave(final String node) throws IOException {
+        Files.deleteIfExists(nodes.resolve(getFileName(node)));
+    }
+
+    @Override
+    public Set<String> getNodes(final Duration ttl) throws IOException {
+        try (final Stream<Path> stream = Files.list(nodes)) {
+            return stream
+                    .filter(p -> isAlive(p, ttl))
+                    .map(p -> {
+                        try {
+                            return Files.readString(p);
+                        } catch (IOException ex) {
+                            return null;
+                        }
+                    })
+                    .filter(n -> n != null && !n.isEmpty())
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    private Optional<String> getHolder(final Path path) throws IOException {
+        try {
+            return Optional.of(Files.readString(path));
+        } catch (NoSuchFileException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private static long getGeneration(final Path path) {
+        try {
+            return Long.parseLong(path.getFileName().toString());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the lease file with the highest number
+     */
+    private static Optional<Path> getLease(final Path dir) throws IOException {
+        try (final Stream<Path> stream = Files.list(dir)) {
+            return stream
+                    .filter(p -> getGeneration(p) >= 0)
+                    .max(Comparator.comparingLong(FileLeaseStore::getGeneration));
+        } catch (NoSuchFileException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private static void deleteBefore(final Path dir, final long generation) throws IOException {
+        try (final Stream<Path> stream = Files.list(dir)) {
+            for (final Path path : stream.filter(p -> getGeneration(p) >= 0 && getGeneration(p) < generation).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Override
+    public boolean acquire(final String printer, final String node, final Duration ttl) throws IOException {
+        final Path dir = Files.createDirectories(leases.resolve(getFileName(printer)));
+        final Optional<Path> lease = getLease(dir);
+        long generation = 0;
+        if (lease.isPresent()) {
+            final Optional<String> holder = getHolder(lease.get());
+            if (holder.isEmpty()) {
+                return false;
+            }
+            if (isAlive(lease.get(), ttl)) {
+                if (!holder.get().equals(node)) {
+                    return false;
+                }
+                touch(lease.get());
+                // another node may have taken over between the check and the touch
+                return getLease(dir).equals(lease);
+            }
+            generation = getGeneration(lease.get()) + 1;
+        }
+        final Path tmp = dir.resolve("%s.tmp".formatted(getFileName(node)));
+        Files.writeString(tmp, node);
+        try {
+            Files.createLink(dir.resolve(Long.toString(generation)), tmp);
+        } catch (FileAlreadyExistsException ex) {
+            return false;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        deleteBefore(dir, generation);
+        return true;
+    }
+
+    @Override
+    public void release(final String printer, final String node) throws IOException {
+        final Optional<Path> lease = getLease(leases.resolve(getFileName(printer)));
+        if (lease.isPresent() && getHolder(lease.get()).filter(node::equals).isPresent()) {
+            Files.setLastModifiedTime(lease.get(), FileTime.fromMillis(0));
+        }
+    }
+
+    private Path getState(final String printer, final String type) {
+        return state.resolve("%s.%s.json".formatted(getFileName(printer), type));
+    }
+
+    private static List<Published> readPublished(final Path path) throws IOException {
+        try {
+            return OM.readValue(Files.readString(path), PUBLISHED);
+        } catch (NoSuchFileException ex) {
+            return List.of();
+        } catch (JsonProcessingException ex) {
+            // written before sequences were stored, the next publish replaces it
+            return List.of();
+        }
+    }
+
+    /**
+     * The sequence continues from the published file, so a new owner keeps counting where the previous one stopped
+     */
+    @Override
+    public void publish(final String printer, final String type, final List<String> raws) throws IOException {
+        if (raws.isEmpty()) {
+            return;
+        }
+        final Path path = getState(printer, type);
+        final List<Published> result = new ArrayList<>(readPublished(path));
+        long sequence = result.isEmpty() ? 0 : result.get(result.size() - 1).version();
+        for (final String raw : raws) {
+            result.add(new Published(++sequence, raw));
+        }
+        write(path, OM.writeValueAsString(result.subList(Math.max(0, result.size() - RETAIN), result.size())));
+    }
+
+    @Override
+    public List<Published> read(final String printer, final String type, final long version) throws IOException {
+        return readPublished(getState(printer, type)).stream()
+                .filter(p -> p.version() > version)
+                .toList();
+    }
+
+}
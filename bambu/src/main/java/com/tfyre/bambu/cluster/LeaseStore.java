@@ -0,0 +1,48 @@
+package com.tfyre.bambu.cluster;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shared state of the cluster: node heartbeats, printer leases and the latest statuses published by the owner of a printer
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public interface LeaseStore {
+
+    void heartbeat(final String node) throws IOException;
+
+    void leave(final String node) throws IOException;
+
+    /**
+     * @return nodes with a heartbeat younger than ttl
+     */
+    Set<String> getNodes(final Duration ttl) throws IOException;
+
+    /**
+     * Takes or renews the lease of a printer, fails while another node holds a lease younger than ttl
+     */
+    boolean acquire(final String printer, final String node, final Duration ttl) throws IOException;
+
+    void release(final String printer, final String node) throws IOException;
+
+    /**
+     * Appends the messages in order, each gets the next sequence number. Only a bounded window of the latest messages is kept.
+     */
+    void publish(final String printer, final String type, final List<String> raws) throws IOException;
+
+    /**
+     * @return the published values with a sequence after version, oldest first
+     */
+    List<Published> read(final String printer, final String type, final long version) throws IOException;
+
+    /**
+     * @param version sequence number of the publish, grows with every publish of the same printer and type
+     */
+    record Published(long version, String raw) {
+
+    }
+
+}
@@ -0,0 +1,310 @@
+package com.tfyre.bambu.filament;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Matching index over the loaded filament of every printer.
+ * <p>
+ * Every printer gets a fixed block of {@value #SLOTS} bits, one per AMS tray plus the external spool. Type, color and tray_info_idx each
+ * keep a bit set per value, so finding printers that hold a filament is an intersection of bit sets over the whole farm. The index is
+ * updated by the {@link FilamentInventory} as tray reports arrive, only slots that changed touch the bit sets.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class FilamentIndex {
+
+    private static final int SLOTS = 17;
+    private static final int POS_EXTERNAL = SLOTS - 1;
+    private static final BitSet EMPTY = new BitSet();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final BitSet free = new BitSet();
+    private final Map<String, BitSet> byType = new HashMap<>();
+    private final Map<String, BitSet> byColor = new HashMap<>();
+    private final Map<String, BitSet> byInfoIdx = new HashMap<>();
+    private Entry[] entries = new Entry[SLOTS * 64];
+
+    /**
+     * @return RRGGBB in upper case, from RRGGBB, RRGGBBAA or #RRGGBB
+     */
+    public static String getColor(final String color) {
+        final String result = color == null ? "" : color.trim().toUpperCase(Locale.ROOT);
+        final String hex = result.startsWith("#") ? result.substring(1) : result;
+        return hex.length() > 6 ? hex.substring(0, 6) : hex;
+    }
+
+    private static String getKey(final String value) {
+        return value == null ? "" : value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static int getPos(final int index) {
+        if (index == PrinterStock.INDEX_EXTERNAL) {
+            return POS_EXTERNAL;
+        }
+        return index >= 0 && index < POS_EXTERNAL ? index : -1;
+    }
+
+    private static int getTray(final int pos) {
+        return pos == POS_EXTERNAL ? PrinterStock.INDEX_EXTERNAL : pos;
+    }
+
+    private int getId(final String printer) {
+        return ids.computeIfAbsent(printer, k -> {
+            final int id = free.nextSetBit(0);
+            if (id >= 0) {
+                free.clear(id);
+                names.set(id, k);
+                return id;
+            }
+            names.add(k);
+            if (names.size() * SLOTS > entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+            return names.size() - 1;
+        });
+    }
+
+    private static void clear(final Map<String, BitSet> map, final String key, final int bit) {
+        if (key.isEmpty()) {
+            return;
+        }
+        final BitSet bits = map.get(key);
+        if (bits != null) {
+            bits.clear(bit);
+            if (bits.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    private static void set(final Map<String, BitSet> map, final String key, final int bit) {
+        if (!key.isEmpty()) {
+            map.computeIfAbsent(key, k -> new BitSet()).set(bit);
+        }
+    }
+
+    private void set(final int bit, final Entry entry) {
+        final Entry current = entries[bit];
+        if (Objects.equals(current, entry)) {
+            return;
+        }
+        entries[bit] = entry;
+        if (current != null && entry != null && current.isSameFilament(entry)) {
+            return;
+        }
+        if (current != null) {
+            clear(byType, current.type(), bit);
+            clear(byColor, current.color(), bit);
+            clear(byInfoIdx, current.infoIdx(), bit);
+        }
+        if (entry != null) {
+            set(byType, entry.type(), bit);
+            set(byColor, entry.color(), bit);
+            set(byInfoIdx, entry.infoIdx(), bit);
+        }
+    }
+
+    /**
+     * Replaces the loaded filament of a printer
+     */
+    public synchronized void update(final String printer, final List<PrinterStock.Slot> slots) {
+        final int base = getId(printer) * SLOTS;
+        final Entry[] next = new Entry[SLOTS];
+        slots.forEach(slot -> {
+            final int pos = getPos(slot.index());
+            if (pos >= 0) {
+                next[pos] = new Entry(slot.name(), getKey(slot.type()), getColor(slot.color()), getKey(slot.infoIdx()), slot.remain());
+            }
+        });
+        for (int pos = 0; pos < SLOTS; pos++) {
+            set(base + pos, next[pos]);
+        }
+    }
+
+    public synchronized void remove(final String printer) {
+        final Integer id = ids.remove(printer);
+        if (id == null) {
+            return;
+        }
+        for (int pos = 0; pos < SLOTS; pos++) {
+            set(id * SLOTS + pos, null);
+        }
+        names.set(id, null);
+        free.set(id);
+    }
+
+    private BitSet getSlots(final Need need) {
+        final BitSet result = (BitSet) byType.getOrDefault(need.type(), EMPTY).clone();
+        if (!need.color().isEmpty()) {
+            result.and(byColor.getOrDefault(need.color(), EMPTY));
+        }
+        if (!need.infoIdx().isEmpty()) {
+            result.and(byInfoIdx.getOrDefault(need.infoIdx(), EMPTY));
+        }
+        for (int bit = result.nextSetBit(0); bit >= 0; bit = result.nextSetBit(bit + 1)) {
+            if (!need.isRemain(entries[bit].remain())) {
+                result.clear(bit);
+            }
+        }
+        return result;
+    }
+
+    private static BitSet getPrinters(final BitSet slots) {
+        final BitSet result = new BitSet();
+        for (int bit = slots.nextSetBit(0); bit >= 0; bit = slots.nextSetBit((bit / SLOTS + 1) * SLOTS)) {
+            result.set(bit / SLOTS);
+        }
+        return result;
+    }
+
+    private boolean assign(final int base, final List<Need> needs, final BitSet[] slots, final int[] bits, final BitSet used, final int i) {
+        if (i == needs.size()) {
+            return true;
+        }
+        // the same filament twice in a project can share a slot
+        for (int j = 0; j < i; j++) {
+            if (needs.get(j).equals(needs.get(i))) {
+                bits[i] = bits[j];
+                return assign(base, needs, slots, bits, used, i + 1);
+            }
+        }
+        for (int bit = slots[i].nextSetBit(base); bit >= 0 && bit < base + SLOTS; bit = slots[i].nextSetBit(bit + 1)) {
+            if (used.get(bit)) {
+                continue;
+            }
+            used.set(bit);
+            bits[i] = bit;
+            if (assign(base, needs, slots, bits, used, i + 1)) {
+                return true;
+            }
+            used.clear(bit);
+        }
+        return false;
+    }
+
+    private Optional<Match> getMatch(final int id, final List<Need> needs, final BitSet[] slots) {
+        final int base = id * SLOTS;
+        final int[] bits = new int[needs.size()];
+        if (!assign(base, needs, slots, bits, new BitSet(), 0)) {
+            return Optional.empty();
+        }
+        final List<String> slotNames = new ArrayList<>(bits.length);
+        final List<Integer> trays = new ArrayList<>(bits.length);
+        for (final int bit : bits) {
+            slotNames.add(entries[bit].name());
+            trays.add(getTray(bit - base));
+        }
+        return Optional.of(new Match(names.get(id), List.copyOf(slotNames), List.copyOf(trays)));
+    }
+
+    /**
+     * Printers holding every filament, each in its own slot
+     *
+     * @param needs in the order of the filaments of the project
+     * @param printers eg only idle printers
+     */
+    public synchronized List<Match> find(final List<Need> needs, final Predicate<String> printers) {
+        final BitSet[] slots = new BitSet[needs.size()];
+        final BitSet candidates = new BitSet();
+        ids.values().forEach(candidates::set);
+        for (int i = 0; i < slots.length && !candidates.isEmpty(); i++) {
+            slots[i] = getSlots(needs.get(i));
+            candidates.and(getPrinters(slots[i]));
+        }
+        final List<Match> result = new ArrayList<>();
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            if (printers.test(names.get(id))) {
+                getMatch(id, needs, slots).ifPresent(result::add);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the slots of one printer holding every filament
+     */
+    public synchronized Optional<Match> match(final String printer, final List<Need> needs) {
+        final Integer id = ids.get(printer);
+        if (id == null) {
+            return needs.isEmpty() ? Optional.of(new Match(printer, List.of(), List.of())) : Optional.empty();
+        }
+        final int base = id * SLOTS;
+        final BitSet[] slots = new BitSet[needs.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new BitSet();
+            for (int pos = 0; pos < SLOTS; pos++) {
+                final Entry entry = entries[base + pos];
+                if (entry != null && needs.get(i).matches(entry)) {
+                    slots[i].set(base + pos);
+                }
+            }
+        }
+        return getMatch(id, needs, slots);
+    }
+
+    /**
+     * @param remain percentage, -1 when unknown
+     */
+    private record Entry(String name, String type, String color, String infoIdx, int remain) {
+
+        private boolean isSameFilament(final Entry o) {
+            return type.equals(o.type) && color.equals(o.color) && infoIdx.equals(o.infoIdx);
+        }
+
+    }
+
+    /**
+     * A filament to find, matched on type, color (when not empty), tray_info_idx (when not empty) and remaining percentage
+     *
+     * @param type eg PLA, PETG
+     * @param color RRGGBB
+     * @param infoIdx filament preset id as reported in tray_info_idx, eg GFA01 for Bambu PLA Matte
+     * @param remain minimum percentage left, spools with an unknown remain only match 0
+     */
+    public record Need(String type, String color, String infoIdx, int remain) {
+
+        public static Need of(final String type, final String color, final String infoIdx, final int remain) {
+            return new Need(getKey(type), getColor(color), getKey(infoIdx), remain);
+        }
+
+        private boolean isRemain(final int value) {
+            return value != 0 && (remain <= 0 || value >= remain);
+        }
+
+        private boolean matches(final Entry entry) {
+            return type.equals(entry.type())
+                    && (color.isEmpty() || color.equals(entry.color()))
+                    && (infoIdx.isEmpty() || infoIdx.equals(entry.infoIdx()))
+                    && isRemain(entry.remain());
+        }
+
+    }
+
+    /**
+     * @param slots slot names, in the order of the needs
+     * @param trays tray index per need, the ams_mapping of the project_file command eg [0,5]
+     */
+    public record Match(String printer, List<String> slots, List<Integer> trays) {
+
+        /**
+         * @return a need is loaded in the AMS
+         */
+        public boolean isAms() {
+            return trays.stream().anyMatch(tray -> tray != PrinterStock.INDEX_EXTERNAL);
+        }
+
+    }
+
+}
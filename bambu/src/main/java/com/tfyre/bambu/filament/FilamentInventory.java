@@ -0,0 +1,334 @@
+package com.tfyre.bambu.filament;
+
+import com.tfyre.bambu.alert.Alert;
+import com.tfyre.bambu.alert.AlertEngine;
+import com.tfyre.bambu.model.AmsSingle;
+import com.tfyre.bambu.model.Print;
+import com.tfyre.bambu.model.Tray;
+import com.tfyre.bambu.model.VtTray;
+import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.printer.PrinterEvents;
+import com.tfyre.bambu.printer.PrinterState;
+import com.tfyre.bambu.timer.FarmTimer;
+import io.quarkus.runtime.Startup;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.jboss.logging.Logger;
+
+/**
+ * Farm wide filament inventory built from the AMS and external tray reports of every printer.
+ * <p>
+ * Spools are tracked by tray_uuid across printers, every printer keeps an immutable {@link PrinterStock} snapshot that is replaced when its
+ * trays or job change, so lookups per printer are a map get. While printing the use of every loaded spool is measured against
+ * mc_remaining_time to forecast spools running out before the job ends. The loaded filament is also kept in the {@link FilamentIndex}.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Startup
+@ApplicationScoped
+public class FilamentInventory {
+
+    public static final String RULE_RUNOUT = "filament-runout";
+
+    private static final String NO_UUID = "00000000000000000000000000000000";
+    private static final int INDEX_NONE = 255;
+    private static final Duration CLEANUP = Duration.ofHours(1);
+    private static final Duration FORGET_AFTER = Duration.ofDays(30);
+    // remain is reported in whole percent, a rate measured over less is mostly rounding
+    private static final long MIN_MINUTES = 15;
+    private static final int MIN_USED = 3;
+
+    @Inject
+    Logger log;
+    @Inject
+    BambuPrinters printers;
+    @Inject
+    PrinterEvents events;
+    @Inject
+    FarmTimer timer;
+    @Inject
+    AlertEngine alerts;
+    @Inject
+    FilamentIndex index;
+
+    private final Map<String, Spool> spools = new ConcurrentHashMap<>();
+    private final Map<String, PrinterTracker> trackers = new ConcurrentHashMap<>();
+    private Cancellable subscription;
+    private FarmTimer.Task task;
+
+    @PostConstruct
+    public void postConstruct() {
+        subscription = events.stream()
+                .filter(e -> e.getMessage().message().hasPrint())
+                .subscribe().with(this::onEvent, t -> log.errorf(t, "Filament inventory stopped - %s", t.getMessage()));
+        task = timer.schedule("filament", CLEANUP, CLEANUP, this::cleanup);
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        subscription.cancel();
+        task.cancel();
+    }
+
+    private void onEvent(final PrinterEvents.Event event) {
+        try {
+            trackers.computeIfAbsent(event.getName(), PrinterTracker::new)
+                    .onPrint(event.getMessage().message().getPrint(), event.getMessage().lastUpdated().toInstant().toEpochMilli());
+        } catch (RuntimeException ex) {
+            log.errorf(ex, "%s: filament update failed - %s", event.getName(), ex.getMessage());
+        }
+    }
+
+    private void cleanup() {
+        trackers.keySet().removeIf(name -> {
+            final boolean gone = printers.getPrinterDetail(name).isEmpty();
+            if (gone) {
+                alerts.resolve(name, RULE_RUNOUT);
+                index.remove(name);
+            }
+            return gone;
+        });
+        final Set<String> loaded = trackers.values().stream()
+                .flatMap(t -> t.stock.slots().stream())
+                .map(PrinterStock.Slot::spool)
+                .collect(Collectors.toSet());
+        final long forget = System.currentTimeMillis() - FORGET_AFTER.toMillis();
+        spools.values().removeIf(spool -> !loaded.contains(spool.getId()) && spool.getLastSeen() < forget);
+    }
+
+    public Optional<PrinterStock> getStock(final String printer) {
+        return Optional.ofNullable(trackers.get(printer)).map(t -> t.stock);
+    }
+
+    public List<PrinterStock> getStocks() {
+        return trackers.values().stream().map(t -> t.stock).sorted(Comparator.comparing(PrinterStock::printer)).toList();
+    }
+
+    /**
+     * @return printers with a spool forecast to run out before the current job ends
+     */
+    public List<PrinterStock> getRunningOut() {
+        return getStocks().stream().filter(PrinterStock::isRunningOut).toList();
+    }
+
+    public Optional<Spool.Info> getSpool(final String id) {
+        return Optional.ofNullable(spools.get(id)).map(Spool::getInfo);
+    }
+
+    public List<Spool.Info> getSpools() {
+        return spools.values().stream().map(Spool::getInfo).sorted(Comparator.comparing(Spool.Info::id)).toList();
+    }
+
+    private static int parseInt(final String value, final int defaultValue) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static boolean isPrinting(final String gcodeState) {
+        return PrinterState.of(true, 0, gcodeState) == PrinterState.PRINTING;
+    }
+
+    /**
+     * Tray state and current job of one printer, updated by the thread delivering its messages
+     */
+    private final class PrinterTracker {
+
+        private final String name;
+        private final Map<Integer, PrinterStock.Slot> slots = new TreeMap<>();
+        private Map<Integer, PrinterStock.Slot> jobSlots = Map.of();
+        private int active = INDEX_NONE;
+        private String gcodeState = "";
+        private String job = "";
+        private long jobStart;
+        private int remainingMinutes;
+        private boolean raised;
+        private volatile PrinterStock stock;
+
+        private PrinterTracker(final String name) {
+            this.name = name;
+            this.stock = new PrinterStock(name, List.of(), "", 0, List.of(), Instant.now().atZone(ZoneId.systemDefault()).toOffsetDateTime());
+        }
+
+        private Spool getSpool(final String uuid, final String slotName) {
+            final boolean tagged = !uuid.isEmpty() && !NO_UUID.equals(uuid);
+            final String id = tagged ? uuid : "%s/%s".formatted(name, slotName);
+            return spools.computeIfAbsent(id, k -> new Spool(k, tagged));
+        }
+
+        private void onTray(final int index, final Tray tray, final long millis) {
+            final String slotName = PrinterStock.Slot.getName(index);
+            if (!tray.hasTrayType() && !tray.hasTrayInfoIdx()) {
+                if (!tray.hasRemain()) {
+                    slots.remove(index);
+                    return;
+                }
+                // partial update of a loaded tray
+                Optional.ofNullable(slots.get(index)).ifPresent(slot -> {
+                    Optional.ofNullable(spools.get(slot.spool())).ifPresent(spool -> spool.setRemain(tray.getRemain(), millis));
+                    slots.put(index, new PrinterStock.Slot(slotName, index, slot.spool(), slot.type(), slot.color(), slot.infoIdx(), tray.getRemain()));
+                });
+                return;
+            }
+            final Spool spool = getSpool(tray.getTrayUuid(), slotName);
+            final int remain = tray.hasRemain() ? tray.getRemain() : -1;
+            spool.update(name, slotName, tray.getTagUid(), tray.getTrayType(), tray.getTrayColor(), tray.getTrayInfoIdx(), remain, millis);
+            slots.put(index, new PrinterStock.Slot(slotName, index, spool.getId(), tray.getTrayType(), tray.getTrayColor(), tray.getTrayInfoIdx(), remain));
+        }
+
+        private void onVtTray(final VtTray tray, final long millis) {
+            final int index = PrinterStock.INDEX_EXTERNAL;
+            if (tray.getTrayType().isEmpty()) {
+                slots.remove(index);
+                return;
+            }
+            final String slotName = PrinterStock.Slot.getName(index);
+            final Spool spool = getSpool(tray.getTrayUuid(), slotName);
+            final int remain = tray.hasRemain() && tray.getRemain() > 0 ? tray.getRemain() : -1;
+            spool.update(name, slotName, tray.getTagUid(), tray.getTrayType(), tray.getTrayColor(), tray.getTrayInfoIdx(), remain, millis);
+            slots.put(index, new PrinterStock.Slot(slotName, index, spool.getId(), tray.getTrayType(), tray.getTrayColor(), tray.getTrayInfoIdx(), remain));
+        }
+
+        private boolean onState(final Print print, final long millis) {
+            if (!print.hasGcodeState() || print.getGcodeState().equals(gcodeState)) {
+                return false;
+            }
+            final boolean wasPrinting = isPrinting(gcodeState);
+            gcodeState = print.getGcodeState();
+            final boolean printing = isPrinting(gcodeState);
+            if (printing && !wasPrinting) {
+                jobStart = millis;
+                jobSlots = Map.copyOf(slots);
+            } else if (!printing && wasPrinting) {
+                endJob(millis);
+                remainingMinutes = 0;
+            }
+            return true;
+        }
+
+        private void endJob(final long millis) {
+            final long minutes = Duration.ofMillis(millis - jobStart).toMinutes();
+            if (minutes < MIN_MINUTES) {
+                return;
+            }
+            jobSlots.forEach((index, start) -> {
+                final PrinterStock.Slot slot = slots.get(index);
+                if (slot == null || !slot.spool().equals(start.spool()) || start.remain() < 0 || slot.remain() < 0) {
+                    return;
+                }
+                final int used = start.remain() - slot.remain();
+                if (used >= MIN_USED) {
+                    Optional.ofNullable(spools.get(slot.spool())).ifPresent(spool -> spool.onJob(job, name, used, minutes, millis));
+                }
+            });
+            log.debugf("%s: job %s ended after %dm", name, job, minutes);
+        }
+
+        synchronized void onPrint(final Print print, final long millis) {
+            boolean changed = false;
+            if (print.hasAms()) {
+                if (print.getAms().hasTrayNow()) {
+                    active = parseInt(print.getAms().getTrayNow(), INDEX_NONE);
+                }
+                for (final AmsSingle single : print.getAms().getAmsList()) {
+                    final int ams = parseInt(single.getId(), -1);
+                    if (ams < 0) {
+                        continue;
+                    }
+                    for (final Tray tray : single.getTrayList()) {
+                        final int index = parseInt(tray.getId(), -1);
+                        if (index >= 0) {
+                            onTray(ams * 4 + index, tray, millis);
+                        }
+                    }
+                }
+                changed = true;
+            }
+            if (print.hasVtTray()) {
+                onVtTray(print.getVtTray(), millis);
+                changed = true;
+            }
+            // trays first, a job ends with the remain reported in the same message
+            changed |= onState(print, millis);
+            if (print.hasSubtaskName()) {
+                job = print.getSubtaskName();
+            }
+            if (print.hasMcRemainingTime() && isPrinting(gcodeState) && print.getMcRemainingTime() != remainingMinutes) {
+                remainingMinutes = print.getMcRemainingTime();
+                changed = true;
+            }
+            if (changed) {
+                update(millis);
+            }
+        }
+
+        private double getUsePerHour(final PrinterStock.Slot slot, final long minutes) {
+            final PrinterStock.Slot start = jobSlots.get(slot.index());
+            final int used = start != null && start.spool().equals(slot.spool()) && start.remain() >= 0 ? start.remain() - slot.remain() : 0;
+            if (used >= MIN_USED && minutes >= MIN_MINUTES) {
+                return used * 60.0 / minutes;
+            }
+            // nothing measurable yet, the learned rate of a spool known to be used
+            return slot.index() == active || used > 0
+                    ? Optional.ofNullable(spools.get(slot.spool())).map(Spool::getUsePerHour).orElse(Double.NaN)
+                    : Double.NaN;
+        }
+
+        private List<PrinterStock.Forecast> getForecasts(final long millis) {
+            if (!isPrinting(gcodeState) || remainingMinutes <= 0) {
+                return List.of();
+            }
+            final long minutes = Duration.ofMillis(millis - jobStart).toMinutes();
+            final List<PrinterStock.Forecast> result = new ArrayList<>();
+            for (final PrinterStock.Slot slot : slots.values()) {
+                if (slot.remain() < 0) {
+                    continue;
+                }
+                final double usePerHour = getUsePerHour(slot, minutes);
+                if (Double.isNaN(usePerHour)) {
+                    continue;
+                }
+                final double needed = usePerHour * remainingMinutes / 60.0;
+                result.add(new PrinterStock.Forecast(slot.name(), slot.spool(), slot.remain(), needed, usePerHour, needed > slot.remain()));
+            }
+            return List.copyOf(result);
+        }
+
+        private void update(final long millis) {
+            stock = new PrinterStock(name, List.copyOf(slots.values()), active == INDEX_NONE ? "" : PrinterStock.Slot.getName(active),
+                    remainingMinutes, getForecasts(millis), Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toOffsetDateTime());
+            index.update(name, stock.slots());
+            // the node owning the printer alerts, like the rule alerts one raised before the printer moved away is resolved
+            final boolean mirrored = printers.getPrinterDetail(name).map(BambuPrinters.PrinterDetail::isMirrored).orElse(false);
+            if (stock.isRunningOut() && !mirrored) {
+                raised = true;
+                alerts.raise(name, RULE_RUNOUT, Alert.Severity.WARNING, stock.forecasts().stream()
+                        .filter(PrinterStock.Forecast::runsOut)
+                        .map(f -> "%s %d%% left, job needs %.0f%%".formatted(f.slot(), f.remain(), f.needed()))
+                        .collect(Collectors.joining(", ")));
+            } else if (raised) {
+                raised = false;
+                alerts.resolve(name, RULE_RUNOUT);
+            }
+        }
+
+    }
+
+}
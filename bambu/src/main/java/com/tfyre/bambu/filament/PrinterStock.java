@@ -0,0 +1,48 @@
+package com.tfyre.bambu.filament;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Immutable snapshot of the loaded filament of a printer, replaced as reports arrive
+ *
+ * @param active slot feeding the printer, empty when none
+ * @param remainingMinutes mc_remaining_time of the current job, 0 when not printing
+ * @param forecasts slots used by the current job
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public record PrinterStock(String printer, List<Slot> slots, String active, int remainingMinutes, List<Forecast> forecasts,
+        OffsetDateTime updated) {
+
+    public static final int INDEX_EXTERNAL = 254;
+
+    /**
+     * @return a slot will run out before the current job ends
+     */
+    public boolean isRunningOut() {
+        return forecasts.stream().anyMatch(Forecast::runsOut);
+    }
+
+    /**
+     * @param name A1 to D4 for AMS trays, Ext for the external spool
+     * @param index AMS tray index as used by ams_mapping (ams * 4 + tray), {@value #INDEX_EXTERNAL} for the external spool
+     * @param remain percentage, -1 when unknown
+     */
+    public record Slot(String name, int index, String spool, String type, String color, String infoIdx, int remain) {
+
+        public static String getName(final int index) {
+            return index == INDEX_EXTERNAL ? "Ext" : "%c%d".formatted('A' + index / 4, index % 4 + 1);
+        }
+
+    }
+
+    /**
+     * @param needed percentage needed to finish the current job
+     * @param usePerHour percentage per hour, measured during this job or learnt from earlier jobs
+     */
+    public record Forecast(String slot, String spool, int remain, double needed, double usePerHour, boolean runsOut) {
+
+    }
+
+}
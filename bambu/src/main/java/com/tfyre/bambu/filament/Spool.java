@@ -0,0 +1,120 @@
+package com.tfyre.bambu.filament;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A filament spool seen in an AMS or external tray, identified by its tray_uuid (RFID spools) or by printer and slot.
+ * <p>
+ * Keeps the last {@value #SAMPLES} remaining percentages and an EWMA of its use per printing hour from completed jobs.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class Spool {
+
+    private static final int SAMPLES = 32;
+    private static final double ALPHA = 0.3;
+
+    private final String id;
+    private final boolean tagged;
+    private String tagUid = "";
+    private String type = "";
+    private String color = "";
+    private String infoIdx = "";
+    private int remain = -1;
+    private String printer = "";
+    private String slot = "";
+    private long lastSeen;
+    private final long[] sampleMillis = new long[SAMPLES];
+    private final byte[] sampleRemain = new byte[SAMPLES];
+    private int samples;
+    private double usePerHour = Double.NaN;
+    private JobUse lastJob;
+
+    Spool(final String id, final boolean tagged) {
+        this.id = id;
+        this.tagged = tagged;
+    }
+
+    private static OffsetDateTime toDateTime(final long millis) {
+        return Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toOffsetDateTime();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    synchronized void update(final String printer, final String slot, final String tagUid, final String type, final String color,
+            final String infoIdx, final int remain, final long millis) {
+        this.printer = printer;
+        this.slot = slot;
+        this.tagUid = tagUid;
+        this.type = type;
+        this.color = color;
+        this.infoIdx = infoIdx;
+        this.lastSeen = millis;
+        setRemain(remain, millis);
+    }
+
+    synchronized void setRemain(final int remain, final long millis) {
+        lastSeen = millis;
+        if (remain == this.remain) {
+            return;
+        }
+        this.remain = remain;
+        if (remain < 0) {
+            return;
+        }
+        final int index = samples++ % SAMPLES;
+        sampleMillis[index] = millis;
+        sampleRemain[index] = (byte) remain;
+    }
+
+    /**
+     * @param used percentage used by the job
+     */
+    synchronized void onJob(final String job, final String printer, final int used, final long minutes, final long millis) {
+        final double rate = used * 60.0 / minutes;
+        usePerHour = Double.isNaN(usePerHour) ? rate : ALPHA * rate + (1 - ALPHA) * usePerHour;
+        lastJob = new JobUse(job, printer, used, minutes, toDateTime(millis));
+    }
+
+    synchronized double getUsePerHour() {
+        return usePerHour;
+    }
+
+    synchronized long getLastSeen() {
+        return lastSeen;
+    }
+
+    public synchronized Info getInfo() {
+        final List<Sample> history = new ArrayList<>(Math.min(samples, SAMPLES));
+        for (int i = Math.max(0, samples - SAMPLES); i < samples; i++) {
+            history.add(new Sample(toDateTime(sampleMillis[i % SAMPLES]), sampleRemain[i % SAMPLES]));
+        }
+        return new Info(id, tagged, tagUid, type, color, infoIdx, remain, printer, slot, toDateTime(lastSeen),
+                Double.isNaN(usePerHour) ? null : usePerHour, lastJob, history);
+    }
+
+    /**
+     * @param remain percentage, -1 when the printer does not know (eg third party spools)
+     * @param usePerHour percentage per printing hour, null until a job completed
+     * @param history oldest first
+     */
+    public record Info(String id, boolean tagged, String tagUid, String type, String color, String infoIdx, int remain, String printer,
+            String slot, OffsetDateTime lastSeen, Double usePerHour, JobUse lastJob, List<Sample> history) {
+
+    }
+
+    public record Sample(OffsetDateTime time, int remain) {
+
+    }
+
+    public record JobUse(String job, String printer, int used, long minutes, OffsetDateTime finished) {
+
+    }
+
+}
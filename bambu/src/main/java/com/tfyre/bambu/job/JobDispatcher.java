@@ -0,0 +1,308 @@
+package com.tfyre.bambu.job;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.filament.FilamentIndex;
+import com.tfyre.bambu.printer.BambuConst;
+import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.printer.PrinterEvents;
+import com.tfyre.bambu.printer.PrinterFiles;
+import com.tfyre.bambu.printer.PrinterState;
+import com.tfyre.bambu.printer.PrintTimes;
+import com.tfyre.bambu.timer.FarmTimer;
+import io.quarkus.runtime.Startup;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.jboss.logging.Logger;
+
+/**
+ * Starts queued jobs on idle printers owned by this node.
+ * <p>
+ * A printer is idle when it is running without an error, not printing, not waiting for a dispatched job to start and its bed is cleared:
+ * only an explicit confirmation clears the bed, a printer that turns IDLE (eg after a power cycle) may still hold the last part. The file is uploaded over FTPS (once per printer while it
+ * is unchanged) and started like a print from the SD card view, with the filaments of the job mapped to the matching AMS trays.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Startup
+@ApplicationScoped
+public class JobDispatcher {
+
+    private static final String STATE_IDLE = "IDLE";
+    private static final Set<String> STATE_DONE = Set.of("FINISH", "FAILED");
+
+    @Inject
+    Logger log;
+    @Inject
+    BambuConfig config;
+    @Inject
+    BambuPrinters printers;
+    @Inject
+    PrinterEvents events;
+    @Inject
+    FarmTimer timer;
+    @Inject
+    ManagedExecutor executor;
+    @Inject
+    JobQueue queue;
+    @Inject
+    PrinterFiles files;
+    @Inject
+    FilamentIndex filaments;
+    @Inject
+    PrintTimes times;
+
+    private final Map<String, Bed> beds = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final Map<String, Long> retryAt = new ConcurrentHashMap<>();
+    private final Map<String, String> uploaded = new ConcurrentHashMap<>();
+    private Cancellable subscription;
+    private FarmTimer.Task task;
+
+    @PostConstruct
+    public void postConstruct() {
+        subscription = events.stream()
+                .filter(e -> e.getMessage().message().hasPrint() && e.getMessage().message().getPrint().hasGcodeState())
+                .subscribe().with(this::onEvent, t -> log.errorf(t, "Job dispatcher stopped - %s", t.getMessage()));
+        if (config.jobs().dispatch() && config.cluster().enabled()) {
+            log.warn("Jobs are queued per node, with the cluster enabled jobs queued on this node only start on the printers it connects to");
+        }
+        if (config.jobs().dispatch()) {
+            task = timer.schedule("jobs", config.jobs().interval(), config.jobs().interval(), this::dispatch);
+        }
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        subscription.cancel();
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    private static boolean isPrinting(final String gcodeState) {
+        return PrinterState.of(true, 0, gcodeState) == PrinterState.PRINTING;
+    }
+
+    private void onEvent(final PrinterEvents.Event event) {
+        try {
+            onState(event.getName(), event.getMessage().message().getPrint().getGcodeState());
+        } catch (RuntimeException ex) {
+            log.errorf(ex, "%s: job state update failed - %s", event.getName(), ex.getMessage());
+        }
+    }
+
+    private void onState(final String name, final String state) {
+        final Bed bed = beds.computeIfAbsent(name, k -> new Bed());
+        synchronized (bed) {
+            if (state.equals(bed.state)) {
+                return;
+            }
+            final String previous = bed.state;
+            bed.state = state;
+            if (isPrinting(state)) {
+                bed.cleared = false;
+                Optional.ofNullable(reservations.get(name))
+                        .filter(r -> !r.started)
+                        .ifPresent(r -> {
+                            r.started = true;
+                            queue.setStatus(r.claim, PrintJob.RunStatus.PRINTING, "");
+                        });
+            } else if (STATE_DONE.contains(state)) {
+                bed.cleared = false;
+                Optional.ofNullable(reservations.get(name))
+                        .filter(r -> r.started && isPrinting(previous))
+                        .ifPresent(r -> {
+                            reservations.remove(name);
+                            queue.setStatus(r.claim, "FINISH".equals(state) ? PrintJob.RunStatus.FINISHED : PrintJob.RunStatus.FAILED, "");
+                        });
+            } else if (STATE_IDLE.equals(state)) {
+                // eg a restart while printing, the print will not finish
+                Optional.ofNullable(reservations.get(name))
+                        .filter(r -> r.started && reservations.remove(name, r))
+                        .ifPresent(r -> queue.setStatus(r.claim, PrintJob.RunStatus.FAILED, "Printer idle"));
+            }
+        }
+    }
+
+    /**
+     * @return false when the printer state is not known yet
+     */
+    public boolean setBedCleared(final String printer) {
+        final Bed bed = beds.get(printer);
+        if (bed == null) {
+            return false;
+        }
+        synchronized (bed) {
+            bed.cleared = true;
+        }
+        log.infof("%s: bed cleared", printer);
+        return true;
+    }
+
+    public boolean isBedCleared(final String printer) {
+        return Optional.ofNullable(beds.get(printer)).map(b -> b.cleared).orElse(false);
+    }
+
+    private boolean isIdle(final BambuPrinters.PrinterDetail detail, final long now) {
+        if (!detail.isRunning() || detail.isMirrored() || reservations.containsKey(detail.name())) {
+            return false;
+        }
+        final Long retry = retryAt.get(detail.name());
+        if (retry != null && now - retry < 0) {
+            return false;
+        }
+        final Bed bed = beds.get(detail.name());
+        return bed != null && !isPrinting(bed.state) && (bed.cleared || !config.jobs().requireBedCleared());
+    }
+
+    private boolean fits(final BambuPrinters.PrinterDetail detail, final Requirements requirements) {
+        if (!requirements.models().isEmpty() && !detail.config().model().map(requirements::isModel).orElse(false)) {
+            return false;
+        }
+        return requirements.filaments().isEmpty() || filaments.match(detail.name(), requirements.getNeeds()).isPresent();
+    }
+
+    /**
+     * The printer expected to be free first that has a model the job accepts, loaded filament is not checked as it can change before then
+     */
+    public Optional<Forecast> getForecast(final Requirements requirements) {
+        return printers.getPrintersDetail().stream()
+                .filter(detail -> detail.isRunning() && !detail.isMirrored())
+                .filter(detail -> requirements.models().isEmpty() || detail.config().model().map(requirements::isModel).orElse(false))
+                .flatMap(detail -> times.getFreeAt(detail.printer()).map(at -> new Forecast(detail.name(), at)).stream())
+                .min(Comparator.comparing(Forecast::freeAt));
+    }
+
+    private void expire(final long now) {
+        reservations.forEach((name, reservation) -> {
+            // the timeout starts once the print command is sent, an upload can take longer
+            if (!reservation.sent || reservation.started || now - reservation.sentAt < config.jobs().startTimeout().toNanos()) {
+                return;
+            }
+            if (reservations.remove(name, reservation)) {
+                queue.requeue(reservation.claim, "Not started within %s".formatted(config.jobs().startTimeout()));
+                retryAt.put(name, now + config.jobs().retryAfter().toNanos());
+            }
+        });
+    }
+
+    private void dispatch() {
+        final long now = System.nanoTime();
+        expire(now);
+        if (queue.getPending() == 0) {
+            return;
+        }
+        for (final BambuPrinters.PrinterDetail detail : printers.getPrintersByState(PrinterState.IDLE)) {
+            if (!isIdle(detail, now)) {
+                continue;
+            }
+            final Optional<JobQueue.Claim> claim = queue.claim(detail.name(), r -> fits(detail, r));
+            if (claim.isEmpty()) {
+                continue;
+            }
+            final Reservation reservation = new Reservation(claim.get());
+            reservations.put(detail.name(), reservation);
+            executor.execute(() -> start(detail, reservation));
+        }
+    }
+
+    private void upload(final BambuPrinters.PrinterDetail detail, final Path file) throws IOException {
+        final String fileName = file.getFileName().toString();
+        final String key = "%s:%d:%d".formatted(fileName, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        if (key.equals(uploaded.get("%s/%s".formatted(detail.name(), fileName)))) {
+            return;
+        }
+        log.infof("%s: uploading %s", detail.name(), fileName);
+        files.upload(detail, file, fileName);
+        uploaded.put("%s/%s".formatted(detail.name(), fileName), key);
+    }
+
+    /**
+     * @return the slots to map the filaments of the job to, empty when the job needs no specific filament
+     * @throws IllegalStateException when the filament was unloaded since the job was claimed
+     */
+    private Optional<FilamentIndex.Match> getMatch(final BambuPrinters.PrinterDetail detail, final Requirements requirements) {
+        if (requirements.filaments().isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(filaments.match(detail.name(), requirements.getNeeds())
+                .orElseThrow(() -> new IllegalStateException("%s: filament no longer loaded".formatted(detail.name()))));
+    }
+
+    private void start(final BambuPrinters.PrinterDetail detail, final Reservation reservation) {
+        final PrintJob job = reservation.claim.job();
+        try {
+            final Path file = queue.getFile(job.getFile());
+            upload(detail, file);
+            final String fileName = BambuConst.PATHSEP + file.getFileName();
+            final BambuConfig.Printer printerConfig = detail.config();
+            if (reservations.get(detail.name()) != reservation) {
+                log.infof("%s: job %d no longer reserved, not started", detail.name(), job.getId());
+                return;
+            }
+            reservation.sentAt = System.nanoTime();
+            reservation.sent = true;
+            if (fileName.endsWith(BambuConst.FILE_GCODE)) {
+                detail.printer().commandPrintGCodeFile(fileName);
+            } else {
+                final Optional<FilamentIndex.Match> match = getMatch(detail, job.getRequirements());
+                detail.printer().commandPrintProjectFile(fileName, job.getPlate(),
+                        job.getUseAms().orElse(match.map(FilamentIndex.Match::isAms).orElse(printerConfig.useAms())),
+                        job.getTimelapse().orElse(printerConfig.timelapse()),
+                        job.getBedLevelling().orElse(printerConfig.bedLevelling()),
+                        match.map(FilamentIndex.Match::trays).orElse(List.of()));
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.errorf(ex, "%s: job %d failed to start - %s", detail.name(), job.getId(), ex.getMessage());
+            if (reservations.remove(detail.name(), reservation)) {
+                queue.requeue(reservation.claim, ex.getMessage());
+                retryAt.put(detail.name(), System.nanoTime() + config.jobs().retryAfter().toNanos());
+            }
+        }
+    }
+
+    /**
+     * @param freeAt now when idle, else the estimated finish of the current print
+     */
+    public record Forecast(String printer, OffsetDateTime freeAt) {
+
+    }
+
+    /**
+     * Last gcode_state of a printer and whether its bed is clear for the next job
+     */
+    private static final class Bed {
+
+        private volatile String state = "";
+        private volatile boolean cleared;
+
+    }
+
+    private static final class Reservation {
+
+        private final JobQueue.Claim claim;
+        private volatile long sentAt;
+        private volatile boolean sent;
+        private volatile boolean started;
+
+        private Reservation(final JobQueue.Claim claim) {
+            this.claim = claim;
+        }
+
+    }
+
+}
@@ -0,0 +1,218 @@
+package com.tfyre.bambu.job;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.printer.BambuConst;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import org.jboss.logging.Logger;
+
+/**
+ * Central queue of print jobs.
+ * <p>
+ * Jobs are kept in one queue per owner and {@link Requirements}, ordered by priority. Claiming a job for a printer checks the requirements
+ * once per queue and picks the best head: highest priority (raised by waiting, see bambu.jobs.aging), then the owner with the fewest
+ * dispatched copies, then the oldest job. The cost of a claim depends on the number of queues, not on the number of jobs.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class JobQueue {
+
+    private static final int MAX_QUANTITY = 1_000;
+    private static final int MAX_DONE = 1_000;
+    private static final Comparator<PrintJob> ORDER = Comparator.comparingInt(PrintJob::getPriority).reversed()
+            .thenComparingLong(PrintJob::getId);
+
+    @Inject
+    Logger log;
+    @Inject
+    BambuConfig config;
+
+    private final Map<Long, PrintJob> jobs = new LinkedHashMap<>();
+    private final Map<QueueKey, TreeSet<PrintJob>> queues = new HashMap<>();
+    private final Map<String, Long> dispatched = new HashMap<>();
+    private final Deque<Long> done = new ArrayDeque<>();
+    private long nextId = 1;
+
+    /**
+     * @return the job file, inside the jobs directory
+     * @throws IllegalArgumentException when the file does not exist, is outside the directory or is not a project file
+     */
+    public Path getFile(final String file) {
+        final Path directory = Path.of(config.jobs().directory()).toAbsolutePath().normalize();
+        final Path result = directory.resolve(file == null ? "" : file).normalize();
+        if (!result.startsWith(directory) || result.equals(directory)) {
+            throw new IllegalArgumentException("Invalid file: %s".formatted(file));
+        }
+        if (BambuConst.EXT.stream().noneMatch(ext -> result.getFileName().toString().endsWith(ext))) {
+            throw new IllegalArgumentException("Unsupported file: %s, expected %s".formatted(file, BambuConst.EXT));
+        }
+        if (!Files.isRegularFile(result)) {
+            throw new IllegalArgumentException("File not found: %s".formatted(file));
+        }
+        return result;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the request is invalid
+     */
+    public synchronized PrintJob.Info submit(final JobRequest request, final String owner) {
+        getFile(request.file());
+        if (request.quantity() != null && (request.quantity() < 1 || request.quantity() > MAX_QUANTITY)) {
+            throw new IllegalArgumentException("Quantity must be 1 to %d".formatted(MAX_QUANTITY));
+        }
+        if (request.plate() != null && request.plate() < 1) {
+            throw new IllegalArgumentException("Plate must be 1 or more");
+        }
+        final PrintJob job = new PrintJob(nextId++, owner, request);
+        jobs.put(job.getId(), job);
+        enqueue(job);
+        log.infof("job %d: queued %s x%d by %s", job.getId(), job.getFile(), request.quantity() == null ? 1 : request.quantity(), owner);
+        return job.getInfo();
+    }
+
+    private void enqueue(final PrintJob job) {
+        queues.computeIfAbsent(new QueueKey(job.getOwner(), job.getRequirements()), k -> new TreeSet<>(ORDER)).add(job);
+    }
+
+    private void dequeue(final PrintJob job) {
+        final QueueKey key = new QueueKey(job.getOwner(), job.getRequirements());
+        final TreeSet<PrintJob> queue = queues.get(key);
+        if (queue != null && queue.remove(job) && queue.isEmpty()) {
+            queues.remove(key);
+        }
+    }
+
+    private void onChanged(final PrintJob job) {
+        final PrintJob.Status status = job.getStatus();
+        if (status != PrintJob.Status.DONE && status != PrintJob.Status.CANCELLED || done.contains(job.getId())) {
+            return;
+        }
+        done.addLast(job.getId());
+        while (done.size() > MAX_DONE) {
+            jobs.remove(done.removeFirst());
+        }
+    }
+
+    public synchronized List<PrintJob.Info> list() {
+        final List<PrintJob.Info> result = new ArrayList<>(jobs.size());
+        jobs.values().forEach(job -> result.add(job.getInfo()));
+        return result;
+    }
+
+    public synchronized Optional<PrintJob.Info> get(final long id) {
+        return Optional.ofNullable(jobs.get(id)).map(PrintJob::getInfo);
+    }
+
+    /**
+     * Copies already dispatched keep printing
+     *
+     * @return false when the job is unknown or already done
+     */
+    public synchronized boolean cancel(final long id) {
+        final PrintJob job = jobs.get(id);
+        if (job == null || job.isCancelled() || job.getStatus() == PrintJob.Status.DONE) {
+            return false;
+        }
+        dequeue(job);
+        job.cancel();
+        onChanged(job);
+        log.infof("job %d: cancelled", id);
+        return true;
+    }
+
+    /**
+     * @return jobs queued with copies not dispatched yet
+     */
+    public synchronized int getPending() {
+        return queues.values().stream().mapToInt(TreeSet::size).sum();
+    }
+
+    private double getPriority(final PrintJob job, final long now) {
+        return job.getPriority() + (double) (now - job.getCreatedNanos()) / config.jobs().aging().toNanos();
+    }
+
+    private boolean isBetter(final PrintJob job, final PrintJob best, final long now) {
+        if (best == null) {
+            return true;
+        }
+        final int priority = Double.compare(getPriority(job, now), getPriority(best, now));
+        if (priority != 0) {
+            return priority > 0;
+        }
+        final int fair = Long.compare(dispatched.getOrDefault(job.getOwner(), 0L), dispatched.getOrDefault(best.getOwner(), 0L));
+        return fair != 0 ? fair < 0 : job.getId() < best.getId();
+    }
+
+    /**
+     * Takes one copy of the best job the printer can run
+     *
+     * @param fits whether the printer meets the requirements
+     */
+    public synchronized Optional<Claim> claim(final String printer, final Predicate<Requirements> fits) {
+        final long now = System.nanoTime();
+        PrintJob best = null;
+        for (final Map.Entry<QueueKey, TreeSet<PrintJob>> entry : queues.entrySet()) {
+            final PrintJob head = entry.getValue().first();
+            if (isBetter(head, best, now) && fits.test(entry.getKey().requirements())) {
+                best = head;
+            }
+        }
+        if (best == null) {
+            return Optional.empty();
+        }
+        final int run = best.dispatch(printer);
+        if (best.getPending() == 0) {
+            dequeue(best);
+        }
+        dispatched.merge(best.getOwner(), 1L, Long::sum);
+        log.infof("job %d: dispatched %s to %s", best.getId(), best.getFile(), printer);
+        return Optional.of(new Claim(best, run));
+    }
+
+    /**
+     * The copy did not start, it goes back to the queue
+     */
+    public synchronized void requeue(final Claim claim, final String error) {
+        final PrintJob job = claim.job();
+        final boolean queued = job.getPending() > 0;
+        job.setRun(claim.run(), PrintJob.RunStatus.REQUEUED, error);
+        dispatched.computeIfPresent(job.getOwner(), (k, v) -> v > 1 ? v - 1 : null);
+        if (!queued && job.getPending() > 0) {
+            enqueue(job);
+        }
+        log.infof("job %d: requeued from %s - %s", job.getId(), job.getRun(claim.run()).printer(), error);
+    }
+
+    public synchronized void setStatus(final Claim claim, final PrintJob.RunStatus status, final String error) {
+        claim.job().setRun(claim.run(), status, error);
+        onChanged(claim.job());
+    }
+
+    /**
+     * One copy of a job dispatched to a printer
+     *
+     * @param run index in the runs of the job
+     */
+    public record Claim(PrintJob job, int run) {
+
+    }
+
+    private record QueueKey(String owner, Requirements requirements) {
+
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.tfyre.bambu.job;
+
+import java.util.List;
+
+/**
+ * A job as submitted, omitted values take their defaults or the printer config
+ *
+ * @param file name of the file in bambu.jobs.directory
+ * @param plate plate of a 3mf project, default 1
+ * @param quantity copies to print, default 1
+ * @param priority higher first, default 0
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public record JobRequest(String file, Integer plate, Integer quantity, Integer priority, List<String> models, List<Requirements.Filament> filaments,
+        Boolean useAms, Boolean timelapse, Boolean bedLevelling) {
+
+}
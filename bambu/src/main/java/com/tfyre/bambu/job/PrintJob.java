@@ -0,0 +1,163 @@
+package com.tfyre.bambu.job;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A queued file to print a number of times, its state is guarded by the {@link JobQueue}
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class PrintJob {
+
+    private final long id;
+    private final String owner;
+    private final String file;
+    private final int plate;
+    private final int quantity;
+    private final int priority;
+    private final Requirements requirements;
+    private final Optional<Boolean> useAms;
+    private final Optional<Boolean> timelapse;
+    private final Optional<Boolean> bedLevelling;
+    private final OffsetDateTime created = OffsetDateTime.now();
+    private final long createdNanos = System.nanoTime();
+    private final List<Run> runs = new ArrayList<>();
+    private int pending;
+    private boolean cancelled;
+
+    PrintJob(final long id, final String owner, final JobRequest request) {
+        this.id = id;
+        this.owner = owner;
+        this.file = request.file();
+        this.plate = request.plate() == null ? 1 : request.plate();
+        this.quantity = request.quantity() == null ? 1 : request.quantity();
+        this.priority = request.priority() == null ? 0 : request.priority();
+        this.requirements = Requirements.of(request.models(), request.filaments());
+        this.useAms = Optional.ofNullable(request.useAms());
+        this.timelapse = Optional.ofNullable(request.timelapse());
+        this.bedLevelling = Optional.ofNullable(request.bedLevelling());
+        this.pending = quantity;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public int getPlate() {
+        return plate;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public Requirements getRequirements() {
+        return requirements;
+    }
+
+    public Optional<Boolean> getUseAms() {
+        return useAms;
+    }
+
+    public Optional<Boolean> getTimelapse() {
+        return timelapse;
+    }
+
+    public Optional<Boolean> getBedLevelling() {
+        return bedLevelling;
+    }
+
+    long getCreatedNanos() {
+        return createdNanos;
+    }
+
+    int getPending() {
+        return pending;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
+        pending = 0;
+    }
+
+    /**
+     * @return index of the new run
+     */
+    int dispatch(final String printer) {
+        pending--;
+        runs.add(new Run(printer, OffsetDateTime.now(), RunStatus.DISPATCHED, ""));
+        return runs.size() - 1;
+    }
+
+    Run getRun(final int run) {
+        return runs.get(run);
+    }
+
+    void setRun(final int run, final RunStatus status, final String error) {
+        final Run current = runs.get(run);
+        runs.set(run, new Run(current.printer(), current.dispatched(), status, error));
+        if (status == RunStatus.REQUEUED && !cancelled) {
+            pending++;
+        }
+    }
+
+    Status getStatus() {
+        if (cancelled) {
+            return Status.CANCELLED;
+        }
+        if (pending > 0) {
+            return runs.isEmpty() ? Status.QUEUED : Status.ACTIVE;
+        }
+        return runs.stream().anyMatch(r -> r.status() == RunStatus.DISPATCHED || r.status() == RunStatus.PRINTING) ? Status.ACTIVE : Status.DONE;
+    }
+
+    Info getInfo() {
+        return new Info(id, owner, file, plate, quantity, pending, priority, requirements, getStatus(), created, List.copyOf(runs));
+    }
+
+    public enum Status {
+        QUEUED,
+        ACTIVE,
+        DONE,
+        CANCELLED
+    }
+
+    public enum RunStatus {
+        DISPATCHED,
+        PRINTING,
+        FINISHED,
+        FAILED,
+        /**
+         * Did not start, the copy went back to the queue
+         */
+        REQUEUED
+    }
+
+    public record Run(String printer, OffsetDateTime dispatched, RunStatus status, String error) {
+
+    }
+
+    /**
+     * @param pending copies not dispatched yet
+     */
+    public record Info(long id, String owner, String file, int plate, int quantity, int pending, int priority, Requirements requirements,
+            Status status, OffsetDateTime created, List<Run> runs) {
+
+    }
+
+}
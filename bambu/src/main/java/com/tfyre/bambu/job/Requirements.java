@@ -0,0 +1,64 @@
+package com.tfyre.bambu.job;
+
+import com.tfyre.bambu.filament.FilamentIndex;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * What a printer needs to run a job, jobs with equal requirements and owner share a queue
+ *
+ * @param models printer models (bambu.printers.x.model), any model when empty
+ * @param filaments loaded filament needed in the order of the filaments of the project (used for ams_mapping), any when empty
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public record Requirements(Set<String> models, List<Filament> filaments) {
+
+    public static final Requirements NONE = new Requirements(Set.of(), List.of());
+
+    public static Requirements of(final List<String> models, final List<Filament> filaments) {
+        return new Requirements(
+                models == null ? Set.of() : models.stream().map(m -> m.trim().toUpperCase(Locale.ROOT)).filter(m -> !m.isEmpty()).collect(Collectors.toUnmodifiableSet()),
+                filaments == null ? List.of() : filaments.stream().map(Filament::normalize).toList()
+        );
+    }
+
+    public boolean isModel(final String model) {
+        return models.isEmpty() || models.contains(model.toUpperCase(Locale.ROOT));
+    }
+
+    public List<FilamentIndex.Need> getNeeds() {
+        return filaments.stream().map(Filament::toNeed).toList();
+    }
+
+    /**
+     * @param type eg PLA, PETG
+     * @param color RRGGBB, any color when empty
+     * @param infoIdx filament preset as reported in tray_info_idx (eg GFA01), any when empty
+     * @param remain minimum percentage left, any when empty
+     */
+    public record Filament(String type, String color, String infoIdx, Integer remain) {
+
+        /**
+         * @throws IllegalArgumentException without a type or with an invalid remain
+         */
+        public Filament normalize() {
+            if (type == null || type.isBlank()) {
+                throw new IllegalArgumentException("Filament type required");
+            }
+            if (remain != null && (remain < 0 || remain > 100)) {
+                throw new IllegalArgumentException("Filament remain must be 0 to 100");
+            }
+            final FilamentIndex.Need need = toNeed();
+            return new Filament(need.type(), need.color(), need.infoIdx(), remain == null ? 0 : remain);
+        }
+
+        public FilamentIndex.Need toNeed() {
+            return FilamentIndex.Need.of(type, color, infoIdx, remain == null ? 0 : remain);
+        }
+
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.tfyre.bambu.metrics;
+
+import com.tfyre.bambu.timer.FarmTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entry point for all bambu.* meters, the printer tag is bounded by the configured printers
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class BambuMetrics {
+
+    public static final String PREFIX = "bambu";
+    public static final String TAG_PRINTER = "printer";
+    public static final String TAG_VIEW = "view";
+
+    private static final int MAX_PRINTERS = 1_000;
+    private static final Duration[] PUSH_SLO = {
+        Duration.ofMillis(5), Duration.ofMillis(25), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofSeconds(1)
+    };
+
+    @Inject
+    MeterRegistry registry;
+    @Inject
+    FarmTimer timer;
+
+    private final Map<String, PrinterMetrics> printers = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Safety net, a misbehaving caller must not be able to create unbounded printer series
+     */
+    @Produces
+    @Singleton
+    public static MeterFilter maximumPrinters() {
+        return MeterFilter.maximumAllowableTags(PREFIX, TAG_PRINTER, MAX_PRINTERS, MeterFilter.deny());
+    }
+
+    @PostConstruct
+    public void postConstruct() {
+        Gauge.builder("%s.timer.tasks".formatted(PREFIX), timer, t -> t.getStats().tasks())
+                .description("Tasks scheduled on the farm timer")
+                .register(registry);
+        FunctionCounter.builder("%s.timer.runs".formatted(PREFIX), timer, t -> t.getStats().runs())
+                .register(registry);
+        FunctionCounter.builder("%s.timer.run.seconds".formatted(PREFIX), timer, t -> t.getStats().runNanos() / 1_000_000_000.0)
+                .description("Total time spent running farm timer tasks")
+                .register(registry);
+        FunctionCounter.builder("%s.timer.late.seconds".formatted(PREFIX), timer, t -> t.getStats().lateNanos() / 1_000_000_000.0)
+                .description("Total time farm timer tasks started after their deadline")
+                .register(registry);
+        FunctionCounter.builder("%s.timer.skipped".formatted(PREFIX), timer, t -> t.getStats().skipped())
+                .description("Runs skipped because the previous run was still busy")
+                .register(registry);
+    }
+
+    public PrinterMetrics getPrinter(final String name) {
+        return printers.computeIfAbsent(name, n -> new PrinterMetrics(registry, n));
+    }
+
+    /**
+     * Drops every meter tagged with a removed printer, a re-added printer starts with fresh series
+     */
+    public void removePrinter(final String name) {
+        printers.remove(name);
+        registry.getMeters().stream()
+                .filter(m -> name.equals(m.getId().getTag(TAG_PRINTER)))
+                .toList()
+                .forEach(registry::remove);
+    }
+
+    private AtomicInteger getSessions(final String view) {
+        return sessions.computeIfAbsent(view, v -> registry.gauge("%s.ui.sessions".formatted(PREFIX), Tags.of(TAG_VIEW, v), new AtomicInteger()));
+    }
+
+    public UiSession newUiSession(final String view) {
+        return new UiSession(view);
+    }
+
+    /**
+     * Tracks the server pushes of a single attached view
+     */
+    public class UiSession implements AutoCloseable {
+
+        private final AtomicInteger active;
+        private final Counter pushes;
+        private final Timer push;
+        private final DistributionSummary sessionPushes;
+        private final Counter fieldsApplied;
+        private final Counter fieldsSkipped;
+        private final Counter charsApplied;
+        private final Counter charsSkipped;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private UiSession(final String view) {
+            active = getSessions(view);
+            pushes = Counter.builder("%s.ui.pushes".formatted(PREFIX))
+                    .description("Server pushes to the browser")
+                    .tag(TAG_VIEW, view)
+                    .register(registry);
+            push = Timer.builder("%s.ui.push".formatted(PREFIX))
+                    .description("Time spent building a push")
+                    .tag(TAG_VIEW, view)
+                    .serviceLevelObjectives(PUSH_SLO)
+                    .register(registry);
+            sessionPushes = DistributionSummary.builder("%s.ui.session.pushes".formatted(PREFIX))
+                    .description("Server pushes per session, recorded when the view detaches")
+                    .tag(TAG_VIEW, view)
+                    .register(registry);
+            fieldsApplied = newFieldCounter("fields", "Component properties rendered, skipped when the value did not change", view, "applied");
+            fieldsSkipped = newFieldCounter("fields", "Component properties rendered, skipped when the value did not change", view, "skipped");
+            charsApplied = newFieldCounter("field.chars", "Characters of rendered component properties, skipped ones were not pushed", view, "applied");
+            charsSkipped = newFieldCounter("field.chars", "Characters of rendered component properties, skipped ones were not pushed", view, "skipped");
+            active.incrementAndGet();
+        }
+
+        private Counter newFieldCounter(final String name, final String description, final String view, final String result) {
+            return Counter.builder("%s.ui.%s".formatted(PREFIX, name))
+                    .description(description)
+                    .tag(TAG_VIEW, view)
+                    .tag("result", result)
+                    .register(registry);
+        }
+
+        public void push(final Runnable runnable) {
+            push.record(runnable);
+            pushes.increment();
+            count.incrementAndGet();
+        }
+
+        public void fields(final long applied, final long skipped, final long appliedChars, final long skippedChars) {
+            fieldsApplied.increment(applied);
+            fieldsSkipped.increment(skipped);
+            charsApplied.increment(appliedChars);
+            charsSkipped.increment(skippedChars);
+        }
+
+        @Override
+        public void close() {
+            if (closed.getAndSet(true)) {
+                return;
+            }
+            active.decrementAndGet();
+            sessionPushes.record(count.get());
+        }
+
+    }
+
+}
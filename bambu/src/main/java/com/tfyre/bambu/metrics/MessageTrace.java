@@ -0,0 +1,126 @@
+package com.tfyre.bambu.metrics;
+
+import io.opentelemetry.api.trace.SpanContext;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Timestamps of a single sampled message, all stamps are epoch nanos
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class MessageTrace {
+
+    private final MessageTracer tracer;
+    private final String printer;
+    private final long received;
+    // nanoTime is only comparable within the jvm, anchor it to the wall clock once
+    private final long anchorNanos = System.nanoTime();
+    private final long anchorEpoch = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    private final AtomicBoolean flushed = new AtomicBoolean();
+    private volatile String type = "";
+    private volatile long parsed;
+    private volatile long published;
+    private volatile SpanContext span;
+
+    MessageTrace(final MessageTracer tracer, final String printer, final long created) {
+        this.tracer = tracer;
+        this.printer = printer;
+        this.received = Math.min(TimeUnit.MILLISECONDS.toNanos(created), anchorEpoch);
+    }
+
+    private long now() {
+        return anchorEpoch + System.nanoTime() - anchorNanos;
+    }
+
+    public void parsed() {
+        parsed = now();
+    }
+
+    /**
+     * Records the server side of the pipeline, the message does not have to reach a view
+     */
+    public void published(final String type) {
+        this.type = type;
+        published = now();
+        span = tracer.record(this);
+    }
+
+    /**
+     * Called every time a view applies the message, only the first call is recorded as the optional ui stage
+     */
+    public void uiApplied() {
+        final SpanContext parent = span;
+        if (parent == null || flushed.getAndSet(true)) {
+            return;
+        }
+        tracer.recordUi(parent, published, now());
+    }
+
+    String getPrinter() {
+        return printer;
+    }
+
+    String getType() {
+        return type;
+    }
+
+    long getStart() {
+        return received;
+    }
+
+    long getEnd() {
+        return published;
+    }
+
+    /**
+     * The server stages, {@link Stage#UI} is only recorded once a view applies the message
+     */
+    void forEach(final StageConsumer consumer) {
+        consumer.accept(Stage.ROUTE, received, anchorEpoch);
+        consumer.accept(Stage.PARSE, anchorEpoch, parsed);
+        consumer.accept(Stage.PUBLISH, parsed, published);
+        consumer.accept(Stage.TOTAL, received, published);
+    }
+
+    @FunctionalInterface
+    interface StageConsumer {
+
+        void accept(Stage stage, long start, long end);
+    }
+
+    public enum Stage {
+        /**
+         * mqtt consumer to BambuPrinterImpl.process
+         */
+        ROUTE("route"),
+        /**
+         * json to BambuMessage
+         */
+        PARSE("parse"),
+        /**
+         * parsed to visible via getStatus / getFullStatus
+         */
+        PUBLISH("publish"),
+        /**
+         * visible to applied by the dashboard poll, includes the poll interval, only when a dashboard renders the message
+         */
+        UI("ui"),
+        /**
+         * mqtt consumer to visible
+         */
+        TOTAL("total");
+
+        private final String name;
+
+        private Stage(final String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.tfyre.bambu.metrics;
+
+import com.tfyre.bambu.BambuConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples received messages and breaks their latency down from the mqtt consumer to the dashboard
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class MessageTracer {
+
+    private static final Duration[] SLO = {
+        Duration.ofMillis(1), Duration.ofMillis(10), Duration.ofMillis(100), Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5)
+    };
+
+    @Inject
+    BambuConfig config;
+    @Inject
+    MeterRegistry registry;
+    @Inject
+    Tracer tracer;
+
+    private final Map<MessageTrace.Stage, Timer> timers = new EnumMap<>(MessageTrace.Stage.class);
+    private double sampleRate;
+
+    @PostConstruct
+    public void postConstruct() {
+        sampleRate = config.tracing().sampleRate();
+        for (final MessageTrace.Stage stage : MessageTrace.Stage.values()) {
+            timers.put(stage, Timer.builder("%s.trace.latency".formatted(BambuMetrics.PREFIX))
+                    .description("Latency of sampled messages per pipeline stage")
+                    .tag("stage", stage.getName())
+                    .serviceLevelObjectives(SLO)
+                    .register(registry));
+        }
+    }
+
+    /**
+     * @param printer printer name
+     * @param created epoch millis when the mqtt consumer created the exchange
+     * @return a trace when this message is sampled
+     */
+    public Optional<MessageTrace> start(final String printer, final long created) {
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return Optional.empty();
+        }
+        return Optional.of(new MessageTrace(this, printer, created));
+    }
+
+    /**
+     * @return the root span, the ui stage is attached to it later
+     */
+    SpanContext record(final MessageTrace trace) {
+        trace.forEach((stage, start, end) -> timers.get(stage).record(end - start, TimeUnit.NANOSECONDS));
+
+        final Span root = tracer.spanBuilder("bambu.message")
+                .setNoParent()
+                .setStartTimestamp(trace.getStart(), TimeUnit.NANOSECONDS)
+                .setAttribute("bambu.printer", trace.getPrinter())
+                .setAttribute("bambu.type", trace.getType())
+                .startSpan();
+        final Context context = Context.root().with(root);
+        trace.forEach((stage, start, end) -> {
+            if (stage == MessageTrace.Stage.TOTAL) {
+                return;
+            }
+            tracer.spanBuilder(stage.getName())
+                    .setParent(context)
+                    .setStartTimestamp(start, TimeUnit.NANOSECONDS)
+                    .startSpan()
+                    .end(end, TimeUnit.NANOSECONDS);
+        });
+        root.end(trace.getEnd(), TimeUnit.NANOSECONDS);
+        return root.getSpanContext();
+    }
+
+    void recordUi(final SpanContext parent, final long start, final long end) {
+        timers.get(MessageTrace.Stage.UI).record(end - start, TimeUnit.NANOSECONDS);
+        tracer.spanBuilder(MessageTrace.Stage.UI.getName())
+                .setParent(Context.root().with(Span.wrap(parent)))
+                .setStartTimestamp(start, TimeUnit.NANOSECONDS)
+                .startSpan()
+                .end(end, TimeUnit.NANOSECONDS);
+    }
+
+}
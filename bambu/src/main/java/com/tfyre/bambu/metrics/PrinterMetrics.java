@@ -0,0 +1,317 @@
+package com.tfyre.bambu.metrics;
+
+import com.tfyre.bambu.model.BambuMessage;
+import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.printer.PrinterHealth;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters for a single printer. Histograms only publish a handful of fixed buckets so that 200 printers stay cheap to scrape.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class PrinterMetrics {
+
+    public static final String TYPE_STATUS = "status";
+    public static final String TYPE_FULLSTATUS = "fullstatus";
+    public static final String TYPE_INVALID = "invalid";
+
+    private static final String PUSHALL = "pushall";
+    private static final String PUSH_STATUS = "push_status";
+    private static final long ACK_TIMEOUT = TimeUnit.MINUTES.toNanos(1);
+
+    private static final Duration[] PARSE_SLO = {
+        Duration.ofNanos(100_000), Duration.ofNanos(500_000), Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(20)
+    };
+    private static final Duration[] FRAME_GAP_SLO = {
+        Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5), Duration.ofSeconds(30)
+    };
+    private static final Duration[] COMMAND_SLO = {
+        Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofMillis(250), Duration.ofSeconds(1), Duration.ofSeconds(5)
+    };
+    private static final Duration[] FTP_SLO = {
+        Duration.ofMillis(100), Duration.ofMillis(500), Duration.ofSeconds(2), Duration.ofSeconds(10), Duration.ofSeconds(60)
+    };
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+
+    private final Map<String, Counter> messages = new ConcurrentHashMap<>();
+    private final DistributionSummary messageBytes;
+    private final Timer parse;
+
+    private final Counter frames;
+    private final DistributionSummary frameBytes;
+    private final Timer frameGap;
+
+    private final Map<String, Timer> commandSend = new ConcurrentHashMap<>();
+    private final Map<String, Timer> commandAck = new ConcurrentHashMap<>();
+    private final Counter commandAckTimeout;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private volatile long pendingFullStatus;
+
+    private final Map<String, Timer> ftp = new ConcurrentHashMap<>();
+    private final Map<String, Counter> recoveries = new ConcurrentHashMap<>();
+
+    private final AtomicInteger mqttConnected = new AtomicInteger();
+    private final Counter mqttReconnects;
+    private final AtomicInteger streamConnected = new AtomicInteger();
+    private final Counter streamReconnects;
+
+    private volatile long lastMessage;
+    private volatile long lastFrame;
+
+    PrinterMetrics(final MeterRegistry registry, final String name) {
+        this.registry = registry;
+        this.tags = Tags.of(BambuMetrics.TAG_PRINTER, name);
+
+        messageBytes = DistributionSummary.builder(getName("mqtt.message.bytes"))
+                .description("Size of the received mqtt messages")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+        parse = Timer.builder(getName("mqtt.message.parse"))
+                .description("Time to parse a received mqtt message")
+                .tags(tags)
+                .serviceLevelObjectives(PARSE_SLO)
+                .register(registry);
+        Gauge.builder(getName("mqtt.message.age"), this, PrinterMetrics::getMessageAge)
+                .description("Seconds since the last mqtt message was received")
+                .baseUnit("seconds")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder(getName("mqtt.connected"), mqttConnected, AtomicInteger::get)
+                .description("1 when the mqtt client is connected")
+                .tags(tags)
+                .register(registry);
+        mqttReconnects = Counter.builder(getName("mqtt.reconnects"))
+                .tags(tags)
+                .register(registry);
+
+        frames = Counter.builder(getName("stream.frames"))
+                .description("Camera frames received")
+                .tags(tags)
+                .register(registry);
+        frameBytes = DistributionSummary.builder(getName("stream.frame.bytes"))
+                .description("Size of the received camera frames")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(registry);
+        frameGap = Timer.builder(getName("stream.frame.gap"))
+                .description("Time between camera frames")
+                .tags(tags)
+                .serviceLevelObjectives(FRAME_GAP_SLO)
+                .register(registry);
+        Gauge.builder(getName("stream.connected"), streamConnected, AtomicInteger::get)
+                .description("1 when the camera stream is connected")
+                .tags(tags)
+                .register(registry);
+        streamReconnects = Counter.builder(getName("stream.reconnects"))
+                .tags(tags)
+                .register(registry);
+
+        commandAckTimeout = Counter.builder(getName("command.ack.timeout"))
+                .description("Commands without a response within a minute")
+                .tags(tags)
+                .register(registry);
+    }
+
+    private static String getName(final String name) {
+        return "%s.%s".formatted(BambuMetrics.PREFIX, name);
+    }
+
+    private double getMessageAge() {
+        final long last = lastMessage;
+        if (last == 0) {
+            return Double.NaN;
+        }
+        return (System.nanoTime() - last) / 1_000_000_000.0;
+    }
+
+    private Counter getMessages(final String type) {
+        return messages.computeIfAbsent(type, t -> Counter.builder(getName("mqtt.messages"))
+                .description("Received mqtt messages")
+                .tags(tags)
+                .tag("type", t)
+                .register(registry));
+    }
+
+    private Timer getCommandTimer(final Map<String, Timer> map, final String name, final String command) {
+        return map.computeIfAbsent(command, c -> Timer.builder(getName(name))
+                .tags(tags)
+                .tag("command", c)
+                .serviceLevelObjectives(COMMAND_SLO)
+                .register(registry));
+    }
+
+    /**
+     * @param type one of {@link #TYPE_STATUS}, {@link #TYPE_FULLSTATUS} or {@link #TYPE_INVALID}
+     * @param bytes size of the raw message
+     * @param parseNanos time taken to parse the message
+     */
+    public void onMessage(final String type, final int bytes, final long parseNanos) {
+        lastMessage = System.nanoTime();
+        getMessages(type).increment();
+        messageBytes.record(bytes);
+        parse.record(parseNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void onFrame(final int bytes) {
+        final long now = System.nanoTime();
+        final long last = lastFrame;
+        lastFrame = now;
+        if (last != 0) {
+            frameGap.record(now - last, TimeUnit.NANOSECONDS);
+        }
+        frames.increment();
+        frameBytes.record(bytes);
+    }
+
+    private static Optional<Command> getCommand(final BambuMessage message) {
+        if (message.hasPrint() && message.getPrint().hasCommand()) {
+            return Optional.of(new Command(message.getPrint().getCommand(), message.getPrint().getSequenceId()));
+        }
+        if (message.hasPushing() && message.getPushing().hasCommand()) {
+            return Optional.of(new Command(message.getPushing().getCommand(), message.getPushing().getSequenceId()));
+        }
+        if (message.hasSystem() && message.getSystem().hasCommand()) {
+            return Optional.of(new Command(message.getSystem().getCommand(), message.getSystem().getSequenceId()));
+        }
+        if (message.hasInfo() && message.getInfo().hasCommand()) {
+            return Optional.of(new Command(message.getInfo().getCommand(), message.getInfo().getSequenceId()));
+        }
+        return Optional.empty();
+    }
+
+    private void expirePending(final long now) {
+        pending.values().removeIf(p -> {
+            if (now - p.sent() < ACK_TIMEOUT) {
+                return false;
+            }
+            commandAckTimeout.increment();
+            return true;
+        });
+        if (pendingFullStatus != 0 && now - pendingFullStatus >= ACK_TIMEOUT) {
+            pendingFullStatus = 0;
+            commandAckTimeout.increment();
+        }
+    }
+
+    /**
+     * Records the send latency and starts waiting for the printer to answer
+     */
+    public void onCommandSent(final BambuMessage message, final long sendNanos) {
+        final long now = System.nanoTime();
+        expirePending(now);
+        getCommand(message).ifPresent(command -> {
+            getCommandTimer(commandSend, "command.send", command.command()).record(sendNanos, TimeUnit.NANOSECONDS);
+            // the printer answers a pushall with a full status and not with the same sequence_id
+            if (PUSHALL.equals(command.command())) {
+                pendingFullStatus = now;
+            } else {
+                pending.put(command.sequenceId(), new Pending(command.command(), now));
+            }
+        });
+    }
+
+    /**
+     * Matches a received message against the commands still waiting for a response
+     */
+    public void onCommandResponse(final BambuMessage message, final boolean isFullStatus) {
+        final long now = System.nanoTime();
+        if (isFullStatus && pendingFullStatus != 0) {
+            getCommandTimer(commandAck, "command.ack", PUSHALL).record(now - pendingFullStatus, TimeUnit.NANOSECONDS);
+            pendingFullStatus = 0;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        getCommand(message)
+                .filter(command -> !PUSH_STATUS.equals(command.command()))
+                .ifPresent(command -> {
+                    final Pending p = pending.get(command.sequenceId());
+                    if (p == null || !p.command().equals(command.command()) || !pending.remove(command.sequenceId(), p)) {
+                        return;
+                    }
+                    getCommandTimer(commandAck, "command.ack", p.command()).record(now - p.sent(), TimeUnit.NANOSECONDS);
+                });
+    }
+
+    public void setMqttConnected(final boolean connected) {
+        if (mqttConnected.getAndSet(connected ? 1 : 0) == 0 && connected && lastMessage != 0) {
+            mqttReconnects.increment();
+        }
+    }
+
+    public void setStreamConnected(final boolean connected) {
+        streamConnected.set(connected ? 1 : 0);
+        if (connected) {
+            lastFrame = 0;
+        }
+    }
+
+    public void onStreamReconnect() {
+        streamReconnects.increment();
+    }
+
+    public void registerHealth(final PrinterHealth health) {
+        Gauge.builder(getName("health.state"), health, h -> h.getState().ordinal())
+                .description("0 healthy, 1 degraded, 2 stale, 3 offline")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder(getName("health.message.rate"), health, PrinterHealth::getMessageRate)
+                .description("Average status messages per second")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder(getName("health.frame.rate"), health, PrinterHealth::getFrameRate)
+                .description("Average camera frames per second")
+                .tags(tags)
+                .register(registry);
+    }
+
+    public void registerHms(final BambuPrinter printer) {
+        Gauge.builder(getName("hms.active"), printer, p -> p.getHms().size())
+                .description("Active HMS entries")
+                .tags(tags)
+                .register(registry);
+    }
+
+    public void onRecovery(final String action) {
+        recoveries.computeIfAbsent(action, a -> Counter.builder(getName("health.recoveries"))
+                .tags(tags)
+                .tag("action", a)
+                .register(registry))
+                .increment();
+    }
+
+    /**
+     * @param operation a fixed operation name, never a file or path
+     */
+    public Timer getFtpTimer(final String operation) {
+        return ftp.computeIfAbsent(operation, o -> Timer.builder(getName("ftp.operation"))
+                .tags(tags)
+                .tag("operation", o)
+                .serviceLevelObjectives(FTP_SLO)
+                .register(registry));
+    }
+
+    private record Command(String command, String sequenceId) {
+
+    }
+
+    private record Pending(String command, long sent) {
+
+    }
+
+}
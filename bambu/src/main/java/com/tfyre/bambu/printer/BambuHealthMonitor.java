@@ -0,0 +1,133 @@
+package com.tfyre.bambu.printer;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.alert.Alert;
+import com.tfyre.bambu.alert.AlertEngine;
+import com.tfyre.bambu.metrics.BambuMetrics;
+import com.tfyre.bambu.metrics.PrinterMetrics;
+import com.tfyre.bambu.timer.FarmTimer;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.jboss.logging.Logger;
+
+/**
+ * Classifies every printer on the shared {@link FarmTimer}, raises alerts for anomalies and tries to recover stale and offline printers
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Startup
+@ApplicationScoped
+public class BambuHealthMonitor {
+
+    public static final String RECOVERY_PUSHALL = "pushall";
+    public static final String RECOVERY_RESTART = "restart";
+
+    @Inject
+    Logger log;
+    @Inject
+    BambuConfig config;
+    @Inject
+    BambuPrintersImpl printers;
+    @Inject
+    BambuMetrics metrics;
+    @Inject
+    FarmTimer timer;
+    @Inject
+    ManagedExecutor executor;
+    @Inject
+    AlertEngine alerts;
+
+    private final Map<String, Long> lastRecovery = new ConcurrentHashMap<>();
+    private FarmTimer.Task task;
+
+    @PostConstruct
+    public void postConstruct() {
+        task = timer.schedule("health", config.health().interval(), config.health().interval(), this::check);
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        task.cancel();
+    }
+
+    private void check() {
+        printers.getPrintersDetail().forEach(detail -> {
+            if (detail.printer() instanceof BambuPrinterImpl impl) {
+                check(detail, impl);
+            }
+        });
+    }
+
+    private void check(final BambuPrinters.PrinterDetail detail, final BambuPrinterImpl impl) {
+        final boolean running = detail.isRunning();
+        final boolean connected = running && impl.isMqttConnected();
+        final PrinterMetrics printerMetrics = metrics.getPrinter(detail.name());
+        printerMetrics.setMqttConnected(connected);
+
+        final PrinterHealth health = impl.getHealth();
+        final boolean mirrored = !running && detail.isMirrored();
+        final PrinterHealth.State previous = health.evaluate(running, mirrored, connected, config.health());
+        final PrinterHealth.State state = health.getState();
+        if (previous != state) {
+            log.infof("%s: health %s -> %s %s", detail.name(), previous, state, health.getReason());
+        }
+        updateAlerts(detail.name(), health.getAnomalies(), mirrored);
+        if (!running || !config.health().recovery()) {
+            return;
+        }
+        switch (state) {
+            case STALE ->
+                recover(detail, printerMetrics, RECOVERY_PUSHALL, d -> impl.requestFullStatus());
+            case OFFLINE -> {
+                if (health.getStateDuration().compareTo(config.health().recoveryInterval()) >= 0) {
+                    recover(detail, printerMetrics, RECOVERY_RESTART, d -> {
+                        printers.restartRoutes(d);
+                        impl.requestFullStatus();
+                    });
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * @param mirrored the owning node raises the alerts of a mirrored printer
+     */
+    private void updateAlerts(final String name, final PrinterAnomalies anomalies, final boolean mirrored) {
+        for (final PrinterAnomalies.Kind kind : PrinterAnomalies.Kind.values()) {
+            if (mirrored || !anomalies.isActive(kind)) {
+                alerts.resolve(name, kind.getRule());
+            }
+        }
+        if (mirrored) {
+            return;
+        }
+        anomalies.getActive().forEach(anomaly -> alerts.raise(name, anomaly.kind().getRule(), Alert.Severity.WARNING, anomaly.reason()));
+    }
+
+    private void recover(final BambuPrinters.PrinterDetail detail, final PrinterMetrics printerMetrics, final String action, final BambuPrinterConsumer<BambuPrinters.PrinterDetail> consumer) {
+        final long now = System.nanoTime();
+        final Long last = lastRecovery.get(detail.name());
+        if (last != null && now - last < config.health().recoveryInterval().toNanos()) {
+            return;
+        }
+        lastRecovery.put(detail.name(), now);
+        printerMetrics.onRecovery(action);
+        log.infof("%s: health recovery %s", detail.name(), action);
+        executor.submit(() -> {
+            try {
+                consumer.accept(detail);
+            } catch (BambuPrinterException ex) {
+                log.errorf(ex, "%s: health recovery %s failed - %s", detail.name(), action, ex.getMessage());
+            }
+        });
+    }
+
+}
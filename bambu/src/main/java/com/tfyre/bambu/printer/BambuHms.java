@@ -0,0 +1,57 @@
+package com.tfyre.bambu.printer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * HMS code catalog, keyed by attr and code as one 64 bit value (16 hex digits)
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class BambuHms {
+
+    public static final String RESOURCE = "/bambu/hms.properties";
+
+    private static final CodeCatalog BUILT_IN = CodeCatalog.fromResource(RESOURCE);
+    private static volatile CodeCatalog catalog = BUILT_IN;
+
+    /**
+     * Built in catalog extended with the entries of file
+     */
+    public static CodeCatalog load(final Path file) throws IOException {
+        catalog = BUILT_IN.merge(file);
+        return catalog;
+    }
+
+    public static CodeCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * @return null when the code is unknown, does not allocate
+     */
+    public static String findMessage(final long id) {
+        return catalog.find(id);
+    }
+
+    /**
+     * @param module the high byte of attr
+     */
+    public static String getModule(final int module) {
+        return switch (module) {
+            case 0x03 ->
+                "Motion Controller";
+            case 0x05 ->
+                "Mainboard";
+            case 0x07 ->
+                "AMS";
+            case 0x08 ->
+                "Toolhead";
+            case 0x0C ->
+                "XCam";
+            default ->
+                "Module %02X".formatted(module);
+        };
+    }
+
+}
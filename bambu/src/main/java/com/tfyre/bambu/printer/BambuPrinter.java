@@ -1,9 +1,11 @@
 package com.tfyre.bambu.printer;
 
+import com.tfyre.bambu.metrics.MessageTrace;
 import com.tfyre.bambu.model.BambuMessage;
 import com.vaadin.flow.server.StreamResource;
 import java.time.OffsetDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -20,6 +22,12 @@ public interface BambuPrinter {
 
     String getPrintType();
 
+    PrinterState getState();
+
+    PrinterHealth getHealth();
+
+    PrinterEta getEta();
+
     Optional<Message> getStatus();
 
     Optional<Message> getFullStatus();
@@ -28,6 +36,13 @@ public interface BambuPrinter {
 
     Collection<Message> getLastMessages();
 
+    MessageHistory getHistory();
+
+    /**
+     * @return active HMS entries as last reported, replaced as a whole when they change
+     */
+    List<HmsEvent> getHms();
+
     void commandFullStatus(final boolean force);
 
     void commandClearPrinterError();
@@ -42,9 +57,14 @@ public interface BambuPrinter {
 
     void commandPrintGCodeFile(final String filename);
 
-    void commandPrintProjectFile(final String filename, final int plateId, final boolean useAms, final boolean timelapse, final boolean bedLevelling);
+    void commandPrintProjectFile(final String filename, final int plateId, final boolean useAms, final boolean timelapse, final boolean bedLevelling,
+            final List<Integer> amsMapping);
+
+    record Message(OffsetDateTime lastUpdated, BambuMessage message, String raw, Optional<MessageTrace> trace) {
 
-    record Message(OffsetDateTime lastUpdated, BambuMessage message, String raw) {
+        public Message(final OffsetDateTime lastUpdated, final BambuMessage message, final String raw) {
+            this(lastUpdated, message, raw, Optional.empty());
+        }
 
     }
 
@@ -3,21 +3,25 @@ package com.tfyre.bambu.printer;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.util.JsonFormat;
 import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.metrics.BambuMetrics;
+import com.tfyre.bambu.metrics.MessageTrace;
+import com.tfyre.bambu.metrics.MessageTracer;
+import com.tfyre.bambu.metrics.PrinterMetrics;
 import com.tfyre.bambu.model.BambuMessage;
+import com.tfyre.bambu.model.Hms;
 import com.tfyre.bambu.model.Print;
 import com.tfyre.bambu.model.Pushing;
 import com.tfyre.bambu.security.SecurityUtils;
+import com.tfyre.bambu.timer.FarmTimer;
 import com.vaadin.flow.server.VaadinSession;
-import io.quarkus.scheduler.Scheduler;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.Dependent;
 import jakarta.inject.Inject;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.camel.CamelContext;
@@ -25,6 +29,9 @@ import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.apache.camel.ProducerTemplate;
+import org.apache.camel.Route;
+import org.apache.camel.component.paho.PahoConsumer;
+import org.eclipse.microprofile.context.ManagedExecutor;
 import org.jboss.logging.Logger;
 
 /**
@@ -37,33 +44,79 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
     private static final JsonFormat.Printer PRINTER = JsonFormat.printer().preservingProtoFieldNames();
     private static final JsonFormat.Parser PARSER = JsonFormat.parser().ignoringUnknownFields();
 
-    private static final int MAX_ITEMS = 1_000;
+    private static final Duration FULL_STATUS_CHECK = Duration.ofMinutes(1);
 
     private String name;
-    private BambuConfig.Printer config;
+    BambuConfig.Printer config;
     private Optional<BambuPrinter.Message> status = Optional.empty();
     private Optional<BambuPrinter.Message> fullStatus = Optional.empty();
     private Optional<BambuPrinter.Thumbnail> thumbnail = Optional.empty();
 
-    private final BlockingQueue<BambuPrinter.Message> lastMessages = new LinkedBlockingQueue<>(MAX_ITEMS);
+    private MessageHistory history = new MessageHistory(1_000);
     private final AtomicLong counter = new AtomicLong();
     private final AtomicBoolean running = new AtomicBoolean();
+    private final PrinterHealth health = new PrinterHealth();
+    private final PrinterEta eta = new PrinterEta();
     private OffsetDateTime nextFullStatus = OffsetDateTime.now();
 
     @Inject
     Logger log;
     @Inject
+    BambuConfig bambuConfig;
+    @Inject
     CamelContext context;
+    @Inject
+    BambuMetrics bambuMetrics;
+    @Inject
+    MessageTracer tracer;
+    @Inject
+    FarmTimer timer;
+    @Inject
+    ManagedExecutor executor;
+    @Inject
+    PrinterEvents events;
+    @Inject
+    PrintTimes times;
 
     private Endpoint endpoint;
     private ProducerTemplate producerTemplate;
+    private PrinterMetrics metrics;
+    private FarmTimer.Task fullStatusTask;
     private int printerError;
     private int totalLayerNum;
     private String printType = BambuConst.PRINT_TYPE_IDLE;
+    private String gcodeState = "";
+    private volatile PrinterState state = PrinterState.STOPPED;
+    private volatile boolean mirrored;
+    private volatile List<HmsEvent> hms = List.of();
+    private Runnable stateListener = () -> {
+    };
 
     public BambuPrinterImpl() {
     }
 
+    /**
+     * A status without the hms field parses to an empty list as well, only an explicit hms field clears the active entries
+     */
+    private void setHms(final Print print, final String raw) {
+        if (print.getHmsCount() == 0 && (hms.isEmpty() || !raw.contains("\"hms\""))) {
+            return;
+        }
+        final List<HmsEvent> current = hms;
+        if (current.size() == print.getHmsCount()) {
+            boolean same = true;
+            for (int i = 0; i < current.size() && same; i++) {
+                final Hms h = print.getHms(i);
+                same = current.get(i).id() == (Integer.toUnsignedLong(h.getAttr()) << 32 | Integer.toUnsignedLong(h.getCode()));
+            }
+            if (same) {
+                return;
+            }
+        }
+        hms = print.getHmsList().stream().map(HmsEvent::of).toList();
+        log.infof("%s: HMS %s", name, hms.stream().map(HmsEvent::getCode).toList());
+    }
+
     private void setLastPrint(final Print print) {
         if (print.hasPrintError()) {
             printerError = print.getPrintError();
@@ -74,27 +127,50 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
         if (print.hasPrintType()) {
             printType = print.getPrintType();
         }
+        if (print.hasGcodeState()) {
+            gcodeState = print.getGcodeState();
+        }
+        updateState();
     }
 
-    private void addLast(final BambuPrinter.Message message) {
-        while (lastMessages.remainingCapacity() <= 1) {
-            lastMessages.remove();
+    private synchronized void updateState() {
+        final PrinterState next = PrinterState.of(running.get() || mirrored, printerError, gcodeState);
+        if (next == state) {
+            return;
         }
-        lastMessages.add(message);
+        log.debugf("%s: state %s -> %s", name, state, next);
+        state = next;
+        stateListener.run();
+    }
+
+    void addLast(final BambuPrinter.Message message) {
+        history.add(message);
 
         if (message.message().hasPrint()) {
+            setHms(message.message().getPrint(), message.raw());
             setLastPrint(message.message().getPrint());
+            health.onPrint(message.message().getPrint(), bambuConfig.health());
+            eta.onPrint(message.message().getPrint(), times, config.model().orElse(""), message.lastUpdated().toInstant().toEpochMilli(), !mirrored);
         }
     }
 
-    public void setup(final Scheduler scheduler, final String name, final BambuConfig.Printer config, final Endpoint endpoint) {
+    public void setup(final String name, final BambuConfig.Printer config, final Endpoint endpoint, final Runnable stateListener) {
         this.name = name;
         this.config = config;
+        this.history = new MessageHistory(config.historySize());
         this.endpoint = endpoint;
-        scheduler.newJob("%s.requestFullStatus#%s".formatted(getClass().getName(), name))
-                .setInterval("1m")
-                .setTask(e -> commandFullStatusInternal(false, false))
-                .schedule();
+        this.stateListener = stateListener;
+        this.metrics = bambuMetrics.getPrinter(name);
+        metrics.registerHealth(health);
+        metrics.registerHms(this);
+    }
+
+    boolean isMqttConnected() {
+        final Route route = context.getRoute("consumer-%s".formatted(name));
+        if (route == null) {
+            return false;
+        }
+        return route.getConsumer() instanceof PahoConsumer paho && paho.getClient() != null && paho.getClient().isConnected();
     }
 
     @Override
@@ -110,11 +186,13 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
     public void setStatus(final BambuPrinter.Message status) {
         addLast(status);
         this.status = Optional.of(status);
+        events.publish(name, PrinterEvents.TYPE_STATUS, status);
     }
 
     public void setFullStatus(final BambuPrinter.Message fullStatus) {
         addLast(fullStatus);
         this.fullStatus = Optional.of(fullStatus);
+        events.publish(name, PrinterEvents.TYPE_FULLSTATUS, fullStatus);
     }
 
     @Override
@@ -132,6 +210,21 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
         return printType;
     }
 
+    @Override
+    public PrinterState getState() {
+        return state;
+    }
+
+    @Override
+    public PrinterHealth getHealth() {
+        return health;
+    }
+
+    @Override
+    public PrinterEta getEta() {
+        return eta;
+    }
+
     @Override
     public Optional<BambuPrinter.Message> getFullStatus() {
         return fullStatus;
@@ -144,14 +237,25 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
 
     @Override
     public Collection<Message> getLastMessages() {
-        return Collections.unmodifiableCollection(lastMessages);
+        return history.getMessages();
+    }
+
+    @Override
+    public List<HmsEvent> getHms() {
+        return hms;
+    }
+
+    @Override
+    public MessageHistory getHistory() {
+        return history;
     }
 
     public void setThumbnail(final BambuPrinter.Thumbnail thumbnail) {
+        health.onFrame();
         this.thumbnail = Optional.of(thumbnail);
     }
 
-    private Optional<BambuMessage> fromJson(final String data) {
+    Optional<BambuMessage> fromJson(final String data) {
         final BambuMessage.Builder builder = BambuMessage.newBuilder();
         try {
             PARSER.merge(data, builder);
@@ -162,7 +266,7 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
         }
     }
 
-    private Optional<String> toJson(final BambuMessage message) {
+    Optional<String> toJson(final BambuMessage message) {
         try {
             return Optional.of(PRINTER.print(message));
         } catch (InvalidProtocolBufferException ex) {
@@ -171,6 +275,24 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
         }
     }
 
+    /**
+     * Applies a status published by the cluster node that owns this printer
+     *
+     * @param type {@link PrinterEvents#TYPE_STATUS} or {@link PrinterEvents#TYPE_FULLSTATUS} as published by the owner
+     */
+    public void mirror(final String type, final String raw) {
+        mirrored = true;
+        health.onMessage();
+        fromJson(raw).ifPresent(parsed -> {
+            final BambuPrinter.Message msg = new BambuPrinter.Message(OffsetDateTime.now(), parsed, raw);
+            if (PrinterEvents.TYPE_FULLSTATUS.equals(type)) {
+                setFullStatus(msg);
+            } else {
+                setStatus(msg);
+            }
+        });
+    }
+
     @Override
     public void process(final Exchange exchange) throws Exception {
         final org.apache.camel.Message message = exchange.getMessage();
@@ -178,25 +300,48 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
         log.debugf("%s: Received - [%d]", name, body.length());
         log.tracef("%s: Received RAW: %s", name, body);
 
-        fromJson(body)
-                .map(msg -> new BambuPrinter.Message(OffsetDateTime.now(), msg, body))
-                .ifPresent(msg -> {
-                    if (body.length() > 2_000) {
-                        setFullStatus(msg);
-                    } else {
-                        setStatus(msg);
-                    }
-                });
+        final Optional<MessageTrace> trace = tracer.start(name, exchange.getCreated());
+        final long start = System.nanoTime();
+        final Optional<BambuMessage> parsed = fromJson(body);
+        final long parseNanos = System.nanoTime() - start;
+        trace.ifPresent(MessageTrace::parsed);
+        final boolean isFullStatus = body.length() > 2_000;
+        if (parsed.isEmpty()) {
+            metrics.onMessage(PrinterMetrics.TYPE_INVALID, body.length(), parseNanos);
+            return;
+        }
+        final String type = isFullStatus ? PrinterMetrics.TYPE_FULLSTATUS : PrinterMetrics.TYPE_STATUS;
+        metrics.onMessage(type, body.length(), parseNanos);
+        health.onMessage();
+        metrics.onCommandResponse(parsed.get(), isFullStatus);
+
+        final BambuPrinter.Message msg = new BambuPrinter.Message(OffsetDateTime.now(), parsed.get(), body, trace);
+        if (isFullStatus) {
+            setFullStatus(msg);
+        } else {
+            setStatus(msg);
+        }
+        trace.ifPresent(t -> t.published(type));
     }
 
-    private void sendData(final String data) {
+    private void sendData(final BambuMessage message) {
+        toJson(message).ifPresent(data -> {
+            final long start = System.nanoTime();
+            if (sendData(data)) {
+                metrics.onCommandSent(message, System.nanoTime() - start);
+            }
+        });
+    }
+
+    private boolean sendData(final String data) {
         if (producerTemplate == null) {
             log.debugf("%s: producerTemplate is null", name);
-            return;
+            return false;
         }
         log.debugf("%s: Sending - [%d]", name, data.length());
         log.tracef("%s: Sending RAW: %s", name, data);
         producerTemplate.sendBody(endpoint, data);
+        return true;
     }
 
     private void logUser(final String data) {
@@ -228,7 +373,7 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setSequenceId("%d".formatted(counter.incrementAndGet()))
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        sendData(message);
     }
 
     @Override
@@ -236,6 +381,14 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
         commandFullStatusInternal(true, force);
     }
 
+    /**
+     * Forced pushall requested by the health monitor
+     */
+    void requestFullStatus() {
+        log.infof("%s: health requesting full status", name);
+        commandFullStatusInternal(false, true);
+    }
+
     @PostConstruct
     public void postConstruct() {
         log.debug("postConstruct");
@@ -244,13 +397,23 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
 
     public void start() {
         log.debug("start");
+        health.reset();
+        mirrored = false;
         running.set(true);
+        updateState();
         commandFullStatusInternal(false, false);
+        fullStatusTask = timer.schedule("%s.requestFullStatus#%s".formatted(getClass().getName(), name), name, FULL_STATUS_CHECK, executor,
+                () -> commandFullStatusInternal(false, false));
     }
 
     public void stop() {
         log.debug("stop");
         running.set(false);
+        updateState();
+        if (fullStatusTask != null) {
+            fullStatusTask.cancel();
+            fullStatusTask = null;
+        }
     }
 
     @Override
@@ -269,7 +432,7 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setIntervalTime(1000)
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        sendData(message);
     }
 
     @Override
@@ -283,7 +446,7 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setParam("")
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        sendData(message);
     }
 
     @Override
@@ -297,7 +460,7 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setParam("%d".formatted(speed.getSpeed()))
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        sendData(message);
     }
 
     @Override
@@ -312,7 +475,7 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setPrintError(printerError)
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        sendData(message);
     }
 
     private String stripSlash(final String fileName) {
@@ -334,7 +497,7 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                 )
                 .build();
         toJson(message).ifPresent(log::info);
-        toJson(message).ifPresent(this::sendData);
+        sendData(message);
     }
 
     @Override
@@ -349,13 +512,14 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setParam("/sdcard/%s".formatted(_filename))
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        sendData(message);
     }
 
     @Override
-    public void commandPrintProjectFile(final String filename, final int plateId, final boolean useAms, final boolean timelapse, final boolean bedLevelling) {
+    public void commandPrintProjectFile(final String filename, final int plateId, final boolean useAms, final boolean timelapse, final boolean bedLevelling,
+            final List<Integer> amsMapping) {
         final String _filename = stripSlash(filename);
-        logUser("%s: commandPrintProject: %s ams[%s] timelapse[%s] bedlevelling[%s]".formatted(name, _filename, useAms, timelapse, bedLevelling));
+        logUser("%s: commandPrintProject: %s ams[%s] timelapse[%s] bedlevelling[%s] mapping[%s]".formatted(name, _filename, useAms, timelapse, bedLevelling, amsMapping));
         final int pos = _filename.lastIndexOf(".");
         final String taskName = pos == -1 ? _filename : _filename.substring(0, pos);
         final BambuMessage message = BambuMessage.newBuilder()
@@ -378,11 +542,11 @@ public class BambuPrinterImpl implements BambuPrinter, Processor {
                                 .setFlowCali(true)
                                 .setVibrationCali(true)
                                 .setLayerInspect(true)
-                                .setAmsMapping("")
+                                .addAllAmsMapping(amsMapping)
                                 .setUseAms(useAms)
                 )
                 .build();
-        toJson(message).ifPresent(this::sendData);
+        sendData(message);
     }
 
 }
@@ -1,10 +1,10 @@
 package com.tfyre.bambu.printer;
 
 import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.metrics.BambuMetrics;
+import com.tfyre.bambu.metrics.PrinterMetrics;
+import com.tfyre.bambu.timer.FarmTimer;
 import com.vaadin.flow.server.StreamResource;
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
-import io.quarkus.scheduler.Scheduler;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.net.NetClient;
@@ -14,6 +14,7 @@ import jakarta.enterprise.context.Dependent;
 import jakarta.inject.Inject;
 import java.io.ByteArrayInputStream;
 import java.net.URI;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -30,6 +31,7 @@ public class BambuPrinterStream {
 
     private static final byte[] EMPTY = new byte[32];
     private static final int MAX_SIZE = 10_000_000;
+    private static final Duration CHECK_LAST_IMAGE = Duration.ofMinutes(1);
 
     private final NetClient client;
     private NetSocket socket;
@@ -40,8 +42,14 @@ public class BambuPrinterStream {
     ScheduledExecutorService executor;
     @Inject
     Logger log;
+    @Inject
+    BambuMetrics bambuMetrics;
+    @Inject
+    FarmTimer timer;
 
     private BambuConfig.Printer config;
+    private PrinterMetrics metrics;
+    private FarmTimer.Task checkLastImageTask;
     private String name;
     private Consumer<BambuPrinter.Thumbnail> consumer;
 
@@ -55,15 +63,11 @@ public class BambuPrinterStream {
         client = vertx.createNetClient(options);
     }
 
-    public void setup(final Scheduler scheduler, final String name, final BambuConfig.Printer config, final Consumer<BambuPrinter.Thumbnail> consumer) {
+    public void setup(final String name, final BambuConfig.Printer config, final Consumer<BambuPrinter.Thumbnail> consumer) {
         this.name = name;
         this.config = config;
         this.consumer = consumer;
-
-        scheduler.newJob("%s.checkLastImage#%s".formatted(getClass().getName(), name))
-                .setInterval("1m")
-                .setTask(e -> checkLastImage())
-                .schedule();
+        this.metrics = bambuMetrics.getPrinter(name);
     }
 
     private Buffer getHandshake() {
@@ -86,28 +90,12 @@ public class BambuPrinterStream {
         client.connect(uri.getPort(), uri.getHost())
                 .onSuccess(_s -> {
                     socket = _s;
-                    final ByteBuf buffer = Unpooled.buffer(0, MAX_SIZE);
+                    metrics.setStreamConnected(true);
+                    socket.closeHandler(v -> metrics.setStreamConnected(false));
+                    final BambuPrinterStreamDecoder decoder = new BambuPrinterStreamDecoder(MAX_SIZE);
                     socket.handler(h -> {
-                        buffer.writeBytes(h.getBytes());
-                        log.debugf("%s: readable %d", name, buffer.readableBytes());
-                        if (buffer.readableBytes() <= 16) {
-                            return;
-                        }
-
-                        buffer.markReaderIndex();
-                        final int size = buffer.readIntLE();
-                        log.debugf("%s: size %d", name, size);
-                        buffer.skipBytes(4 + 8);
-                        if (buffer.readableBytes() < size) {
-                            buffer.resetReaderIndex();
-                            return;
-                        }
-
-                        final byte[] data = new byte[size];
-                        buffer.readBytes(data).discardReadBytes();
-
-                        consumer.accept(new BambuPrinter.Thumbnail(OffsetDateTime.now(), new StreamResource("image.jpg", () -> new ByteArrayInputStream(data))));
-                        nextImage = OffsetDateTime.now().plus(config.stream().watchDog());
+                        decoder.decode(h.getByteBuf(), this::onFrame);
+                        log.debugf("%s: readable %d", name, decoder.readableBytes());
                     })
                             .write(getHandshake())
                             .onFailure(h -> {
@@ -115,16 +103,25 @@ public class BambuPrinterStream {
                             });
                 })
                 .onFailure(h -> {
+                    metrics.setStreamConnected(false);
                     log.errorf("%s: clientFailure: %s - %s", name, h.getClass().getName(), h.getMessage());
                 });
     }
 
+    private void onFrame(final byte[] data) {
+        log.debugf("%s: size %d", name, data.length);
+        metrics.onFrame(data.length);
+        consumer.accept(new BambuPrinter.Thumbnail(OffsetDateTime.now(), new StreamResource("image.jpg", () -> new ByteArrayInputStream(data))));
+        nextImage = OffsetDateTime.now().plus(config.stream().watchDog());
+    }
+
     private void closeSocket() {
         if (socket == null) {
             return;
         }
         socket.close();
         socket = null;
+        metrics.setStreamConnected(false);
     }
 
     public void checkLastImage() {
@@ -136,6 +133,7 @@ public class BambuPrinterStream {
         }
         log.errorf("%s: No image received since %s", name, nextImage);
         closeSocket();
+        metrics.onStreamReconnect();
         executor.schedule(this::startStream, 10, TimeUnit.SECONDS);
     }
 
@@ -143,11 +141,17 @@ public class BambuPrinterStream {
         nextImage = OffsetDateTime.now();
         running.set(true);
         startStream();
+        checkLastImageTask = timer.schedule("%s.checkLastImage#%s".formatted(getClass().getName(), name), name, CHECK_LAST_IMAGE, executor,
+                this::checkLastImage);
     }
 
     public void stop() {
         running.set(false);
         log.infof("%s: stopping", name);
+        if (checkLastImageTask != null) {
+            checkLastImageTask.cancel();
+            checkLastImageTask = null;
+        }
         closeSocket();
     }
 
@@ -0,0 +1,43 @@
+package com.tfyre.bambu.printer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.function.Consumer;
+
+/**
+ * Reassembles camera frames, each frame is a 16 byte header (size as little endian int + 12 bytes) followed by the jpeg data
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+class BambuPrinterStreamDecoder {
+
+    private static final int HEADER_SIZE = 16;
+
+    private final ByteBuf buffer;
+
+    BambuPrinterStreamDecoder(final int maxSize) {
+        buffer = Unpooled.buffer(0, maxSize);
+    }
+
+    int readableBytes() {
+        return buffer.readableBytes();
+    }
+
+    void decode(final ByteBuf data, final Consumer<byte[]> consumer) {
+        buffer.writeBytes(data);
+        while (buffer.readableBytes() > HEADER_SIZE) {
+            buffer.markReaderIndex();
+            final int size = buffer.readIntLE();
+            buffer.skipBytes(HEADER_SIZE - 4);
+            if (buffer.readableBytes() < size) {
+                buffer.resetReaderIndex();
+                break;
+            }
+            final byte[] frame = new byte[size];
+            buffer.readBytes(frame);
+            consumer.accept(frame);
+        }
+        buffer.discardReadBytes();
+    }
+
+}
@@ -13,15 +13,31 @@ import org.apache.camel.Processor;
  */
 public interface BambuPrinters {
 
+    /**
+     * @return running printers and printers mirrored from another cluster node, sorted by name
+     */
     Collection<BambuPrinter> getPrinters();
 
+    /**
+     * @return all printers sorted by name
+     */
     Collection<PrinterDetail> getPrintersDetail();
 
     Optional<BambuPrinter> getPrinter(final String name);
 
     Optional<PrinterDetail> getPrinterDetail(final String name);
 
-    PrinterDetail newPrinter(final String name, final BambuConfig.Printer config, final Endpoint endpoint);
+    Optional<PrinterDetail> getPrinterByDeviceId(final String deviceId);
+
+    Collection<PrinterDetail> getPrintersByState(final PrinterState state);
+
+    Collection<PrinterDetail> getPrintersByModel(final String model);
+
+    Collection<PrinterDetail> getPrintersByTag(final String tag);
+
+    PrinterDetail newPrinter(final String name, final BambuConfig.Printer config, final Endpoint endpoint) throws BambuPrinterException;
+
+    void removePrinter(final String name) throws BambuPrinterException;
 
     void startPrinter(final String name) throws BambuPrinterException;
 
@@ -31,12 +47,19 @@ public interface BambuPrinters {
 
     void stopPrinters() throws BambuPrinterException;
 
-    record PrinterDetail(String name, AtomicBoolean running, BambuConfig.Printer config, BambuPrinter printer, Processor processor, BambuPrinterStream stream) {
+    record PrinterDetail(String name, AtomicBoolean running, AtomicBoolean mirrored, BambuConfig.Printer config, BambuPrinter printer, Processor processor, BambuPrinterStream stream) {
 
         public boolean isRunning() {
             return running.get();
         }
 
+        /**
+         * Owned by another cluster node, the status is copied from that node
+         */
+        public boolean isMirrored() {
+            return mirrored.get();
+        }
+
     }
 
 }
@@ -1,20 +1,18 @@
 package com.tfyre.bambu.printer;
 
 import com.tfyre.bambu.BambuConfig;
-import io.quarkus.scheduler.Scheduler;
+import com.tfyre.bambu.metrics.BambuMetrics;
 import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Processor;
@@ -37,24 +35,49 @@ public class BambuPrintersImpl implements BambuPrinters {
     @Inject
     CamelContext camelContext;
     @Inject
-    Scheduler scheduler;
+    BambuMetrics metrics;
 
-    private final Map<String, PrinterDetail> map = new HashMap<>();
+    private volatile PrinterRegistry registry = PrinterRegistry.EMPTY;
 
     public BambuPrintersImpl() {
     }
 
+    private synchronized void update(final UnaryOperator<PrinterRegistry> operator) {
+        registry = operator.apply(registry);
+    }
+
+    private void reindex() {
+        update(PrinterRegistry::reindex);
+    }
+
     @Override
     public Collection<BambuPrinter> getPrinters() {
-        return map.values().stream()
-                .filter(PrinterDetail::isRunning)
-                .map(PrinterDetail::printer)
-                .toList();
+        return registry.getRunning();
     }
 
     @Override
     public Collection<PrinterDetail> getPrintersDetail() {
-        return Collections.unmodifiableCollection(map.values());
+        return registry.getDetails();
+    }
+
+    @Override
+    public Optional<PrinterDetail> getPrinterByDeviceId(final String deviceId) {
+        return registry.getByDeviceId(deviceId);
+    }
+
+    @Override
+    public Collection<PrinterDetail> getPrintersByState(final PrinterState state) {
+        return registry.getByState(state);
+    }
+
+    @Override
+    public Collection<PrinterDetail> getPrintersByModel(final String model) {
+        return registry.getByModel(model);
+    }
+
+    @Override
+    public Collection<PrinterDetail> getPrintersByTag(final String tag) {
+        return registry.getByTag(tag);
     }
 
     private Consumer<BambuPrinter.Thumbnail> getConsumer(final String name) {
@@ -64,11 +87,14 @@ public class BambuPrintersImpl implements BambuPrinters {
     }
 
     @Override
-    public PrinterDetail newPrinter(final String name, final BambuConfig.Printer config, final Endpoint endpoint) {
+    public PrinterDetail newPrinter(final String name, final BambuConfig.Printer config, final Endpoint endpoint) throws BambuPrinterException {
+        if (registry.contains(name)) {
+            throw new BambuPrinterException("%s already exists".formatted(name));
+        }
         final BambuPrinter printer = _bambuPrinter.get();
         Consumer<BambuPrinter.Thumbnail> consumer = getConsumer(name);
         if (printer instanceof BambuPrinterImpl impl) {
-            impl.setup(scheduler, name, config, endpoint);
+            impl.setup(name, config, endpoint, this::reindex);
             consumer = impl::setThumbnail;
         }
 
@@ -77,13 +103,24 @@ public class BambuPrintersImpl implements BambuPrinters {
         }
 
         final BambuPrinterStream stream = _bambuPrinterStream.get();
-        stream.setup(scheduler, name, config, consumer);
+        stream.setup(name, config, consumer);
 
-        final PrinterDetail result = new PrinterDetail(name, new AtomicBoolean(), config, printer, Processor.class.cast(printer), stream);
-        map.put(name, result);
+        final PrinterDetail result = new PrinterDetail(name, new AtomicBoolean(), new AtomicBoolean(), config, printer, Processor.class.cast(printer), stream);
+        update(r -> r.with(result));
         return result;
     }
 
+    @Override
+    public void removePrinter(final String name) throws BambuPrinterException {
+        final PrinterDetail detail = getPrinterDetailE(name);
+        stopPrinter(detail);
+        update(r -> r.without(name));
+        _bambuPrinterStream.destroy(detail.stream());
+        _bambuPrinter.destroy(detail.printer());
+        metrics.removePrinter(name);
+        log.infof("%s: removed", name);
+    }
+
     private List<Route> getRoutes(final PrinterDetail detail) {
         return camelContext.getRoutes()
                 .stream()
@@ -109,6 +146,7 @@ public class BambuPrintersImpl implements BambuPrinters {
             }
             detail.stream().start();
             detail.running().set(true);
+            reindex();
             log.infof("%s: started", detail.name());
         } catch (Throwable t) {
             throw new BambuPrinterException("Unknown Exception: %s".formatted(t), t);
@@ -121,6 +159,7 @@ public class BambuPrintersImpl implements BambuPrinters {
         }
         log.infof("%s: stopping", detail.name());
         detail.running().set(false);
+        reindex();
         try {
             detail.stream().stop();
             if (detail.printer() instanceof BambuPrinterImpl impl) {
@@ -139,15 +178,38 @@ public class BambuPrintersImpl implements BambuPrinters {
         }
     }
 
+    void restartRoutes(final PrinterDetail detail) throws BambuPrinterException {
+        log.infof("%s: restarting routes", detail.name());
+        for (final Route r : getRoutes(detail)) {
+            try {
+                camelContext.getRouteController().stopRoute(r.getRouteId());
+                camelContext.getRouteController().startRoute(r.getRouteId());
+            } catch (Exception ex) {
+                throw new BambuPrinterException("%s: Error restarting route: %s".formatted(detail.name(), r.getRouteId()), ex);
+            }
+        }
+    }
+
+    /**
+     * Shows or hides a printer that is owned by another cluster node
+     */
+    public void setMirrored(final String name, final boolean mirrored) {
+        getPrinterDetail(name).ifPresent(detail -> {
+            if (detail.mirrored().getAndSet(mirrored) != mirrored) {
+                reindex();
+            }
+        });
+    }
+
     @Override
     public Optional<BambuPrinter> getPrinter(final String name) {
-        return Optional.ofNullable(map.get(name))
+        return registry.get(name)
                 .map(PrinterDetail::printer);
     }
 
     @Override
     public Optional<PrinterDetail> getPrinterDetail(final String name) {
-        return Optional.ofNullable(map.get(name));
+        return registry.get(name);
     }
 
     private PrinterDetail getPrinterDetailE(final String name) throws BambuPrinterException {
@@ -166,7 +228,7 @@ public class BambuPrintersImpl implements BambuPrinters {
 
     private void stopStart(final BambuPrinterConsumer<PrinterDetail> consumer) throws BambuPrinterException {
         final List<String> errors = new ArrayList<>();
-        for (final PrinterDetail pd : map.values()) {
+        for (final PrinterDetail pd : registry.getDetails()) {
             try {
                 consumer.accept(pd);
             } catch (BambuPrinterException ex) {
@@ -0,0 +1,105 @@
+package com.tfyre.bambu.printer;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.timer.FarmTimer;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.jboss.logging.Logger;
+
+/**
+ * Loads external code catalogs on startup and again when they change, new firmware codes do not need a release
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@Startup
+@ApplicationScoped
+public class CatalogWatcher {
+
+    private static final Duration INTERVAL = Duration.ofMinutes(1);
+
+    @Inject
+    Logger log;
+    @Inject
+    BambuConfig config;
+    @Inject
+    FarmTimer timer;
+    @Inject
+    ManagedExecutor executor;
+
+    private final List<Watched> watched = new ArrayList<>();
+    private FarmTimer.Task task;
+
+    @PostConstruct
+    public void postConstruct() {
+        config.catalogs().errorsFile().ifPresent(file -> watched.add(new Watched("errors", Paths.get(file), BambuErrors::load)));
+        config.catalogs().hmsFile().ifPresent(file -> watched.add(new Watched("hms", Paths.get(file), BambuHms::load)));
+        if (watched.isEmpty()) {
+            return;
+        }
+        check();
+        task = timer.schedule("catalogs", "catalogs", INTERVAL, executor, this::check);
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    private void check() {
+        watched.forEach(this::check);
+    }
+
+    private void check(final Watched catalog) {
+        try {
+            final FileTime modified = Files.getLastModifiedTime(catalog.path);
+            if (modified.equals(catalog.lastModified)) {
+                return;
+            }
+            catalog.lastModified = modified;
+            final CodeCatalog loaded = catalog.loader.load(catalog.path);
+            log.infof("Catalog %s: loaded %s version[%s] codes[%d]", catalog.name, catalog.path, loaded.getVersion(), loaded.size());
+        } catch (NoSuchFileException ex) {
+            log.warnf("Catalog %s: not found %s", catalog.name, catalog.path);
+        } catch (IOException ex) {
+            log.errorf(ex, "Catalog %s: cannot be read %s - %s", catalog.name, catalog.path, ex.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Loader {
+
+        CodeCatalog load(Path path) throws IOException;
+
+    }
+
+    private static class Watched {
+
+        private final String name;
+        private final Path path;
+        private final Loader loader;
+        private FileTime lastModified;
+
+        private Watched(final String name, final Path path, final Loader loader) {
+            this.name = name;
+            this.path = path;
+            this.loader = loader;
+        }
+
+    }
+
+}
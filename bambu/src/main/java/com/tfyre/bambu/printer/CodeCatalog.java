@@ -0,0 +1,122 @@
+package com.tfyre.bambu.printer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Immutable code to message table, codes are kept in a sorted long[] and looked up with a binary search without allocating.
+ * <p>
+ * Catalogs are properties files with hex codes as keys, {@value #VERSION} names the catalog version and other keys are ignored.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class CodeCatalog {
+
+    public static final String VERSION = "catalog.version";
+    public static final CodeCatalog EMPTY = new CodeCatalog("", new long[0], new String[0]);
+
+    private final String version;
+    private final long[] codes;
+    private final String[] messages;
+
+    private CodeCatalog(final String version, final long[] codes, final String[] messages) {
+        this.version = version;
+        this.codes = codes;
+        this.messages = messages;
+    }
+
+    private static CodeCatalog of(final String version, final Map<Long, String> entries) {
+        final Map<String, String> distinct = new HashMap<>();
+        final long[] codes = new long[entries.size()];
+        final String[] messages = new String[entries.size()];
+        int i = 0;
+        for (final Map.Entry<Long, String> entry : new TreeMap<>(entries).entrySet()) {
+            codes[i] = entry.getKey();
+            messages[i++] = distinct.computeIfAbsent(entry.getValue(), v -> v);
+        }
+        return new CodeCatalog(version, codes, messages);
+    }
+
+    private static Properties read(final Reader reader) throws IOException {
+        final Properties result = new Properties();
+        result.load(reader);
+        return result;
+    }
+
+    private static Map<Long, String> parse(final Properties properties) {
+        final Map<Long, String> result = new HashMap<>();
+        properties.forEach((key, value) -> {
+            try {
+                result.put(Long.parseUnsignedLong(key.toString().trim(), 16), value.toString().trim());
+            } catch (NumberFormatException ex) {
+                //not a code, eg catalog.version
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @param resource class path resource
+     * @throws UncheckedIOException when the resource is missing or cannot be read
+     */
+    public static CodeCatalog fromResource(final String resource) {
+        try (InputStream is = CodeCatalog.class.getResourceAsStream(resource)) {
+            if (is == null) {
+                throw new IOException("Resource not found: %s".formatted(resource));
+            }
+            final Properties properties = read(new InputStreamReader(is, StandardCharsets.UTF_8));
+            return of(properties.getProperty(VERSION, ""), parse(properties));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Entries from the file replace or extend the entries of this catalog
+     */
+    public CodeCatalog merge(final Path file) throws IOException {
+        final Properties properties;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties = read(reader);
+        }
+        final Map<Long, String> entries = new HashMap<>(codes.length);
+        for (int i = 0; i < codes.length; i++) {
+            entries.put(codes[i], messages[i]);
+        }
+        entries.putAll(parse(properties));
+        return of(properties.getProperty(VERSION, version), entries);
+    }
+
+    /**
+     * @return null when the code is unknown
+     */
+    public String find(final long code) {
+        final int index = Arrays.binarySearch(codes, code);
+        return index < 0 ? null : messages[index];
+    }
+
+    public Optional<String> get(final long code) {
+        return Optional.ofNullable(find(code));
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.tfyre.bambu.printer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the message history of some printers as gzip compressed JSON lines.
+ * <p>
+ * The history is read in chunks, the history lock is only held while a chunk is copied so live messages keep arriving during an export.
+ * Only messages received before the export started are written and memory use does not depend on the history size.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class HistoryExport {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final DateTimeFormatter FILE_DTF = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int CHUNK = 512;
+    private static final int BUFFER = 64 * 1024;
+
+    private final Collection<BambuPrinter> printers;
+    private final MessageHistory.Query query;
+    private final Format format;
+
+    public HistoryExport(final Collection<BambuPrinter> printers, final MessageHistory.Query query, final Format format) {
+        this.printers = printers;
+        this.query = query;
+        this.format = format;
+    }
+
+    public String getFileName() {
+        return "history-%s.%s.gz".formatted(FILE_DTF.format(OffsetDateTime.now()), format.getExtension());
+    }
+
+    /**
+     * Closes out when done
+     *
+     * @return messages written
+     */
+    public long write(final OutputStream out) throws IOException {
+        // the end of every history is taken up front, a printer exported last must not include messages received during the export
+        final Map<BambuPrinter, Long> ends = new LinkedHashMap<>();
+        printers.forEach(printer -> ends.put(printer, printer.getHistory().getNext()));
+        long result = 0;
+        try (JsonGenerator generator = FACTORY.createGenerator(new GZIPOutputStream(out, BUFFER))) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            for (final Map.Entry<BambuPrinter, Long> entry : ends.entrySet()) {
+                result += write(generator, entry.getKey(), entry.getValue());
+            }
+            generator.writeRaw('\n');
+        }
+        return result;
+    }
+
+    private long write(final JsonGenerator generator, final BambuPrinter printer, final long end) throws IOException {
+        final MessageHistory history = printer.getHistory();
+        final long[] bounds = history.getBounds(query, end);
+        long sequence = bounds[0];
+        long result = 0;
+        while (sequence < bounds[1]) {
+            final List<MessageHistory.Entry> chunk = history.getRange(sequence, bounds[1], CHUNK);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            sequence = chunk.getLast().sequence() + 1;
+            final List<MessageHistory.Entry> entries = chunk.stream().filter(query::matches).toList();
+            if (entries.isEmpty()) {
+                continue;
+            }
+            result += entries.size();
+            format.write(generator, printer.getName(), entries);
+            generator.flush();
+        }
+        return result;
+    }
+
+    private static String format(final long millis) {
+        return Instant.ofEpochMilli(millis).atOffset(ZoneOffset.UTC).toString();
+    }
+
+    public enum Format {
+        /**
+         * One message per line
+         */
+        JSONL("jsonl") {
+            @Override
+            void write(final JsonGenerator generator, final String printer, final List<MessageHistory.Entry> entries) throws IOException {
+                for (final MessageHistory.Entry entry : entries) {
+                    generator.writeStartObject();
+                    generator.writeStringField("printer", printer);
+                    generator.writeNumberField("sequence", entry.sequence());
+                    generator.writeStringField("lastUpdated", format(entry.millis()));
+                    generator.writeStringField("command", entry.command());
+                    generator.writeFieldName("data");
+                    generator.writeRawValue(entry.message().raw());
+                    generator.writeEndObject();
+                }
+            }
+        },
+        /**
+         * One line per chunk with a column per field: sequences and times are delta encoded and commands dictionary encoded
+         */
+        COLUMNAR("columns.jsonl") {
+            @Override
+            void write(final JsonGenerator generator, final String printer, final List<MessageHistory.Entry> entries) throws IOException {
+                final Map<String, Integer> commands = new LinkedHashMap<>();
+                generator.writeStartObject();
+                generator.writeStringField("printer", printer);
+                generator.writeNumberField("rows", entries.size());
+                generator.writeStringField("start", format(entries.getFirst().millis()));
+
+                generator.writeArrayFieldStart("sequence");
+                long previous = 0;
+                for (final MessageHistory.Entry entry : entries) {
+                    generator.writeNumber(entry.sequence() - previous);
+                    previous = entry.sequence();
+                }
+                generator.writeEndArray();
+
+                generator.writeArrayFieldStart("millis");
+                previous = 0;
+                for (final MessageHistory.Entry entry : entries) {
+                    generator.writeNumber(entry.millis() - previous);
+                    previous = entry.millis();
+                }
+                generator.writeEndArray();
+
+                generator.writeArrayFieldStart("command");
+                for (final MessageHistory.Entry entry : entries) {
+                    generator.writeNumber(commands.computeIfAbsent(entry.command(), k -> commands.size()));
+                }
+                generator.writeEndArray();
+
+                generator.writeArrayFieldStart("commands");
+                for (final String command : commands.keySet()) {
+                    generator.writeString(command);
+                }
+                generator.writeEndArray();
+
+                generator.writeArrayFieldStart("data");
+                for (final MessageHistory.Entry entry : entries) {
+                    generator.writeRawValue(entry.message().raw());
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        };
+
+        private final String extension;
+
+        private Format(final String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @throws IllegalArgumentException for an unknown format
+         */
+        public static Format of(final String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+
+        abstract void write(JsonGenerator generator, String printer, List<MessageHistory.Entry> entries) throws IOException;
+
+    }
+
+}
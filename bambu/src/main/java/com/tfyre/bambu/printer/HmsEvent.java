@@ -0,0 +1,60 @@
+package com.tfyre.bambu.printer;
+
+import com.tfyre.bambu.model.Hms;
+
+/**
+ * One active Health Management System entry, decoded once when the report arrives
+ *
+ * @param id attr in the high 32 bits and code in the low 32 bits, the key of the HMS catalog
+ * @param message catalog message, empty when the code is not in the catalog
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public record HmsEvent(long id, Severity severity, String module, String message) {
+
+    public static HmsEvent of(final Hms hms) {
+        final long attr = Integer.toUnsignedLong(hms.getAttr());
+        final long code = Integer.toUnsignedLong(hms.getCode());
+        final long id = attr << 32 | code;
+        final String message = BambuHms.findMessage(id);
+        return new HmsEvent(id, Severity.of((int) (code >>> 16)), BambuHms.getModule((int) (attr >>> 24)), message == null ? "" : message);
+    }
+
+    /**
+     * @return code as shown by the printer and the Bambu wiki, eg HMS_0300_0100_0001_0001
+     */
+    public String getCode() {
+        return "HMS_%04X_%04X_%04X_%04X".formatted(id >>> 48, (id >>> 32) & 0xFFFF, (id >>> 16) & 0xFFFF, id & 0xFFFF);
+    }
+
+    /**
+     * @return catalog message or the module and code when unknown
+     */
+    public String getDescription() {
+        return message.isEmpty() ? "%s %s".formatted(module, getCode()) : message;
+    }
+
+    public enum Severity {
+        FATAL,
+        SERIOUS,
+        COMMON,
+        INFO,
+        UNKNOWN;
+
+        public static Severity of(final int level) {
+            return switch (level) {
+                case 1 ->
+                    FATAL;
+                case 2 ->
+                    SERIOUS;
+                case 3 ->
+                    COMMON;
+                case 4 ->
+                    INFO;
+                default ->
+                    UNKNOWN;
+            };
+        }
+
+    }
+
+}
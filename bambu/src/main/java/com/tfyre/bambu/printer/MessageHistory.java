@@ -0,0 +1,433 @@
+package com.tfyre.bambu.printer;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import com.tfyre.bambu.model.BambuMessage;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded message history of one printer with a command index built as messages arrive.
+ * <p>
+ * Every message gets an increasing sequence number, searches only see messages up to the sequence at the time they were created so
+ * pages stay stable while new messages keep arriving. Messages are stored in arrival order, so time ranges are resolved with a binary
+ * search.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public final class MessageHistory {
+
+    /**
+     * Only valid paths are kept, their number is bounded by the proto schema while typos in a filter are not
+     */
+    private static final Map<String, List<Descriptors.FieldDescriptor>> PATHS = new ConcurrentHashMap<>();
+
+    private final Entry[] entries;
+    private final Map<String, SequenceRing> byCommand = new HashMap<>();
+    private long next;
+
+    public MessageHistory(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: %d".formatted(capacity));
+        }
+        entries = new Entry[capacity];
+    }
+
+    /**
+     * @return section.command of the first section with a command, eg print.push_status
+     */
+    public static String getCommand(final BambuMessage message) {
+        if (message.hasPrint() && message.getPrint().hasCommand()) {
+            return "print.%s".formatted(message.getPrint().getCommand());
+        }
+        if (message.hasPushing() && message.getPushing().hasCommand()) {
+            return "pushing.%s".formatted(message.getPushing().getCommand());
+        }
+        if (message.hasSystem() && message.getSystem().hasCommand()) {
+            return "system.%s".formatted(message.getSystem().getCommand());
+        }
+        if (message.hasInfo() && message.getInfo().hasCommand()) {
+            return "info.%s".formatted(message.getInfo().getCommand());
+        }
+        return "";
+    }
+
+    private static Optional<List<Descriptors.FieldDescriptor>> resolve(final String path) {
+        final List<Descriptors.FieldDescriptor> cached = PATHS.get(path);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        final List<Descriptors.FieldDescriptor> result = new ArrayList<>();
+        Descriptors.Descriptor descriptor = BambuMessage.getDescriptor();
+        for (final String name : path.split("\\.", -1)) {
+            if (descriptor == null) {
+                return Optional.empty();
+            }
+            final Descriptors.FieldDescriptor field = descriptor.findFieldByName(name);
+            if (field == null) {
+                return Optional.empty();
+            }
+            result.add(field);
+            descriptor = field.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE && !field.isRepeated()
+                    ? field.getMessageType() : null;
+        }
+        final List<Descriptors.FieldDescriptor> fields = List.copyOf(result);
+        PATHS.put(path, fields);
+        return Optional.of(fields);
+    }
+
+    private static String toString(final Object value) {
+        if (value instanceof Descriptors.EnumValueDescriptor e) {
+            return e.getName();
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * @param path proto field names separated by dots, eg print.gcode_state
+     * @return empty when a field on the path is not set
+     */
+    public static Optional<String> getField(final BambuMessage message, final String path) {
+        final Optional<List<Descriptors.FieldDescriptor>> fields = resolve(path);
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+        Message current = message;
+        Object value = null;
+        for (final Descriptors.FieldDescriptor field : fields.get()) {
+            if (current == null || (!field.isRepeated() && !current.hasField(field))) {
+                return Optional.empty();
+            }
+            value = current.getField(field);
+            current = value instanceof Message m ? m : null;
+        }
+        return Optional.of(toString(value));
+    }
+
+    /**
+     * @throws IllegalArgumentException when the path does not exist in the message model
+     */
+    public static void validatePath(final String path) {
+        if (resolve(path).isEmpty()) {
+            throw new IllegalArgumentException("Unknown field: %s".formatted(path));
+        }
+    }
+
+    public synchronized void add(final BambuPrinter.Message message) {
+        final long sequence = next++;
+        final Entry entry = new Entry(sequence, message.lastUpdated().toInstant().toEpochMilli(), getCommand(message.message()), message);
+        final int slot = slot(sequence);
+        final Entry evicted = entries[slot];
+        if (evicted != null && !evicted.command().isEmpty()) {
+            final SequenceRing ring = byCommand.get(evicted.command());
+            ring.evict(evicted.sequence());
+            if (ring.isEmpty()) {
+                byCommand.remove(evicted.command());
+            }
+        }
+        entries[slot] = entry;
+        if (!entry.command().isEmpty()) {
+            byCommand.computeIfAbsent(entry.command(), k -> new SequenceRing()).add(sequence);
+        }
+    }
+
+    private int slot(final long sequence) {
+        return (int) (sequence % entries.length);
+    }
+
+    private long getFirst() {
+        return Math.max(0, next - entries.length);
+    }
+
+    public synchronized int size() {
+        return (int) (next - getFirst());
+    }
+
+    /**
+     * @return the sequence the next message will get
+     */
+    public synchronized long getNext() {
+        return next;
+    }
+
+    public synchronized Set<String> getCommands() {
+        return Collections.unmodifiableSet(new TreeSet<>(byCommand.keySet()));
+    }
+
+    /**
+     * @return oldest first
+     */
+    public synchronized List<BambuPrinter.Message> getMessages() {
+        final List<BambuPrinter.Message> result = new ArrayList<>(size());
+        for (long s = getFirst(); s < next; s++) {
+            result.add(entries[slot(s)].message());
+        }
+        return result;
+    }
+
+    /**
+     * Oldest first, use with increasing from to walk the history without holding the lock between chunks
+     *
+     * @param from first sequence, older sequences that were already evicted are skipped
+     * @param to exclusive
+     */
+    public synchronized List<Entry> getRange(final long from, final long to, final int limit) {
+        final List<Entry> result = new ArrayList<>(Math.min(limit, entries.length));
+        for (long s = Math.max(from, getFirst()); s < Math.min(to, next) && result.size() < limit; s++) {
+            result.add(entries[slot(s)]);
+        }
+        return result;
+    }
+
+    /**
+     * @return first sequence with a time at or after millis
+     */
+    private long lowerBound(final long millis) {
+        long lo = getFirst();
+        long hi = next;
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            if (entries[slot(mid)].millis() < millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return sequences in [from, to) limited by the query time range
+     */
+    public synchronized long[] getBounds(final Query query, final long to) {
+        final long upper = query.to().map(t -> lowerBound(t.toEpochMilli() + 1)).orElse(next);
+        final long lower = query.from().map(t -> lowerBound(t.toEpochMilli())).orElse(getFirst());
+        return new long[]{ Math.max(lower, getFirst()), Math.min(upper, to) };
+    }
+
+    /**
+     * Newest first
+     *
+     * @param before exclusive upper sequence
+     * @param result matches are added until it holds limit entries
+     * @return the sequence to continue the search before
+     */
+    private synchronized long find(final Query query, final long before, final int limit, final List<Entry> result) {
+        final long[] bounds = getBounds(query, before);
+        final long lower = bounds[0];
+        if (query.command().isPresent()) {
+            final SequenceRing ring = byCommand.get(query.command().get());
+            if (ring == null) {
+                return lower;
+            }
+            int i = ring.indexBefore(bounds[1]);
+            while (i >= 0 && result.size() < limit) {
+                final long s = ring.get(i--);
+                if (s < lower) {
+                    return lower;
+                }
+                final Entry entry = entries[slot(s)];
+                if (query.matches(entry)) {
+                    result.add(entry);
+                }
+                if (result.size() == limit) {
+                    return s;
+                }
+            }
+            return lower;
+        }
+        for (long s = bounds[1] - 1; s >= lower; s--) {
+            final Entry entry = entries[slot(s)];
+            if (query.matches(entry)) {
+                result.add(entry);
+                if (result.size() == limit) {
+                    return s;
+                }
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * @return a search over the messages received so far
+     */
+    public Search search(final Query query) {
+        return new Search(query, getNext());
+    }
+
+    public record Entry(long sequence, long millis, String command, BambuPrinter.Message message) {
+
+    }
+
+    /**
+     * @param fields proto field path to expected value, compared ignoring case
+     * @param text substring of the raw message
+     */
+    public record Query(Optional<Instant> from, Optional<Instant> to, Optional<String> command, Map<String, String> fields, Optional<String> text) {
+
+        public static final Query ALL = new Query(Optional.empty(), Optional.empty(), Optional.empty(), Map.of(), Optional.empty());
+
+        public Query {
+            fields.keySet().forEach(MessageHistory::validatePath);
+        }
+
+        /**
+         * Space separated terms, path=value terms filter on fields and the rest is matched against the raw message
+         *
+         * @throws IllegalArgumentException when a field path does not exist
+         */
+        public static Query parse(final Optional<Instant> from, final Optional<Instant> to, final Optional<String> command, final String filter) {
+            final Map<String, String> fields = new LinkedHashMap<>();
+            final List<String> text = new ArrayList<>();
+            if (filter != null) {
+                for (final String term : filter.trim().split("\\s+")) {
+                    final int index = term.indexOf('=');
+                    if (index > 0) {
+                        fields.put(term.substring(0, index), term.substring(index + 1));
+                    } else if (!term.isEmpty()) {
+                        text.add(term);
+                    }
+                }
+            }
+            return new Query(from, to, command.filter(c -> !c.isBlank()), Map.copyOf(fields),
+                    text.isEmpty() ? Optional.empty() : Optional.of(String.join(" ", text)));
+        }
+
+        public boolean matches(final Entry entry) {
+            if (from.isPresent() && entry.millis() < from.get().toEpochMilli()) {
+                return false;
+            }
+            if (to.isPresent() && entry.millis() > to.get().toEpochMilli()) {
+                return false;
+            }
+            if (command.isPresent() && !command.get().equals(entry.command())) {
+                return false;
+            }
+            for (final Map.Entry<String, String> field : fields.entrySet()) {
+                if (!getField(entry.message().message(), field.getKey()).filter(field.getValue()::equalsIgnoreCase).isPresent()) {
+                    return false;
+                }
+            }
+            return text.isEmpty() || entry.message().raw().contains(text.get());
+        }
+
+    }
+
+    /**
+     * Paged view of one query, remembers where earlier pages ended so the next page continues from there instead of scanning from the
+     * newest message again. Not thread safe, use one per view.
+     */
+    public final class Search {
+
+        private final Query query;
+        private final long snapshot;
+        private final NavigableMap<Integer, Long> positions = new TreeMap<>();
+
+        private Search(final Query query, final long snapshot) {
+            this.query = query;
+            this.snapshot = snapshot;
+            positions.put(0, snapshot);
+        }
+
+        public Query getQuery() {
+            return query;
+        }
+
+        /**
+         * @return newest first, messages evicted since the search started are skipped
+         */
+        public List<Entry> fetch(final int offset, final int limit) {
+            final Map.Entry<Integer, Long> start = positions.floorEntry(offset);
+            final List<Entry> skipped = new ArrayList<>();
+            long before = start.getValue();
+            if (start.getKey() < offset) {
+                before = find(query, before, offset - start.getKey(), skipped);
+                if (skipped.size() < offset - start.getKey()) {
+                    return List.of();
+                }
+                positions.put(offset, before);
+            }
+            final List<Entry> result = new ArrayList<>(limit);
+            before = find(query, before, limit, result);
+            if (result.size() == limit) {
+                positions.put(offset + limit, before);
+            }
+            return result;
+        }
+
+        /**
+         * Sequence of the newest message the search can return
+         */
+        public long getSnapshot() {
+            return snapshot;
+        }
+
+    }
+
+    /**
+     * Increasing sequences, the oldest are evicted from the head
+     */
+    private static final class SequenceRing {
+
+        private long[] values = new long[16];
+        private int head;
+        private int size;
+
+        void add(final long value) {
+            if (size == values.length) {
+                final long[] grown = new long[values.length * 2];
+                for (int i = 0; i < size; i++) {
+                    grown[i] = get(i);
+                }
+                values = grown;
+                head = 0;
+            }
+            values[(head + size++) % values.length] = value;
+        }
+
+        void evict(final long value) {
+            if (size > 0 && get(0) == value) {
+                head = (head + 1) % values.length;
+                size--;
+            }
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long get(final int index) {
+            return values[(head + index) % values.length];
+        }
+
+        /**
+         * @return index of the last value below sequence, -1 when there is none
+         */
+        int indexBefore(final long sequence) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (get(mid) < sequence) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo - 1;
+        }
+
+    }
+
+}
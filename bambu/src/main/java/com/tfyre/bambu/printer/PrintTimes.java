@@ -0,0 +1,243 @@
+package com.tfyre.bambu.printer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.timer.FarmTimer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.jboss.logging.Logger;
+
+/**
+ * Print times learnt from finished jobs, per file (subtask_name) and per printer model.
+ * <p>
+ * Progress is split in {@value #BUCKETS} buckets. For every bucket a job records when it first got there and the mc_remaining_time reported
+ * at that point, once the job finishes the actual remaining time divided by the reported one is folded into the bucket (EWMA). Correcting a
+ * reported time is a map get and an array lookup. Learnt curves are saved on the executor at most every {@link #SAVE_INTERVAL}.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class PrintTimes {
+
+    public static final int BUCKETS = 20;
+    private static final String KEY_FILE = "file:";
+    private static final String KEY_MODEL = "model:";
+    private static final double MIN_RATIO = 0.2;
+    private static final double MAX_RATIO = 5.0;
+    private static final Duration SAVE_INTERVAL = Duration.ofSeconds(30);
+
+    @Inject
+    Logger log;
+    @Inject
+    BambuConfig config;
+    @Inject
+    ObjectMapper mapper;
+    @Inject
+    FarmTimer timer;
+    @Inject
+    ManagedExecutor executor;
+
+    private final Map<String, Curve> curves = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private FarmTimer.Task task;
+
+    @PostConstruct
+    public void postConstruct() {
+        config.eta().file().ifPresent(file -> task = timer.schedule("print-times", file, SAVE_INTERVAL, executor, this::save));
+        config.eta().file().map(Path::of).filter(Files::isRegularFile).ifPresent(path -> {
+            try {
+                for (final Curve.Info info : mapper.readValue(path.toFile(), Curve.Info[].class)) {
+                    curves.put(info.key(), new Curve(info));
+                }
+                log.infof("Loaded %d print time curves from %s", curves.size(), path);
+            } catch (IOException | RuntimeException ex) {
+                log.errorf(ex, "Cannot load print times from %s - %s", path, ex.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        if (task != null) {
+            task.cancel();
+            save();
+        }
+    }
+
+    static int getBucket(final int percent) {
+        return Math.max(0, Math.min(percent * BUCKETS / 100, BUCKETS - 1));
+    }
+
+    private Optional<Curve> getCurve(final String prefix, final String name) {
+        return name.isEmpty() ? Optional.empty() : Optional.ofNullable(curves.get(prefix + name));
+    }
+
+    /**
+     * @return the factor to apply to mc_remaining_time, learnt from this file or else this printer model
+     */
+    Optional<Ratio> getRatio(final String file, final String model, final int bucket) {
+        return getCurve(KEY_FILE, file).flatMap(c -> c.getRatio(bucket, Source.FILE))
+                .or(() -> getCurve(KEY_MODEL, model).flatMap(c -> c.getRatio(bucket, Source.MODEL)));
+    }
+
+    /**
+     * @return average minutes of the file from start to finish
+     */
+    Optional<Double> getMinutes(final String file) {
+        return getCurve(KEY_FILE, file).flatMap(Curve::getMinutes);
+    }
+
+    /**
+     * A job finished, runs on the thread delivering the printer messages so the curves are only saved later
+     *
+     * @param sampleAt epoch millis the job first reached each bucket, 0 when not seen
+     * @param sampleRemaining mc_remaining_time reported at that point
+     * @param start epoch millis the job started, 0 when not seen
+     */
+    void learn(final String file, final String model, final long[] sampleAt, final int[] sampleRemaining, final long start, final long end) {
+        final double rate = Math.max(0.0, Math.min(config.eta().learnRate(), 1.0));
+        final double minutes = start > 0 ? (end - start) / 60_000.0 : Double.NaN;
+        if (!file.isEmpty()) {
+            curves.computeIfAbsent(KEY_FILE + file, Curve::new).learn(sampleAt, sampleRemaining, minutes, end, rate);
+        }
+        if (!model.isEmpty()) {
+            curves.computeIfAbsent(KEY_MODEL + model, Curve::new).learn(sampleAt, sampleRemaining, Double.NaN, end, rate);
+        }
+        dirty.set(true);
+    }
+
+    private void save() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        config.eta().file().map(Path::of).ifPresent(path -> {
+            try {
+                final Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+                Files.write(tmp, mapper.writeValueAsBytes(getCurves()));
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException | RuntimeException ex) {
+                dirty.set(true);
+                log.errorf(ex, "Cannot save print times to %s - %s", path, ex.getMessage());
+            }
+        });
+    }
+
+    public List<Curve.Info> getCurves() {
+        return curves.values().stream().map(Curve::getInfo).sorted(Comparator.comparing(Curve.Info::key)).toList();
+    }
+
+    /**
+     * @return when the printer can take a new job: now when idle, the estimated finish when printing, empty when stopped or in error
+     */
+    public Optional<OffsetDateTime> getFreeAt(final BambuPrinter printer) {
+        return switch (printer.getState()) {
+            case IDLE ->
+                Optional.of(OffsetDateTime.now());
+            case PRINTING ->
+                printer.getEta().getEstimate().map(PrinterEta.Estimate::finish);
+            default ->
+                Optional.empty();
+        };
+    }
+
+    public enum Source {
+        /**
+         * mc_remaining_time as reported
+         */
+        PRINTER,
+        FILE,
+        MODEL
+    }
+
+    record Ratio(double value, Source source) {
+
+    }
+
+    /**
+     * Learnt ratios of one file or printer model
+     */
+    public static final class Curve {
+
+        private final String key;
+        private final double[] ratios;
+        private final int[] samples;
+        private int jobs;
+        private double minutes;
+        private long updated;
+
+        private Curve(final String key) {
+            this.key = key;
+            this.ratios = new double[BUCKETS];
+            this.samples = new int[BUCKETS];
+        }
+
+        private Curve(final Info info) {
+            this.key = info.key();
+            this.ratios = info.ratios().length == BUCKETS ? info.ratios().clone() : new double[BUCKETS];
+            this.samples = info.samples().length == BUCKETS ? info.samples().clone() : new int[BUCKETS];
+            this.jobs = info.jobs();
+            this.minutes = info.minutes();
+            this.updated = info.updated() == null ? 0 : info.updated().toInstant().toEpochMilli();
+        }
+
+        private synchronized Optional<Ratio> getRatio(final int bucket, final Source source) {
+            return samples[bucket] == 0 ? Optional.empty() : Optional.of(new Ratio(ratios[bucket], source));
+        }
+
+        private synchronized Optional<Double> getMinutes() {
+            return minutes > 0 ? Optional.of(minutes) : Optional.empty();
+        }
+
+        private synchronized void learn(final long[] sampleAt, final int[] sampleRemaining, final double jobMinutes, final long end,
+                final double rate) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                if (sampleAt[bucket] == 0 || sampleRemaining[bucket] <= 0) {
+                    continue;
+                }
+                final double actual = (end - sampleAt[bucket]) / 60_000.0;
+                final double ratio = Math.max(MIN_RATIO, Math.min(actual / sampleRemaining[bucket], MAX_RATIO));
+                ratios[bucket] = samples[bucket] == 0 ? ratio : ratios[bucket] + rate * (ratio - ratios[bucket]);
+                samples[bucket]++;
+            }
+            if (!Double.isNaN(jobMinutes) && jobMinutes > 0) {
+                minutes = minutes <= 0 ? jobMinutes : minutes + rate * (jobMinutes - minutes);
+            }
+            jobs++;
+            updated = end;
+        }
+
+        private synchronized Info getInfo() {
+            return new Info(key, jobs, minutes, ratios.clone(), samples.clone(),
+                    updated == 0 ? null : Instant.ofEpochMilli(updated).atZone(ZoneId.systemDefault()).toOffsetDateTime());
+        }
+
+        /**
+         * @param key file:subtask_name or model:printer model
+         * @param minutes average start to finish, 0 when unknown
+         * @param ratios actual over reported remaining time per progress bucket
+         * @param samples jobs learnt per progress bucket
+         */
+        public record Info(String key, int jobs, double minutes, double[] ratios, int[] samples, OffsetDateTime updated) {
+
+        }
+
+    }
+
+}
@@ -0,0 +1,257 @@
+package com.tfyre.bambu.printer;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.model.Print;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming detector for abnormal print progress and thermal behaviour of a printer.
+ * <p>
+ * Every signal keeps an EWMA of its mean and variance, updated in O(1) per message: the layer interval while running, the nozzle and bed
+ * deltas to their targets once settled and the heatbreak fan speed while the nozzle is heated. A value further than the threshold (in
+ * standard deviations, never less than a fixed band) from its mean is flagged and not learnt, so a slow drift cannot hide a fault.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class PrinterAnomalies {
+
+    private static final String STATE_RUNNING = "RUNNING";
+    private static final double FAN_BAND = 3;
+    private static final double LAYER_FACTOR = 3;
+
+    private final Ewma layerInterval = new Ewma();
+    private final Ewma nozzle = new Ewma();
+    private final Ewma bed = new Ewma();
+    private final Ewma heatbreakFan = new Ewma();
+    private final String[] active = new String[Kind.values().length];
+
+    private String gcodeState = "";
+    private int layer = -1;
+    private long layerSince;
+    private double nozzleTemper;
+    private double nozzleTarget;
+    private double bedTemper;
+    private double bedTarget;
+
+    synchronized void reset() {
+        layerInterval.reset();
+        nozzle.reset();
+        bed.reset();
+        heatbreakFan.reset();
+        layer = -1;
+        for (int i = 0; i < active.length; i++) {
+            active[i] = null;
+        }
+    }
+
+    synchronized void onPrint(final Print print, final BambuConfig.Health config, final long now) {
+        if (!config.anomalies()) {
+            return;
+        }
+        if (print.hasGcodeState() && !print.getGcodeState().equals(gcodeState)) {
+            gcodeState = print.getGcodeState();
+            // time paused or preparing is not layer time
+            layerSince = now;
+        }
+        if (print.hasLayerNum()) {
+            onLayer(print.getLayerNum(), now);
+        }
+        if (print.hasNozzleTargetTemper() && print.getNozzleTargetTemper() != nozzleTarget) {
+            nozzleTarget = print.getNozzleTargetTemper();
+            nozzle.reset();
+        }
+        if (print.hasNozzleTemper() || print.hasNozzleTargetTemper()) {
+            nozzleTemper = print.hasNozzleTemper() ? print.getNozzleTemper() : nozzleTemper;
+            checkTemperature(Kind.NOZZLE, nozzle, nozzleTemper, nozzleTarget, config);
+        }
+        if (print.hasBedTargetTemper() && print.getBedTargetTemper() != bedTarget) {
+            bedTarget = print.getBedTargetTemper();
+            bed.reset();
+        }
+        if (print.hasBedTemper() || print.hasBedTargetTemper()) {
+            bedTemper = print.hasBedTemper() ? print.getBedTemper() : bedTemper;
+            checkTemperature(Kind.BED, bed, bedTemper, bedTarget, config);
+        }
+        if (print.hasHeatbreakFanSpeed()) {
+            checkFan(parse(print.getHeatbreakFanSpeed()), config);
+        }
+    }
+
+    private static double parse(final String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
+    private void onLayer(final int value, final long now) {
+        if (!STATE_RUNNING.equals(gcodeState) || value < layer || layer < 0) {
+            // a new print or a restart, the interval of the first layer includes preparing
+            layer = value;
+            layerSince = now;
+            return;
+        }
+        if (value == layer) {
+            return;
+        }
+        layerInterval.update((double) (now - layerSince) / (value - layer));
+        layer = value;
+        layerSince = now;
+        active[Kind.LAYER.ordinal()] = null;
+    }
+
+    private void checkTemperature(final Kind kind, final Ewma stats, final double temper, final double target, final BambuConfig.Health config) {
+        if (target <= 0) {
+            stats.reset();
+            active[kind.ordinal()] = null;
+            return;
+        }
+        final double delta = temper - target;
+        if (!stats.isWarm()) {
+            // still heating or cooling towards the target
+            if (Math.abs(delta) < config.temperatureBand()) {
+                stats.update(delta);
+            }
+            return;
+        }
+        if (stats.isOutlier(delta, config.anomalyThreshold(), config.temperatureBand())) {
+            active[kind.ordinal()] = "%s %.1f°C, target %.1f°C".formatted(kind.getLabel(), temper, target);
+            return;
+        }
+        stats.update(delta);
+        active[kind.ordinal()] = null;
+    }
+
+    private void checkFan(final double speed, final BambuConfig.Health config) {
+        if (Double.isNaN(speed) || nozzleTarget <= 0 || nozzle.isEmpty()) {
+            heatbreakFan.reset();
+            active[Kind.FAN.ordinal()] = null;
+            return;
+        }
+        if (heatbreakFan.isWarm() && heatbreakFan.isOutlier(speed, config.anomalyThreshold(), FAN_BAND)) {
+            active[Kind.FAN.ordinal()] = "%s %.0f, usually %.0f".formatted(Kind.FAN.getLabel(), speed, heatbreakFan.getMean());
+            return;
+        }
+        heatbreakFan.update(speed);
+        active[Kind.FAN.ordinal()] = null;
+    }
+
+    /**
+     * Checks for a stalled layer, called on the health interval as a stall produces no messages
+     */
+    synchronized void check(final BambuConfig.Health config, final long now) {
+        if (!config.anomalies() || !STATE_RUNNING.equals(gcodeState) || layer < 0 || !layerInterval.isWarm()) {
+            active[Kind.LAYER.ordinal()] = null;
+            return;
+        }
+        final long silence = now - layerSince;
+        final double expected = Math.max(layerInterval.getMean() * LAYER_FACTOR,
+                layerInterval.getMean() + config.anomalyThreshold() * layerInterval.getDeviation());
+        active[Kind.LAYER.ordinal()] = silence > Math.max(expected, config.layerStallAfter().toNanos())
+                ? "%s %d for %ds, usually %ds".formatted(Kind.LAYER.getLabel(), layer, Duration.ofNanos(silence).toSeconds(),
+                        Duration.ofNanos((long) layerInterval.getMean()).toSeconds())
+                : null;
+    }
+
+    /**
+     * @return the active anomalies, empty when none
+     */
+    public synchronized List<Anomaly> getActive() {
+        final List<Anomaly> result = new ArrayList<>(0);
+        for (final Kind kind : Kind.values()) {
+            if (active[kind.ordinal()] != null) {
+                result.add(new Anomaly(kind, active[kind.ordinal()]));
+            }
+        }
+        return result;
+    }
+
+    public synchronized boolean isActive(final Kind kind) {
+        return active[kind.ordinal()] != null;
+    }
+
+    public record Anomaly(Kind kind, String reason) {
+
+    }
+
+    public enum Kind {
+        LAYER("Layer"),
+        NOZZLE("Nozzle"),
+        BED("Bed"),
+        FAN("Heatbreak fan");
+
+        private final String label;
+
+        private Kind(final String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getRule() {
+            return "anomaly-%s".formatted(name().toLowerCase());
+        }
+
+    }
+
+    /**
+     * Exponentially weighted mean and variance
+     */
+    private static class Ewma {
+
+        private static final double ALPHA = 0.1;
+        private static final int WARMUP = 10;
+
+        private int count;
+        private double mean;
+        private double variance;
+
+        void update(final double value) {
+            if (count++ == 0) {
+                mean = value;
+                variance = 0;
+                return;
+            }
+            final double diff = value - mean;
+            final double increment = ALPHA * diff;
+            mean += increment;
+            variance = (1 - ALPHA) * (variance + diff * increment);
+        }
+
+        void reset() {
+            count = 0;
+            mean = 0;
+            variance = 0;
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        boolean isWarm() {
+            return count >= WARMUP;
+        }
+
+        double getMean() {
+            return mean;
+        }
+
+        double getDeviation() {
+            return Math.sqrt(variance);
+        }
+
+        /**
+         * @param band smallest deviation that counts, a steady signal has next to no variance
+         */
+        boolean isOutlier(final double value, final double threshold, final double band) {
+            return Math.abs(value - mean) > Math.max(threshold * getDeviation(), band);
+        }
+
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.tfyre.bambu.printer;
+
+import com.tfyre.bambu.model.Print;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Corrected remaining time of the current job of a printer, see {@link PrintTimes}. Paused time is left out of the learnt times, the
+ * sample times are kept on a clock that stops while the job is paused.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class PrinterEta {
+
+    private static final String PAUSE = "PAUSE";
+
+    private final long[] sampleAt = new long[PrintTimes.BUCKETS];
+    private final int[] sampleRemaining = new int[PrintTimes.BUCKETS];
+    private String gcodeState = "";
+    private String file = "";
+    private int percent = -1;
+    private int reported = -1;
+    private long start;
+    private long paused;
+    private long pausedAt;
+    private volatile Optional<Estimate> estimate = Optional.empty();
+
+    private static boolean isPrinting(final String gcodeState) {
+        return PrinterState.of(true, 0, gcodeState) == PrinterState.PRINTING;
+    }
+
+    private void clear() {
+        Arrays.fill(sampleAt, 0);
+        Arrays.fill(sampleRemaining, 0);
+        percent = -1;
+        reported = -1;
+        paused = 0;
+        pausedAt = 0;
+    }
+
+    /**
+     * @return millis less the time this job spent paused
+     */
+    private long getActive(final long millis) {
+        return millis - paused - (pausedAt > 0 ? millis - pausedAt : 0);
+    }
+
+    private void onState(final String next, final PrintTimes times, final String model, final long millis, final boolean learn) {
+        final boolean wasPrinting = isPrinting(gcodeState);
+        final boolean known = !gcodeState.isEmpty();
+        gcodeState = next;
+        final boolean printing = isPrinting(gcodeState);
+        if (printing && !wasPrinting) {
+            clear();
+            // joined a job already printing, the start is unknown
+            start = known ? millis : 0;
+        } else if (!printing && wasPrinting) {
+            if (learn && "FINISH".equals(gcodeState)) {
+                times.learn(file, model, sampleAt, sampleRemaining, start, getActive(millis));
+            }
+            clear();
+            return;
+        }
+        if (PAUSE.equals(gcodeState) && pausedAt == 0) {
+            pausedAt = millis;
+        } else if (!PAUSE.equals(gcodeState) && pausedAt > 0) {
+            paused += millis - pausedAt;
+            pausedAt = 0;
+        }
+    }
+
+    /**
+     * @param learn false for a mirrored printer, the node connected to the printer learns from its jobs
+     */
+    synchronized void onPrint(final Print print, final PrintTimes times, final String model, final long millis, final boolean learn) {
+        if (print.hasSubtaskName()) {
+            file = print.getSubtaskName();
+        }
+        if (print.hasGcodeState() && !print.getGcodeState().equals(gcodeState)) {
+            onState(print.getGcodeState(), times, model, millis, learn);
+        }
+        if (!isPrinting(gcodeState)) {
+            estimate = Optional.empty();
+            return;
+        }
+        if (print.hasMcPercent()) {
+            percent = print.getMcPercent();
+        }
+        if (print.hasMcRemainingTime()) {
+            reported = print.getMcRemainingTime();
+        }
+        if (percent < 0 || reported < 0) {
+            return;
+        }
+        final int bucket = PrintTimes.getBucket(percent);
+        if (sampleAt[bucket] == 0 && reported > 0) {
+            sampleAt[bucket] = getActive(millis);
+            sampleRemaining[bucket] = reported;
+        }
+        estimate = Optional.of(getEstimate(times, model, bucket, millis));
+    }
+
+    private Estimate getEstimate(final PrintTimes times, final String model, final int bucket, final long millis) {
+        int remaining = reported;
+        PrintTimes.Source source = PrintTimes.Source.PRINTER;
+        if (reported > 0) {
+            final Optional<PrintTimes.Ratio> ratio = times.getRatio(file, model, bucket);
+            if (ratio.isPresent()) {
+                remaining = (int) Math.round(reported * ratio.get().value());
+                source = ratio.get().source();
+            }
+        } else if (start > 0 && percent < 100) {
+            // still preparing, the printer has no estimate yet
+            final Optional<Double> minutes = times.getMinutes(file);
+            if (minutes.isPresent()) {
+                remaining = (int) Math.max(0, Math.round(minutes.get() - (getActive(millis) - start) / 60_000.0));
+                source = PrintTimes.Source.FILE;
+            }
+        }
+        return new Estimate(file, percent, reported, remaining,
+                Instant.ofEpochMilli(millis + remaining * 60_000L).atZone(ZoneId.systemDefault()).toOffsetDateTime(), source);
+    }
+
+    /**
+     * @return empty when not printing
+     */
+    public Optional<Estimate> getEstimate() {
+        return estimate;
+    }
+
+    /**
+     * @param reported mc_remaining_time in minutes
+     * @param remaining corrected remaining time in minutes
+     * @param source what corrected the reported time
+     */
+    public record Estimate(String file, int percent, int reported, int remaining, OffsetDateTime finish, PrintTimes.Source source) {
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.tfyre.bambu.printer;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+import io.smallrye.mutiny.operators.multi.processors.SerializedProcessor;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Broadcasts every status message of every printer to any number of subscribers
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class PrinterEvents {
+
+    public static final String TYPE_STATUS = "status";
+    public static final String TYPE_FULLSTATUS = "fullstatus";
+
+    private final BroadcastProcessor<Event> processor = BroadcastProcessor.create();
+    private final SerializedProcessor<Event, Event> publisher = processor.serialized();
+
+    void publish(final String name, final String type, final BambuPrinter.Message message) {
+        publisher.onNext(new Event(name, type, message));
+    }
+
+    /**
+     * Hot stream, subscribers only receive events published after subscribing
+     */
+    public Multi<Event> stream() {
+        return processor;
+    }
+
+    /**
+     * A single status change, encodings are computed once and shared by all subscribers asking for the same key
+     */
+    public static final class Event {
+
+        private final String name;
+        private final String type;
+        private final BambuPrinter.Message message;
+        private final Map<String, String> encoded = new ConcurrentHashMap<>();
+
+        private Event(final String name, final String type, final BambuPrinter.Message message) {
+            this.name = name;
+            this.type = type;
+            this.message = message;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public BambuPrinter.Message getMessage() {
+            return message;
+        }
+
+        public String getEncoded(final String key, final Function<Event, String> encoder) {
+            return encoded.computeIfAbsent(key, k -> encoder.apply(this));
+        }
+
+    }
+
+}
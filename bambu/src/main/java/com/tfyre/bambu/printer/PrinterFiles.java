@@ -0,0 +1,126 @@
+package com.tfyre.bambu.printer;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.metrics.BambuMetrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.commons.net.ProtocolCommandEvent;
+import org.apache.commons.net.ProtocolCommandListener;
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPSClient;
+import org.jboss.logging.Logger;
+
+/**
+ * FTPS access to the SD card of a printer, shared by the SD card view and the job dispatcher
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class PrinterFiles {
+
+    @Inject
+    Logger log;
+    @Inject
+    BambuMetrics metrics;
+
+    private ProtocolCommandListener getListener(final String name) {
+        return new ProtocolCommandListener() {
+
+            private void log(ProtocolCommandEvent event) {
+                log.infof("%s: command[%s] message[%s]", name, event.getCommand(), event.getMessage().trim());
+            }
+
+            @Override
+            public void protocolCommandSent(ProtocolCommandEvent event) {
+                log(event);
+            }
+
+            @Override
+            public void protocolReplyReceived(ProtocolCommandEvent event) {
+                log(event);
+            }
+        };
+    }
+
+    public FTPSClient newClient(final BambuPrinters.PrinterDetail printer) {
+        final FTPSClient result = new FTPSClient(true);
+        if (printer.config().ftp().logCommands()) {
+            result.addProtocolCommandListener(getListener(printer.name()));
+        }
+        result.setUseEPSVwithIPv4(true);
+        //sent: USER bblp
+        //recv: 331
+        //org.apache.commons.net.MalformedServerReplyException: Truncated server reply: '331 '
+        //at org.apache.commons.net.ftp.FTP.getReply(FTP.java:609)
+        result.setStrictReplyParsing(false);
+        return result;
+    }
+
+    public URI getURI(final BambuConfig.Printer config) {
+        return URI.create(config.ftp().url().orElseGet(() -> "ftps://%s:%d".formatted(config.ip(), config.ftp().port())));
+    }
+
+    public Timer getTimer(final BambuPrinters.PrinterDetail printer, final String operation) {
+        return metrics.getPrinter(printer.name()).getFtpTimer(operation);
+    }
+
+    /**
+     * Connects and logs in, data connections are private and passive
+     *
+     * @return false when the login failed
+     */
+    public boolean connect(final BambuPrinters.PrinterDetail printer, final FTPSClient client) throws Exception {
+        final BambuConfig.Printer config = printer.config();
+        final URI uri = getURI(config);
+        if (!client.isConnected()) {
+            getTimer(printer, "connect").recordCallable(() -> {
+                client.connect(uri.getHost(), uri.getPort());
+                return true;
+            });
+        }
+        if (!getTimer(printer, "login").recordCallable(() -> client.login(config.username(), config.accessCode()))) {
+            return false;
+        }
+        client.execPROT("P");
+        client.enterLocalPassiveMode();
+        return true;
+    }
+
+    /**
+     * Stores a file in the root of the SD card with its own connection
+     *
+     * @throws IOException when the printer cannot be reached, refuses the login or the transfer fails
+     */
+    public void upload(final BambuPrinters.PrinterDetail printer, final Path file, final String fileName) throws IOException {
+        final FTPSClient client = newClient(printer);
+        try {
+            if (!connect(printer, client)) {
+                throw new IOException("%s: FTP login failed".formatted(printer.name()));
+            }
+            client.setFileType(FTP.BINARY_FILE_TYPE);
+            final boolean stored;
+            try (InputStream is = Files.newInputStream(file)) {
+                stored = getTimer(printer, "store").recordCallable(() -> client.storeFile(BambuConst.PATHSEP + fileName, is));
+            }
+            if (!stored) {
+                throw new IOException("%s: FTP store %s failed - %s".formatted(printer.name(), fileName, client.getReplyString().trim()));
+            }
+            client.logout();
+        } catch (IOException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException(ex.getMessage(), ex);
+        } finally {
+            if (client.isConnected()) {
+                client.disconnect();
+            }
+        }
+    }
+
+}
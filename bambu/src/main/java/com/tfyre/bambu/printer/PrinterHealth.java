@@ -0,0 +1,178 @@
+package com.tfyre.bambu.printer;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.model.Print;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks the arrival rate of status messages and camera frames and the anomalies of a printer and classifies it
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class PrinterHealth {
+
+    private final Arrivals messages = new Arrivals();
+    private final Arrivals frames = new Arrivals();
+    private final PrinterAnomalies anomalies = new PrinterAnomalies();
+    private volatile State state = State.OFFLINE;
+    private volatile String reason = "Not started";
+    private volatile long stateSince = System.nanoTime();
+
+    void onMessage() {
+        messages.arrive(System.nanoTime());
+    }
+
+    void onPrint(final Print print, final BambuConfig.Health config) {
+        anomalies.onPrint(print, config, System.nanoTime());
+    }
+
+    void onFrame() {
+        frames.arrive(System.nanoTime());
+    }
+
+    void reset() {
+        final long now = System.nanoTime();
+        messages.reset(now);
+        frames.reset(now);
+        anomalies.reset();
+    }
+
+    private State classify(final long now, final boolean running, final boolean mirrored, final boolean mqttConnected,
+            final BambuConfig.Health config) {
+        if (!running && !mirrored) {
+            reason = "Not running";
+            return State.OFFLINE;
+        }
+        if (!mirrored && !mqttConnected) {
+            reason = "MQTT disconnected";
+            return State.OFFLINE;
+        }
+        final long silence = messages.getSilence(now);
+        final String source = mirrored ? " from owner" : "";
+        if (silence > config.offlineAfter().toNanos()) {
+            reason = "No status%s for %ds".formatted(source, Duration.ofNanos(silence).toSeconds());
+            return State.OFFLINE;
+        }
+        // a printer that normally reports every second is stale much sooner than one that only reports changes
+        final long staleAfter = Math.max(config.staleAfter().toNanos(), (long) (messages.getInterval() * config.staleFactor()));
+        if (silence > staleAfter) {
+            reason = "No status%s for %ds".formatted(source, Duration.ofNanos(silence).toSeconds());
+            return State.STALE;
+        }
+        anomalies.check(config, now);
+        final List<PrinterAnomalies.Anomaly> active = anomalies.getActive();
+        if (!active.isEmpty()) {
+            reason = active.stream().map(PrinterAnomalies.Anomaly::reason).collect(Collectors.joining(", "));
+            return State.DEGRADED;
+        }
+        final long frameSilence = frames.getSilence(now);
+        // the camera stream only runs on the owning node
+        if (!mirrored && frameSilence > config.streamStaleAfter().toNanos()) {
+            reason = "No camera frame for %ds".formatted(Duration.ofNanos(frameSilence).toSeconds());
+            return State.DEGRADED;
+        }
+        reason = "";
+        return State.HEALTHY;
+    }
+
+    /**
+     * @param mirrored status is published by the cluster node owning the printer, messages are the mirrored ones
+     * @return the previous state
+     */
+    State evaluate(final boolean running, final boolean mirrored, final boolean mqttConnected, final BambuConfig.Health config) {
+        final long now = System.nanoTime();
+        final State result = state;
+        final State newState = classify(now, running, mirrored, mqttConnected, config);
+        if (newState != result) {
+            state = newState;
+            stateSince = now;
+        }
+        return result;
+    }
+
+    public PrinterAnomalies getAnomalies() {
+        return anomalies;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Duration getStateDuration() {
+        return Duration.ofNanos(System.nanoTime() - stateSince);
+    }
+
+    /**
+     * @return status messages per second
+     */
+    public double getMessageRate() {
+        return messages.getRate();
+    }
+
+    /**
+     * @return camera frames per second
+     */
+    public double getFrameRate() {
+        return frames.getRate();
+    }
+
+    public enum State {
+        HEALTHY,
+        DEGRADED,
+        STALE,
+        OFFLINE;
+
+        public String getCssName() {
+            return "health-%s".formatted(name().toLowerCase());
+        }
+    }
+
+    /**
+     * EWMA of the inter arrival time
+     */
+    private static class Arrivals {
+
+        private static final double ALPHA = 0.2;
+
+        private volatile long last;
+        private volatile double interval;
+
+        synchronized void arrive(final long now) {
+            final long _last = last;
+            last = now;
+            if (_last == 0) {
+                return;
+            }
+            final long delta = now - _last;
+            interval = interval == 0 ? delta : ALPHA * delta + (1 - ALPHA) * interval;
+        }
+
+        void reset(final long now) {
+            last = now;
+            interval = 0;
+        }
+
+        long getSilence(final long now) {
+            final long _last = last;
+            return _last == 0 ? Long.MAX_VALUE : now - _last;
+        }
+
+        double getInterval() {
+            return interval;
+        }
+
+        double getRate() {
+            // decay while silent instead of reporting the last known rate forever
+            final double _interval = Math.max(interval, getSilence(System.nanoTime()));
+            return _interval == 0 ? 0 : 1_000_000_000.0 / _interval;
+        }
+
+    }
+
+}
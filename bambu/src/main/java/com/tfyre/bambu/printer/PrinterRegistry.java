@@ -0,0 +1,119 @@
+package com.tfyre.bambu.printer;
+
+import com.tfyre.bambu.printer.BambuPrinters.PrinterDetail;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of all printers with precomputed indexes, replaced as a whole on every change so readers never lock or scan
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+final class PrinterRegistry {
+
+    static final PrinterRegistry EMPTY = new PrinterRegistry(List.of());
+
+    private final Map<String, PrinterDetail> byName;
+    private final Collection<PrinterDetail> details;
+    private final List<BambuPrinter> running;
+    private final Map<String, PrinterDetail> byDeviceId;
+    private final Map<PrinterState, List<PrinterDetail>> byState;
+    private final Map<String, List<PrinterDetail>> byModel;
+    private final Map<String, List<PrinterDetail>> byTag;
+
+    private PrinterRegistry(final Collection<PrinterDetail> values) {
+        final Map<String, PrinterDetail> names = new TreeMap<>();
+        values.forEach(pd -> names.put(pd.name(), pd));
+        byName = Collections.unmodifiableMap(names);
+        details = List.copyOf(names.values());
+        running = details.stream()
+                .filter(pd -> pd.isRunning() || pd.isMirrored())
+                .map(PrinterDetail::printer)
+                .toList();
+
+        final Map<String, PrinterDetail> deviceIds = new HashMap<>();
+        details.forEach(pd -> deviceIds.put(pd.config().deviceId(), pd));
+        byDeviceId = Collections.unmodifiableMap(deviceIds);
+
+        final Map<PrinterState, List<PrinterDetail>> states = new EnumMap<>(PrinterState.class);
+        details.stream()
+                .collect(Collectors.groupingBy(pd -> pd.printer().getState()))
+                .forEach((k, v) -> states.put(k, List.copyOf(v)));
+        byState = Collections.unmodifiableMap(states);
+
+        byModel = details.stream()
+                .filter(pd -> pd.config().model().isPresent())
+                .collect(Collectors.collectingAndThen(
+                        Collectors.groupingBy(pd -> pd.config().model().get(), Collectors.toUnmodifiableList()),
+                        Collections::unmodifiableMap));
+
+        final Map<String, List<PrinterDetail>> tags = new HashMap<>();
+        details.forEach(pd -> pd.config().tags().orElse(List.of())
+                .forEach(tag -> tags.computeIfAbsent(tag, t -> new ArrayList<>()).add(pd)));
+        tags.replaceAll((k, v) -> List.copyOf(v));
+        byTag = Collections.unmodifiableMap(tags);
+    }
+
+    PrinterRegistry with(final PrinterDetail detail) {
+        final Map<String, PrinterDetail> result = new HashMap<>(byName);
+        result.put(detail.name(), detail);
+        return new PrinterRegistry(result.values());
+    }
+
+    PrinterRegistry without(final String name) {
+        final Map<String, PrinterDetail> result = new HashMap<>(byName);
+        result.remove(name);
+        return new PrinterRegistry(result.values());
+    }
+
+    /**
+     * Recomputes the running and state indexes after a printer started, stopped or changed state
+     */
+    PrinterRegistry reindex() {
+        return new PrinterRegistry(details);
+    }
+
+    boolean contains(final String name) {
+        return byName.containsKey(name);
+    }
+
+    Optional<PrinterDetail> get(final String name) {
+        return Optional.ofNullable(byName.get(name));
+    }
+
+    Collection<PrinterDetail> getDetails() {
+        return details;
+    }
+
+    /**
+     * @return running and mirrored printers
+     */
+    List<BambuPrinter> getRunning() {
+        return running;
+    }
+
+    Optional<PrinterDetail> getByDeviceId(final String deviceId) {
+        return Optional.ofNullable(byDeviceId.get(deviceId));
+    }
+
+    List<PrinterDetail> getByState(final PrinterState state) {
+        return byState.getOrDefault(state, List.of());
+    }
+
+    List<PrinterDetail> getByModel(final String model) {
+        return byModel.getOrDefault(model, List.of());
+    }
+
+    List<PrinterDetail> getByTag(final String tag) {
+        return byTag.getOrDefault(tag, List.of());
+    }
+
+}
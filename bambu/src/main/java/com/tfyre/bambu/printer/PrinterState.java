@@ -0,0 +1,28 @@
+package com.tfyre.bambu.printer;
+
+import java.util.Set;
+
+/**
+ * Coarse printer state used to index printers in the registry
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public enum PrinterState {
+    STOPPED,
+    IDLE,
+    PRINTING,
+    ERROR;
+
+    private static final Set<String> PRINTING_STATES = Set.of("PREPARE", "SLICING", "RUNNING", "PAUSE");
+
+    public static PrinterState of(final boolean running, final int printError, final String gcodeState) {
+        if (!running) {
+            return STOPPED;
+        }
+        if (printError != 0) {
+            return ERROR;
+        }
+        return PRINTING_STATES.contains(gcodeState) ? PRINTING : IDLE;
+    }
+
+}
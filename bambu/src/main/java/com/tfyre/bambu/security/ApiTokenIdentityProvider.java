@@ -0,0 +1,42 @@
+package com.tfyre.bambu.security;
+
+import io.quarkus.security.AuthenticationFailedException;
+import io.quarkus.security.identity.AuthenticationRequestContext;
+import io.quarkus.security.identity.IdentityProvider;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.quarkus.security.identity.request.TokenAuthenticationRequest;
+import io.quarkus.security.runtime.QuarkusPrincipal;
+import io.quarkus.security.runtime.QuarkusSecurityIdentity;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Validates API tokens in memory, without a worker thread
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class ApiTokenIdentityProvider implements IdentityProvider<TokenAuthenticationRequest> {
+
+    @Inject
+    ApiTokens tokens;
+
+    @Override
+    public Class<TokenAuthenticationRequest> getRequestType() {
+        return TokenAuthenticationRequest.class;
+    }
+
+    @Override
+    public Uni<SecurityIdentity> authenticate(final TokenAuthenticationRequest request, final AuthenticationRequestContext context) {
+        return tokens.validate(request.getToken().getToken())
+                .map(token -> Uni.createFrom().<SecurityIdentity>item(QuarkusSecurityIdentity.builder()
+                .setPrincipal(new QuarkusPrincipal(ApiTokens.PRINCIPAL_PREFIX + token.name()))
+                .addCredential(request.getToken())
+                .addRoles(token.scope().getRoles())
+                .addAttribute(ApiTokens.ATTRIBUTE_TOKEN, token)
+                .build()))
+                .orElseGet(() -> Uni.createFrom().failure(new AuthenticationFailedException("Invalid token")));
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.tfyre.bambu.security;
+
+import io.quarkus.security.credential.TokenCredential;
+import io.quarkus.security.identity.IdentityProviderManager;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.quarkus.security.identity.request.AuthenticationRequest;
+import io.quarkus.security.identity.request.TokenAuthenticationRequest;
+import io.quarkus.vertx.http.runtime.security.ChallengeData;
+import io.quarkus.vertx.http.runtime.security.HttpAuthenticationMechanism;
+import io.quarkus.vertx.http.runtime.security.HttpCredentialTransport;
+import io.quarkus.vertx.http.runtime.security.HttpSecurityUtils;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads an API token from the Authorization: Bearer header, or the access_token query parameter for clients that can not set headers (eg
+ * EventSource and WebSocket in a browser). Requests without a token are left to basic auth.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class ApiTokenMechanism implements HttpAuthenticationMechanism {
+
+    private static final String BEARER = "bearer";
+    private static final String PARAM = "access_token";
+
+    private static Optional<String> getToken(final RoutingContext rc) {
+        final String header = rc.request().getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null) {
+            final int pos = header.indexOf(' ');
+            return pos > 0 && header.substring(0, pos).equalsIgnoreCase(BEARER)
+                    ? Optional.of(header.substring(pos + 1).trim()).filter(t -> !t.isEmpty())
+                    : Optional.empty();
+        }
+        return Optional.ofNullable(rc.request().getParam(PARAM)).filter(t -> !t.isBlank());
+    }
+
+    @Override
+    public Uni<SecurityIdentity> authenticate(final RoutingContext context, final IdentityProviderManager identityProviderManager) {
+        return getToken(context)
+                .map(token -> identityProviderManager.authenticate(
+                HttpSecurityUtils.setRoutingContextAttribute(new TokenAuthenticationRequest(new TokenCredential(token, BEARER)), context)))
+                .orElseGet(() -> Uni.createFrom().optional(Optional.empty()));
+    }
+
+    /**
+     * No challenge, browsers get the basic auth challenge
+     */
+    @Override
+    public Uni<ChallengeData> getChallenge(final RoutingContext context) {
+        return Uni.createFrom().nullItem();
+    }
+
+    @Override
+    public Set<Class<? extends AuthenticationRequest>> getCredentialTypes() {
+        return Set.of(TokenAuthenticationRequest.class);
+    }
+
+    @Override
+    public Uni<HttpCredentialTransport> getCredentialTransport(final RoutingContext context) {
+        return Uni.createFrom().item(new HttpCredentialTransport(HttpCredentialTransport.Type.AUTHORIZATION, BEARER));
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.tfyre.bambu.security;
+
+import com.tfyre.bambu.BambuConfig;
+import com.tfyre.bambu.SystemRoles;
+import com.tfyre.bambu.printer.BambuPrinters;
+import io.quarkus.security.identity.SecurityIdentity;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jboss.logging.Logger;
+
+/**
+ * Long lived API tokens for scripts and wall displays.
+ * <p>
+ * Only the SHA-256 of a token is kept, validating a token hashes it once and looks the hash up in memory, the stored hash is then compared
+ * in constant time. No bcrypt and no session is involved. Tokens from bambu.tokens and tokens created at runtime can be revoked, runtime
+ * changes are not persisted.
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class ApiTokens {
+
+    public static final String PRINCIPAL_PREFIX = "token:";
+    public static final String ATTRIBUTE_TOKEN = "com.tfyre.token";
+
+    private static final String SHA256_PREFIX = "sha256:";
+    private static final String TOKEN_PREFIX = "bft_";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Inject
+    Logger log;
+    @Inject
+    BambuConfig config;
+
+    private final Map<String, Token> byHash = new ConcurrentHashMap<>();
+    private final Map<String, Token> byName = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void postConstruct() {
+        config.tokens().forEach((name, token) -> {
+            if (!token.enabled()) {
+                return;
+            }
+            try {
+                add(new Token(name, getHash(token.token()), token.scope(), Set.copyOf(token.tags().orElse(List.of())), false,
+                        OffsetDateTime.now()));
+            } catch (IllegalArgumentException ex) {
+                log.errorf("bambu.tokens.%s: %s", name, ex.getMessage());
+            }
+        });
+    }
+
+    private static byte[] sha256(final String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException when a sha256: value is not 64 hex digits
+     */
+    private static byte[] getHash(final String token) {
+        if (!token.startsWith(SHA256_PREFIX)) {
+            return sha256(token);
+        }
+        final String hex = token.substring(SHA256_PREFIX.length());
+        if (hex.length() != 64) {
+            throw new IllegalArgumentException("expected sha256: and 64 hex digits");
+        }
+        return HexFormat.of().parseHex(hex);
+    }
+
+    private synchronized void add(final Token token) {
+        if (byName.containsKey(token.name())) {
+            throw new IllegalArgumentException("Token %s exists".formatted(token.name()));
+        }
+        byName.put(token.name(), token);
+        byHash.put(HexFormat.of().formatHex(token.hash()), token);
+    }
+
+    public Optional<Token> validate(final String token) {
+        final byte[] hash = sha256(token);
+        return Optional.ofNullable(byHash.get(HexFormat.of().formatHex(hash)))
+                .filter(t -> MessageDigest.isEqual(t.hash(), hash));
+    }
+
+    /**
+     * @return the new token, it can not be shown again
+     * @throws IllegalArgumentException when the name is taken
+     */
+    public Created create(final String name, final Scope scope, final List<String> tags) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Name required");
+        }
+        final byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        final String value = TOKEN_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        final Token token = new Token(name.trim(), sha256(value), scope == null ? Scope.READ : scope,
+                tags == null ? Set.of() : Set.copyOf(tags), true, OffsetDateTime.now());
+        add(token);
+        log.infof("token %s: created scope[%s] tags%s", token.name(), token.scope(), token.tags());
+        return new Created(token.getInfo(), value);
+    }
+
+    /**
+     * @return false when the token is unknown
+     */
+    public synchronized boolean revoke(final String name) {
+        final Token token = byName.remove(name);
+        if (token == null) {
+            return false;
+        }
+        byHash.remove(HexFormat.of().formatHex(token.hash()));
+        log.infof("token %s: revoked", name);
+        return true;
+    }
+
+    public List<Info> list() {
+        return byName.values().stream().map(Token::getInfo).sorted(Comparator.comparing(Info::name)).toList();
+    }
+
+    /**
+     * @return admins and command tokens scoped to one of the printer tags may send commands to the printer
+     */
+    public boolean canCommand(final SecurityIdentity identity, final BambuPrinters.PrinterDetail printer) {
+        if (identity.hasRole(SystemRoles.ROLE_ADMIN)) {
+            return true;
+        }
+        if (!identity.hasRole(SystemRoles.ROLE_COMMAND)) {
+            return false;
+        }
+        final Token token = identity.getAttribute(ATTRIBUTE_TOKEN);
+        if (token == null || !byName.containsKey(token.name())) {
+            return false;
+        }
+        return token.tags().isEmpty() || printer.config().tags().orElse(List.of()).stream().anyMatch(token.tags()::contains);
+    }
+
+    public enum Scope {
+        /**
+         * Same access as a normal user
+         */
+        READ,
+        /**
+         * Also sends printer commands and confirms cleared beds, limited to the printers with one of the token tags
+         */
+        COMMAND;
+
+        public Set<String> getRoles() {
+            return this == COMMAND ? Set.of(SystemRoles.ROLE_NORMAL, SystemRoles.ROLE_COMMAND) : Set.of(SystemRoles.ROLE_NORMAL);
+        }
+
+        /**
+         * @throws IllegalArgumentException when unknown
+         */
+        public static Scope of(final String value) {
+            return value == null || value.isBlank() ? READ : valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+
+    }
+
+    /**
+     * @param runtime created with the API, lost on restart
+     */
+    public record Token(String name, byte[] hash, Scope scope, Set<String> tags, boolean runtime, OffsetDateTime created) {
+
+        private Info getInfo() {
+            return new Info(name, scope, tags.stream().sorted().toList(), runtime, created);
+        }
+
+    }
+
+    public record Info(String name, Scope scope, List<String> tags, boolean runtime, OffsetDateTime created) {
+
+    }
+
+    public record Created(Info info, String token) {
+
+    }
+
+}
@@ -9,15 +9,20 @@ import com.tfyre.bambu.SystemRoles;
 import com.tfyre.bambu.model.BambuMessage;
 import com.tfyre.bambu.printer.BambuPrinter;
 import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.printer.HistoryExport;
+import com.tfyre.bambu.printer.MessageHistory;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.Unit;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.combobox.ComboBox;
+import com.vaadin.flow.component.datetimepicker.DateTimePicker;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.grid.GridVariant;
+import com.vaadin.flow.component.html.Anchor;
 import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.icon.Icon;
 import com.vaadin.flow.component.icon.VaadinIcon;
-import com.vaadin.flow.component.listbox.ListBox;
 import com.vaadin.flow.component.orderedlayout.FlexLayout;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.Scroller;
@@ -30,13 +35,15 @@ import com.vaadin.flow.router.HasUrlParameter;
 import com.vaadin.flow.router.OptionalParameter;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.StreamResource;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoField;
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import org.jboss.logging.Logger;
@@ -75,11 +82,14 @@ public class LogsView extends VerticalLayout implements HasUrlParameter<String>,
     BambuPrinters printers;
 
     private Optional<BambuPrinter> _printer = Optional.empty();
-    private final ListBox<BambuPrinter.Message> listBox = new ListBox<>();
+    private final Grid<MessageHistory.Entry> grid = new Grid<>();
+    private final ComboBox<String> command = new ComboBox<>();
+    private final DateTimePicker from = new DateTimePicker();
+    private final DateTimePicker to = new DateTimePicker();
     private final TextField filter = new TextField();
+    private final Anchor export = new Anchor();
     private final TextArea json = new TextArea("RAW");
     private final TextArea parsed = new TextArea("Parsed");
-    private final List<BambuPrinter.Message> messages = new ArrayList<>();
 
     @Override
     public void setParameter(final BeforeEvent event, @OptionalParameter final String printerName) {
@@ -104,32 +114,53 @@ public class LogsView extends VerticalLayout implements HasUrlParameter<String>,
         }
     }
 
+    private static Optional<Instant> toInstant(final LocalDateTime value) {
+        return Optional.ofNullable(value).map(v -> v.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
     private void buildFilter() {
-        final String value = filter.getValue();
-        if (value == null || value.isBlank()) {
-            listBox.setItems(messages);
+        final BambuPrinter printer = comboBox.getValue();
+        if (printer == null) {
+            grid.setItems(List.of());
+            export.setEnabled(false);
             return;
         }
-
-        listBox.setItems(messages.stream().filter(m -> m.raw().contains(value)).toList());
+        final MessageHistory.Query query;
+        try {
+            query = MessageHistory.Query.parse(toInstant(from.getValue()), toInstant(to.getValue()), Optional.ofNullable(command.getValue()), filter.getValue());
+            filter.setInvalid(false);
+        } catch (IllegalArgumentException ex) {
+            filter.setErrorMessage(ex.getMessage());
+            filter.setInvalid(true);
+            return;
+        }
+        final MessageHistory.Search search = printer.getHistory().search(query);
+        grid.setItems(q -> search.fetch(q.getOffset(), q.getLimit()).stream());
+        final HistoryExport _export = new HistoryExport(List.of(printer), query, HistoryExport.Format.JSONL);
+        export.setHref(new StreamResource(_export.getFileName(), (out, session) -> _export.write(out)));
+        export.setEnabled(true);
     }
 
     private void buildList(final BambuPrinter printer) {
-        messages.clear();
-        messages.addAll(new ArrayList<>(printer.getLastMessages()).reversed());
+        command.setItems(printer == null ? List.of() : printer.getHistory().getCommands());
         buildFilter();
     }
 
     private Component buildListBox() {
-        listBox.setItemLabelGenerator(m -> "%s - %s".formatted(DTF.format(m.lastUpdated()), m.raw().length()));
-        listBox.addValueChangeListener(l -> {
+        grid.addColumn(e -> DTF.format(e.message().lastUpdated())).setHeader("Updated").setAutoWidth(true);
+        grid.addColumn(MessageHistory.Entry::command).setHeader("Command").setAutoWidth(true);
+        grid.addColumn(e -> e.message().raw().length()).setHeader("Size").setAutoWidth(true);
+        grid.addThemeVariants(GridVariant.LUMO_COMPACT);
+        grid.asSingleSelect().addValueChangeListener(l -> {
             if (l.getValue() == null) {
                 return;
             }
-            json.setValue(parseJson(l.getValue().raw()));
-            parsed.setValue(parseMessage(l.getValue().message()));
+            json.setValue(parseJson(l.getValue().message().raw()));
+            parsed.setValue(parseMessage(l.getValue().message().message()));
         });
-        listBox.setMinWidth(300, Unit.PIXELS);
+        grid.setMinWidth(400, Unit.PIXELS);
+        grid.setWidth(400, Unit.PIXELS);
+        grid.setHeightFull();
 
         json.setReadOnly(true);
         parsed.setReadOnly(true);
@@ -138,7 +169,7 @@ public class LogsView extends VerticalLayout implements HasUrlParameter<String>,
         flex.setFlexGrow(50.0, json, parsed);
         final HorizontalLayout result = new HorizontalLayout();
         result.setSizeFull();
-        result.add(listBox);
+        result.add(grid);
         result.addAndExpand(new Scroller(flex));
         result.setMinHeight("0");
         return result;
@@ -146,12 +177,24 @@ public class LogsView extends VerticalLayout implements HasUrlParameter<String>,
 
     private Component buildToolbar() {
         comboBox.setItemLabelGenerator(BambuPrinter::getName);
-        comboBox.setItems(printers.getPrinters().stream().sorted(Comparator.comparing(BambuPrinter::getName)).toList());
+        comboBox.setItems(printers.getPrinters());
         comboBox.addValueChangeListener(l -> buildList(l.getValue()));
+        command.setClearButtonVisible(true);
+        command.setPlaceholder("Command");
+        command.addValueChangeListener(l -> buildFilter());
+        from.setDatePlaceholder("From");
+        from.addValueChangeListener(l -> buildFilter());
+        to.setDatePlaceholder("To");
+        to.addValueChangeListener(l -> buildFilter());
+        filter.setPlaceholder("print.gcode_state=RUNNING text");
+        filter.setClearButtonVisible(true);
         filter.addValueChangeListener(l -> buildFilter());
         filter.setValueChangeMode(ValueChangeMode.TIMEOUT);
-        final Button refresh = new Button("Refresh", new Icon(VaadinIcon.REFRESH), l -> Optional.ofNullable(comboBox.getValue()).ifPresent(this::buildList));
-        final HorizontalLayout result = new HorizontalLayout(new Span("Printers"), comboBox, refresh, new Span("Filter"), filter);
+        final Button refresh = new Button("Refresh", new Icon(VaadinIcon.REFRESH), l -> buildList(comboBox.getValue()));
+        export.getElement().setAttribute("download", true);
+        export.add(new Button("Export", new Icon(VaadinIcon.DOWNLOAD)));
+        export.setEnabled(false);
+        final HorizontalLayout result = new HorizontalLayout(new Span("Printers"), comboBox, refresh, new Span("Filter"), command, from, to, filter, export);
         result.setWidthFull();
         result.setAlignItems(Alignment.CENTER);
         return result;
@@ -162,12 +205,7 @@ public class LogsView extends VerticalLayout implements HasUrlParameter<String>,
         addClassName("logs-view");
         setSizeFull();
         add(buildToolbar(), buildListBox());
-        _printer.ifPresent(this::buildList);
-    }
-
-    //FIXME Implement Export
-    private record Entry(String date, String raw, String parsed) {
-
+        _printer.ifPresent(comboBox::setValue);
     }
 
 }
@@ -1,11 +1,11 @@
 package com.tfyre.bambu.view;
 
-import com.tfyre.bambu.BambuConfig;
 import com.tfyre.bambu.MainLayout;
 import com.tfyre.bambu.SystemRoles;
 import com.tfyre.bambu.YesNoCancelDialog;
 import com.tfyre.bambu.printer.BambuConst;
 import com.tfyre.bambu.printer.BambuPrinters;
+import com.tfyre.bambu.printer.PrinterFiles;
 import com.vaadin.flow.component.AttachEvent;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.DetachEvent;
@@ -34,23 +34,19 @@ import com.vaadin.flow.router.OptionalParameter;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.server.StreamResource;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.inject.Inject;
 import java.io.BufferedInputStream;
-import java.io.IOException;
 import java.io.InputStream;
-import java.net.URI;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoField;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
-import org.apache.commons.net.ProtocolCommandEvent;
-import org.apache.commons.net.ProtocolCommandListener;
 import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPSClient;
@@ -84,6 +80,8 @@ public class SdCardView extends VerticalLayout implements HasUrlParameter<String
     BambuPrinters printers;
     @Inject
     ManagedExecutor executor;
+    @Inject
+    PrinterFiles files;
 
     private Optional<BambuPrinters.PrinterDetail> _printer = Optional.empty();
 
@@ -108,6 +106,10 @@ public class SdCardView extends VerticalLayout implements HasUrlParameter<String
         _printer = printers.getPrinterDetail(printerName);
     }
 
+    private Timer getTimer(final String operation) {
+        return files.getTimer(comboBox.getValue(), operation);
+    }
+
     private void runCallable(final Callable<Boolean> callable) {
         final Optional<UI> ui = getUI();
         executor.submit(() -> {
@@ -139,39 +141,6 @@ public class SdCardView extends VerticalLayout implements HasUrlParameter<String
         });
     }
 
-    private ProtocolCommandListener getListener(final String name) {
-        return new ProtocolCommandListener() {
-
-            private void log(ProtocolCommandEvent event) {
-                log.infof("%s: command[%s] message[%s]", name, event.getCommand(), event.getMessage().trim());
-            }
-
-            @Override
-            public void protocolCommandSent(ProtocolCommandEvent event) {
-                log(event);
-            }
-
-            @Override
-            public void protocolReplyReceived(ProtocolCommandEvent event) {
-                log(event);
-            }
-        };
-    }
-
-    private FTPSClient getFtpsClient(final BambuPrinters.PrinterDetail printer) {
-        final FTPSClient result = new FTPSClient(true);
-        if (printer.config().ftp().logCommands()) {
-            result.addProtocolCommandListener(getListener(printer.name()));
-        }
-        result.setUseEPSVwithIPv4(true);
-        //sent: USER bblp
-        //recv: 331
-        //org.apache.commons.net.MalformedServerReplyException: Truncated server reply: '331 '
-        //at org.apache.commons.net.ftp.FTP.getReply(FTP.java:609)
-        result.setStrictReplyParsing(false);
-        return result;
-    }
-
     private void setConnectDisconnect(final boolean canConnect) {
         connect.setEnabled(canConnect);
         disconnect.setEnabled(!canConnect);
@@ -183,29 +152,19 @@ public class SdCardView extends VerticalLayout implements HasUrlParameter<String
 
     private void buildList(final BambuPrinters.PrinterDetail printer) {
         disconnect();
-        client = getFtpsClient(printer);
+        client = files.newClient(printer);
         setConnectDisconnect(true);
     }
 
-    private URI getURI(final BambuConfig.Printer config) {
-        return URI.create(config.ftp().url().orElseGet(() -> "ftps://%s:%d".formatted(config.ip(), config.ftp().port())));
-    }
-
     private void doConnect() {
         connect.setEnabled(false);
         final Optional<UI> ui = getUI();
-        final BambuConfig.Printer config = comboBox.getValue().config();
-        final URI uri = getURI(config);
+        final BambuPrinters.PrinterDetail printer = comboBox.getValue();
         runCallable(() -> {
-            if (!client.isConnected()) {
-                client.connect(uri.getHost(), uri.getPort());
-            }
-            if (!client.login(config.username(), config.accessCode())) {
+            if (!files.connect(printer, client)) {
                 ui.get().access(() -> showError("Login Failed"));
                 return true;
             }
-            client.execPROT("P");
-            client.enterLocalPassiveMode();
             ui.get().access(() -> setConnectDisconnect(false));
             doPath(path.getValue());
             return true;
@@ -234,11 +193,11 @@ public class SdCardView extends VerticalLayout implements HasUrlParameter<String
         }
         final Optional<UI> ui = getUI();
         runCallable(() -> {
-            if (!client.changeWorkingDirectory(value)) {
+            if (!getTimer("cwd").recordCallable(() -> client.changeWorkingDirectory(value))) {
                 ui.get().access(() -> showError("Change Directory Failed"));
                 return false;
             }
-            final List<FTPFile> files = Arrays.asList(client.listFiles());
+            final List<FTPFile> files = Arrays.asList(getTimer("list").recordCallable(client::listFiles));
             ui.get().access(() -> grid.setItems(files));
             return true;
         });
@@ -256,7 +215,7 @@ public class SdCardView extends VerticalLayout implements HasUrlParameter<String
 
     private Component buildToolbar() {
         comboBox.setItemLabelGenerator(BambuPrinters.PrinterDetail::name);
-        comboBox.setItems(printers.getPrintersDetail().stream().sorted(Comparator.comparing(BambuPrinters.PrinterDetail::name)).toList());
+        comboBox.setItems(printers.getPrintersDetail());
         comboBox.addValueChangeListener(l -> buildList(l.getValue()));
         setConnectDisconnect(true);
         connect.setEnabled(false);
@@ -307,8 +266,8 @@ public class SdCardView extends VerticalLayout implements HasUrlParameter<String
         final StreamResource stream = new StreamResource(fileName, () -> {
             try {
                 client.setFileType(FTP.BINARY_FILE_TYPE);
-                return new BufferedInputStream(client.retrieveFileStream(file.getName()));
-            } catch (IOException ex) {
+                return new BufferedInputStream(getTimer("retrieve").recordCallable(() -> client.retrieveFileStream(file.getName())));
+            } catch (Exception ex) {
                 log.errorf(ex, "Cannot find file: %s - %s", file.getName(), ex.getMessage());
             }
             return null;
@@ -377,7 +336,7 @@ public class SdCardView extends VerticalLayout implements HasUrlParameter<String
         showNotification("Uploading to Printer");
         runCallable(() -> {
             client.setFileType(FTP.BINARY_FILE_TYPE);
-            client.storeFile(event.getFileName(), inputStream);
+            getTimer("store").recordCallable(() -> client.storeFile(event.getFileName(), inputStream));
             ui.get().access(() -> showNotification("Uploaded: %s".formatted(event.getFileName())));
             doRefresh();
             return true;
@@ -393,9 +352,9 @@ public class SdCardView extends VerticalLayout implements HasUrlParameter<String
             runCallable(() -> {
                 final boolean ok;
                 if (file.isDirectory()) {
-                    ok = client.removeDirectory(file.getName());
+                    ok = getTimer("rmdir").recordCallable(() -> client.removeDirectory(file.getName()));
                 } else if (file.isFile()) {
-                    ok = client.deleteFile(file.getName());
+                    ok = getTimer("delete").recordCallable(() -> client.deleteFile(file.getName()));
                 } else {
                     ok = true;
                 }
@@ -426,7 +385,7 @@ public class SdCardView extends VerticalLayout implements HasUrlParameter<String
             if (fileName.endsWith(BambuConst.FILE_GCODE)) {
                 comboBox.getValue().printer().commandPrintGCodeFile(fileName);
             } else if (fileName.endsWith(BambuConst.FILE_3MF)) {
-                comboBox.getValue().printer().commandPrintProjectFile(fileName, plateId.getValue(), useAMS.getValue(), timelapse.getValue(), bedLevelling.getValue());
+                comboBox.getValue().printer().commandPrintProjectFile(fileName, plateId.getValue(), useAMS.getValue(), timelapse.getValue(), bedLevelling.getValue(), List.of());
             } else {
                 showError("Unknown File: %s".formatted(fileName));
             }
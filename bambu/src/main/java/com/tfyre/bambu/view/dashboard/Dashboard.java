@@ -1,12 +1,15 @@
 package com.tfyre.bambu.view.dashboard;
 
-import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.BambuConfig;
 import com.tfyre.bambu.MainLayout;
 import com.tfyre.bambu.SystemRoles;
+import com.tfyre.bambu.metrics.BambuMetrics;
 import com.vaadin.flow.component.AttachEvent;
-import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.ClientCallable;
 import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.UI;
+import com.vaadin.flow.router.BeforeEnterEvent;
+import com.vaadin.flow.router.BeforeEnterObserver;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import jakarta.inject.Inject;
@@ -16,24 +19,33 @@ import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
 import org.jboss.logging.Logger;
 import com.tfyre.bambu.printer.BambuPrinters;
 import com.vaadin.flow.component.orderedlayout.FlexLayout;
-import com.vaadin.flow.theme.lumo.LumoUtility;
 import jakarta.annotation.security.RolesAllowed;
 import java.time.Duration;
 
 /**
+ * Printers are laid out as placeholders, cards are only built and updated while in the viewport, notifications run for every printer
  *
  * @author Francois Steyn - (fsteyn@tfyre.co.za)
  */
 @Route(value = "", layout = MainLayout.class)
 @PageTitle("Dashboard")
 @RolesAllowed({ SystemRoles.ROLE_ADMIN, SystemRoles.ROLE_NORMAL })
-public class Dashboard extends FlexLayout {
+public class Dashboard extends FlexLayout implements BeforeEnterObserver {
 
     private static final Duration INTERVAL = Duration.ofSeconds(1);
+    private static final String TILES = "tiles";
+    private static final String OBSERVER = """
+            const root = $0;
+            if (root.__slotObserver) {
+                root.__slotObserver.disconnect();
+            }
+            root.__slotObserver = new IntersectionObserver(entries => entries.forEach(e =>
+                root.$server.onVisible(parseInt(e.target.getAttribute('%s')), e.isIntersecting)), { rootMargin: '300px' });
+            Array.from(root.children).forEach(c => root.__slotObserver.observe(c));
+            """.formatted(DashboardSlot.ATTRIBUTE);
 
     @Inject
     Logger log;
@@ -44,25 +56,77 @@ public class Dashboard extends FlexLayout {
     @Inject
     ScheduledExecutorService ses;
 
+    @Inject
+    BambuMetrics metrics;
+
+    @Inject
+    BambuConfig config;
+
+    private final List<DashboardSlot> slots = new ArrayList<>();
+    private final List<DashboardNotifier> notifiers = new ArrayList<>();
+    private final FieldDiff.Stats stats = new FieldDiff.Stats();
     private ScheduledFuture<?> future;
+    private BambuMetrics.UiSession session;
+    private boolean tiles;
+
+    @Override
+    public void beforeEnter(final BeforeEnterEvent event) {
+        tiles = event.getLocation().getQueryParameters().getSingleParameter(TILES)
+                .map(Boolean::parseBoolean)
+                .orElse(config.dashboard().tiles());
+    }
 
     @Override
     protected void onAttach(final AttachEvent attachEvent) {
-        final List<Runnable> runnables = new ArrayList<>();
         final UI ui = attachEvent.getUI();
         addClassName("dashboard-view");
+        removeAll();
+        slots.clear();
+        notifiers.clear();
 
-        printers.getPrinters()
-                .stream().sorted(Comparator.comparing(BambuPrinter::getName))
-                .map(printer -> handlePrinter(printer, runnables::add))
-                .forEach(this::add);
-        future = ses.scheduleAtFixedRate(() -> ui.access(() -> runnables.forEach(Runnable::run)), 0, INTERVAL.getSeconds(), TimeUnit.SECONDS);
+        printers.getPrinters().forEach(printer -> {
+            final DashboardSlot slot = new DashboardSlot(printer, slots.size(), tiles, stats);
+            slots.add(slot);
+            notifiers.add(new DashboardNotifier(printer));
+            add(slot.getComponent());
+        });
+        getElement().executeJs(OBSERVER, getElement());
+        session = metrics.newUiSession("dashboard");
+        future = ses.scheduleAtFixedRate(() -> ui.access(() -> session.push(this::update)), 0, INTERVAL.getSeconds(), TimeUnit.SECONDS);
     }
 
-    private Component handlePrinter(final BambuPrinter printer, final Consumer<Runnable> consumer) {
-        final DashboardPrinter card = new DashboardPrinter(printer);
-        consumer.accept(card::update);
-        return card.build();
+    private void update() {
+        notifiers.forEach(DashboardNotifier::update);
+        slots.forEach(DashboardSlot::update);
+        session.fields(stats.getApplied(), stats.getSkipped(), stats.getAppliedChars(), stats.getSkippedChars());
+        stats.reset();
+    }
+
+    @ClientCallable
+    public void onVisible(final int index, final boolean visible) {
+        if (index < 0 || index >= slots.size()) {
+            return;
+        }
+        slots.get(index).setVisible(visible);
+        if (visible) {
+            releaseCards();
+        }
+    }
+
+    /**
+     * Keeps the number of built cards within the per tab budget by releasing the longest hidden ones
+     */
+    private void releaseCards() {
+        final List<DashboardSlot> built = slots.stream().filter(DashboardSlot::isBuilt).toList();
+        final int excess = built.size() - config.dashboard().maxCards();
+        if (excess <= 0) {
+            return;
+        }
+        built.stream()
+                .filter(s -> !s.isVisible())
+                .sorted(Comparator.comparingLong(DashboardSlot::getLastVisible))
+                .limit(excess)
+                .forEach(DashboardSlot::release);
     }
 
     @Override
@@ -71,6 +135,9 @@ public class Dashboard extends FlexLayout {
         if (future != null) {
             future.cancel(true);
         }
+        if (session != null) {
+            session.close();
+        }
     }
 
 }
@@ -0,0 +1,71 @@
+package com.tfyre.bambu.view.dashboard;
+
+import com.tfyre.bambu.printer.BambuConst;
+import com.tfyre.bambu.printer.BambuErrors;
+import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.printer.HmsEvent;
+import com.tfyre.bambu.view.ShowInterface;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Error, HMS and idle notifications for one printer, runs for every printer on the tab whether its card is built or not
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+class DashboardNotifier implements ShowInterface {
+
+    private final BambuPrinter printer;
+    private int lastError = 0;
+    private List<HmsEvent> lastHms = List.of();
+    private String printType = BambuConst.PRINT_TYPE_IDLE;
+
+    DashboardNotifier(final BambuPrinter printer) {
+        this.printer = printer;
+    }
+
+    void update() {
+        if (printer.getStatus().isEmpty()) {
+            return;
+        }
+        processError();
+        processHms();
+        processPrintType();
+    }
+
+    private void processError() {
+        final int error = printer.getPrintError();
+        if (error == lastError) {
+            return;
+        }
+        lastError = error;
+        if (error != 0) {
+            final String known = BambuErrors.findPrinterError(error);
+            showError("%s error: %s".formatted(printer.getName(), known != null ? known : "Unknown error %s".formatted(Integer.toHexString(error))));
+        }
+    }
+
+    private void processHms() {
+        final List<HmsEvent> hms = printer.getHms();
+        if (hms == lastHms) {
+            return;
+        }
+        lastHms = hms;
+        if (!hms.isEmpty()) {
+            showNotification("%s: HMS %s".formatted(printer.getName(), hms.stream().map(HmsEvent::getDescription).collect(Collectors.joining(", "))));
+        }
+    }
+
+    private void processPrintType() {
+        final String _printType = printer.getPrintType();
+        if (printType.equals(_printType)) {
+            return;
+        }
+        printType = _printType;
+        if (BambuConst.PRINT_TYPE_IDLE.equals(printType)) {
+            //FIXME: show green notice + print complete
+            showNotification("%s: Printer Idle".formatted(printer.getName()));
+        }
+    }
+
+}
@@ -3,12 +3,16 @@ package com.tfyre.bambu.view.dashboard;
 import com.tfyre.bambu.SystemRoles;
 import com.tfyre.bambu.YesNoCancelDialog;
 import com.tfyre.bambu.model.AmsSingle;
+import com.tfyre.bambu.metrics.MessageTrace;
 import com.tfyre.bambu.printer.BambuPrinter;
 import com.tfyre.bambu.model.Print;
 import com.tfyre.bambu.model.Tray;
 import com.tfyre.bambu.printer.BambuConst;
 import com.tfyre.bambu.printer.BambuConst.Speed;
 import com.tfyre.bambu.printer.BambuErrors;
+import com.tfyre.bambu.printer.HmsEvent;
+import com.tfyre.bambu.printer.PrinterEta;
+import com.tfyre.bambu.printer.PrinterHealth;
 import com.tfyre.bambu.security.SecurityUtils;
 import com.tfyre.bambu.view.LogsView;
 import com.tfyre.bambu.view.ShowInterface;
@@ -36,6 +40,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 import org.jboss.logging.Logger;
 
 /**
@@ -79,18 +84,29 @@ public class DashboardPrinter implements ShowInterface {
     private final Image thumbnail = new Image();
     private final Span thumbnailUpdated = newSpan();
     private final Div printerName = new Div();
+    private final VerticalLayout content = new VerticalLayout();
+    private final FieldDiff diff;
+    private PrinterHealth.State healthState;
     private String thumbnailId;
     private boolean built;
     private boolean processFull = true;
+    private BambuPrinter.Message lastMessage;
     private final boolean isAdmin;
     private int lastError = 0;
+    private String errorString = "";
+    private List<HmsEvent> lastHms = List.of();
+    private String hmsString = "";
 
     private final Map<String, AmsHeader> amsHeaders = new HashMap<>();
     private final Map<String, AmsFilament> amsFilaments = new HashMap<>();
-    private String printType = BambuConst.PRINT_TYPE_IDLE;
 
     public DashboardPrinter(final BambuPrinter printer) {
+        this(printer, new FieldDiff.Stats());
+    }
+
+    DashboardPrinter(final BambuPrinter printer, final FieldDiff.Stats stats) {
         this.printer = printer;
+        this.diff = new FieldDiff(stats);
         progressBar = newProgressBar();
         statusBox = newStatusBox();
         isAdmin = SecurityUtils.userHasAccess(SystemRoles.ROLE_ADMIN);
@@ -115,7 +131,7 @@ public class DashboardPrinter implements ShowInterface {
     }
 
     private void setTemperature(final Span span, final double value) {
-        span.setText("%.2fºC".formatted(value));
+        diff.setText(span, value, () -> "%.2fºC".formatted(value));
     }
 
     private double parseDouble(final String value) {
@@ -149,21 +165,32 @@ public class DashboardPrinter implements ShowInterface {
         return Images.AMS_HUMIDITY_0;
     }
 
+    private static String getRemain(final Tray tray) {
+        return !tray.hasRemain() || tray.getRemain() < 0 ? "" : "%d%% remaining".formatted(tray.getRemain());
+    }
+
     private void processAms(final com.tfyre.bambu.model.Ams ams) {
         ams.getAmsList().forEach(single -> {
             Optional.ofNullable(amsHeaders.get(getAmsHeaderId(single.getId()))).ifPresent(header -> {
                 setTemperature(header.temperature(), parseDouble(single.getTemp()));
-                header.humidity().setSrc(getHumidityImage(single.getHumidity()).getImage());
+                diff.setSrc(header.humidity(), getHumidityImage(single.getHumidity()).getImage());
             });
 
             single.getTrayList().forEach(tray -> {
                 Optional.ofNullable(amsFilaments.get(getFilamentTrayId(single, tray))).ifPresent(filament -> {
                     if (!tray.hasTrayInfoIdx()) {
-                        filament.type().setText("Empty");
+                        // only the remain of a loaded tray changed
+                        if (tray.hasRemain()) {
+                            diff.setTitle(filament.type(), getRemain(tray));
+                            return;
+                        }
+                        diff.setText(filament.type(), "Empty");
+                        diff.setTitle(filament.type(), "");
                         return;
                     }
-                    filament.type().setText(BambuConst.getFilament(tray.getTrayInfoIdx()).orElse("Unknown"));
-                    filament.color().getStyle().setBackgroundColor("#%s".formatted(tray.getTrayColor()));
+                    diff.setText(filament.type(), tray.getTrayInfoIdx(), () -> BambuConst.getFilament(tray.getTrayInfoIdx()).orElse("Unknown"));
+                    diff.setBackgroundColor(filament.color(), "#%s".formatted(tray.getTrayColor()));
+                    diff.setTitle(filament.type(), getRemain(tray));
                 });
             });
         });
@@ -174,12 +201,12 @@ public class DashboardPrinter implements ShowInterface {
             setTemperature(header.temperature(), parseDouble(tray.getTrayTemp()));
         });
         Optional.ofNullable(amsFilaments.get(getTrayId(tray.getId()))).ifPresent(filament -> {
-            filament.type().setText(BambuConst.getFilament(tray.getTrayInfoIdx()).orElse("Unknown"));
-            filament.color().getStyle().setBackgroundColor("#%s".formatted(tray.getTrayColor()));
+            diff.setText(filament.type(), tray.getTrayInfoIdx(), () -> BambuConst.getFilament(tray.getTrayInfoIdx()).orElse("Unknown"));
+            diff.setBackgroundColor(filament.color(), "#%s".formatted(tray.getTrayColor()));
         });
     }
 
-    private String formatTime(final Duration duration) {
+    static String formatTime(final Duration duration) {
         final StringBuilder sb = new StringBuilder();
         final long days = duration.toDays();
         if (days > 0) {
@@ -197,29 +224,33 @@ public class DashboardPrinter implements ShowInterface {
     private void processPrint(final BambuPrinter.Message message, final Print print) {
         //Percetage
         if (print.hasMcPercent()) {
-            progressBar.setIndeterminate(false);
-            progressBar.setValue(Math.min(print.getMcPercent(), 100));
+            if (progressBar.isIndeterminate()) {
+                progressBar.setIndeterminate(false);
+            }
+            diff.setValue(progressBar, Math.min(print.getMcPercent(), 100));
         }
 
         //FileName
         if (print.hasGcodeFile()) {
-            progressFile.setText(print.getGcodeFile());
+            diff.setText(progressFile, print.getGcodeFile());
         }
 
         //Time
         if (print.hasMcRemainingTime()) {
-            progressTime.setText("%s remaining".formatted(formatTime(Duration.ofMinutes(print.getMcRemainingTime()))));
+            final int remaining = printer.getEta().getEstimate().map(PrinterEta.Estimate::remaining).orElse(print.getMcRemainingTime());
+            diff.setText(progressTime, remaining, () -> "%s remaining".formatted(formatTime(Duration.ofMinutes(remaining))));
         }
 
         //Layers
         if (print.hasLayerNum()) {
-            progressLayer.setText("Layer %d / %d".formatted(print.getLayerNum(), printer.getTotalLayerNum()));
+            final int total = printer.getTotalLayerNum();
+            diff.setText(progressLayer, List.of(print.getLayerNum(), total), () -> "Layer %d / %d".formatted(print.getLayerNum(), total));
         }
 
         //Bed & Target Temperature
         if (print.hasBedTemper()) {
             setTemperature(bed, print.getBedTemper());
-            bedImage.setSrc(print.getBedTemper() > 0.0 ? Images.MONITOR_BED_TEMP_ACTIVE.getImage() : Images.MONITOR_BED_TEMP.getImage());
+            diff.setSrc(bedImage, print.getBedTemper() > 0.0 ? Images.MONITOR_BED_TEMP_ACTIVE.getImage() : Images.MONITOR_BED_TEMP.getImage());
         }
         if (print.hasBedTargetTemper()) {
             setTemperature(bedTarget, print.getBedTargetTemper());
@@ -228,7 +259,7 @@ public class DashboardPrinter implements ShowInterface {
         //Nozzle & Target Temperature
         if (print.hasNozzleTemper()) {
             setTemperature(nozzle, print.getNozzleTemper());
-            nozzleImage.setSrc(print.getNozzleTemper() > 0.0 ? Images.MONITOR_NOZZLE_TEMP_ACTIVE.getImage() : Images.MONITOR_NOZZLE_TEMP.getImage());
+            diff.setSrc(nozzleImage, print.getNozzleTemper() > 0.0 ? Images.MONITOR_NOZZLE_TEMP_ACTIVE.getImage() : Images.MONITOR_NOZZLE_TEMP.getImage());
         }
         if (print.hasNozzleTargetTemper()) {
             setTemperature(nozzleTarget, print.getNozzleTargetTemper());
@@ -241,7 +272,7 @@ public class DashboardPrinter implements ShowInterface {
 
         //Speed
         if (print.hasSpdLvl()) {
-            speed.setText(Speed.fromSpeed(print.getSpdLvl()).getDescription());
+            diff.setText(speed, print.getSpdLvl(), () -> Speed.fromSpeed(print.getSpdLvl()).getDescription());
         }
 
         if (print.hasAms() && print.getAms().getAmsCount() > 0) {
@@ -254,10 +285,13 @@ public class DashboardPrinter implements ShowInterface {
                 .filter(lr -> BambuConst.CHAMBER_LIGHT.equals(lr.getNode()))
                 .findFirst()
                 .ifPresent(lr -> {
-                    monitorLampText.setText(lr.getMode());
-                    monitorLamp.setSrc(BambuConst.LightMode.ON.getValue().equals(lr.getMode()) ? Images.MONITOR_LAMP_ON.getImage() : Images.MONITOR_LAMP_OFF.getImage());
+                    diff.setText(monitorLampText, lr.getMode());
+                    diff.setSrc(monitorLamp, BambuConst.LightMode.ON.getValue().equals(lr.getMode()) ? Images.MONITOR_LAMP_ON.getImage() : Images.MONITOR_LAMP_OFF.getImage());
                 });
 
+        if (statusBox.getParent().isEmpty()) {
+            return;
+        }
         statusBox.setValue(
                 """
                 Command: %s
@@ -284,56 +318,63 @@ public class DashboardPrinter implements ShowInterface {
 
     private void processError(final BambuPrinter.Message message) {
         final int error = printer.getPrintError();
-        final String errorString;
-        final boolean hasError;
-        if (error == 0) {
-            hasError = false;
-            errorString = "";
-        } else {
-            hasError = true;
-            errorString = BambuErrors.getPrinterError(error)
-                    .orElseGet(() -> "Unknown error %s".formatted(Integer.toHexString(error)));
-        }
-
+        final boolean hasError = error != 0;
         if (error != lastError) {
             lastError = error;
-            if (lastError != 0) {
-                showError("%s error: %s".formatted(printer.getName(), errorString));
+            if (hasError) {
+                final String known = BambuErrors.findPrinterError(error);
+                errorString = known != null ? known : "Unknown error %s".formatted(Integer.toHexString(error));
+            } else {
+                errorString = "";
             }
         }
 
-        final String extra = hasError ? " / Print Error %s".formatted(errorString) : "";
-        printerName.setTitle("Last Updated: %s%s".formatted(DTF.format(message.lastUpdated()), extra));
+        final String health = printer.getHealth().getState() == PrinterHealth.State.HEALTHY
+                ? "" : " / %s %s".formatted(printer.getHealth().getState(), printer.getHealth().getReason());
+        final List<HmsEvent> hms = printer.getHms();
+        if (hms != lastHms) {
+            lastHms = hms;
+            hmsString = hms.isEmpty() ? "" : " / HMS %s".formatted(hms.stream().map(HmsEvent::getDescription).collect(Collectors.joining(", ")));
+        }
+        final String extra = (hasError ? " / Print Error %s".formatted(errorString) : "") + hmsString + health;
+        diff.setTitle(printerName, "Last Updated: %s%s".formatted(DTF.format(message.lastUpdated()), extra));
         if (hasError) {
             printerName.addClassName(LumoUtility.Background.ERROR_50);
         } else {
             printerName.removeClassName(LumoUtility.Background.ERROR_50);
         }
+        printerName.setClassName(LumoUtility.Background.WARNING_10, !hasError && !hms.isEmpty());
     }
 
-    private void processPrintType() {
-        final String _printType = printer.getPrintType();
-        if (printType.equals(_printType)) {
+    private void processMessage(final BambuPrinter.Message message) {
+        if (message == lastMessage) {
+            processError(message);
             return;
         }
-        printType = _printType;
-        if (BambuConst.PRINT_TYPE_IDLE.equals(printType)) {
-            //FIXME: show green notice + print complete
-            showNotification("%s: Printer Idle".formatted(printer.getName()));
-        }
-    }
-
-    private void processMessage(final BambuPrinter.Message message) {
+        lastMessage = message;
         process(message.message().hasPrint(), message, message.message().getPrint(), this::processPrint);
 
         processError(message);
-        processPrintType();
+        message.trace().ifPresent(MessageTrace::uiApplied);
+    }
+
+    private void processHealth() {
+        final PrinterHealth.State state = printer.getHealth().getState();
+        if (state == healthState) {
+            return;
+        }
+        if (healthState != null) {
+            content.removeClassName(healthState.getCssName());
+        }
+        healthState = state;
+        content.addClassName(healthState.getCssName());
     }
 
     public void update() {
         if (!built) {
             return;
         }
+        processHealth();
         if (processFull) {
             printer.getFullStatus().ifPresent(message -> {
                 processFull = false;
@@ -577,7 +618,6 @@ public class DashboardPrinter implements ShowInterface {
     }
 
     private Component createContent(final Component... components) {
-        final VerticalLayout content = new VerticalLayout();
         content.addClassName("dashboard-printer");
         content.setPadding(false);
         content.setSpacing(false);
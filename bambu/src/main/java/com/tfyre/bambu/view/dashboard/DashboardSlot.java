@@ -0,0 +1,87 @@
+package com.tfyre.bambu.view.dashboard;
+
+import com.tfyre.bambu.printer.BambuPrinter;
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.html.Div;
+
+/**
+ * Placeholder for one printer on the dashboard, the card is only built while the slot is in (or near) the viewport
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+class DashboardSlot {
+
+    static final String ATTRIBUTE = "data-slot";
+
+    private final BambuPrinter printer;
+    private final boolean tile;
+    private final FieldDiff.Stats stats;
+    private final Div content = new Div();
+    private Runnable updater;
+    private boolean visible;
+    private long lastVisible;
+
+    DashboardSlot(final BambuPrinter printer, final int index, final boolean tile, final FieldDiff.Stats stats) {
+        this.printer = printer;
+        this.tile = tile;
+        this.stats = stats;
+        content.addClassNames("dashboard-slot", tile ? "tile" : "card");
+        content.getElement().setAttribute(ATTRIBUTE, Integer.toString(index));
+    }
+
+    Component getComponent() {
+        return content;
+    }
+
+    boolean isBuilt() {
+        return updater != null;
+    }
+
+    boolean isVisible() {
+        return visible;
+    }
+
+    long getLastVisible() {
+        return lastVisible;
+    }
+
+    void setVisible(final boolean visible) {
+        this.visible = visible;
+        lastVisible = System.nanoTime();
+        if (visible && !isBuilt()) {
+            build();
+        }
+        if (visible) {
+            update();
+        }
+    }
+
+    private void build() {
+        if (tile) {
+            final DashboardTile result = new DashboardTile(printer, stats);
+            content.add(result.build());
+            updater = result::update;
+        } else {
+            final DashboardPrinter result = new DashboardPrinter(printer, stats);
+            content.add(result.build());
+            updater = result::update;
+        }
+        content.addClassName("built");
+    }
+
+    /**
+     * Drops the card, the placeholder keeps its place in the layout
+     */
+    void release() {
+        content.removeAll();
+        content.removeClassName("built");
+        updater = null;
+    }
+
+    void update() {
+        if (visible && updater != null) {
+            updater.run();
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.tfyre.bambu.view.dashboard;
+
+import com.tfyre.bambu.model.Print;
+import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.printer.PrinterEta;
+import com.tfyre.bambu.printer.PrinterHealth;
+import com.tfyre.bambu.printer.PrinterState;
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.component.html.Span;
+import java.time.Duration;
+
+/**
+ * Compact printer tile for large farms: three elements per printer instead of a full {@link DashboardPrinter} card
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class DashboardTile {
+
+    private final BambuPrinter printer;
+    private final Div content = new Div();
+    private final Span name = new Span();
+    private final Span detail = new Span("---");
+    private BambuPrinter.Message lastMessage;
+    private String stateCss;
+    private String healthCss;
+    private final FieldDiff diff;
+    private int percent = -1;
+    private int remaining = -1;
+
+    public DashboardTile(final BambuPrinter printer) {
+        this(printer, new FieldDiff.Stats());
+    }
+
+    DashboardTile(final BambuPrinter printer, final FieldDiff.Stats stats) {
+        this.printer = printer;
+        this.diff = new FieldDiff(stats);
+    }
+
+    public Component build() {
+        content.addClassName("dashboard-tile");
+        name.addClassName("name");
+        name.setText(printer.getName());
+        content.add(name, detail);
+        return content;
+    }
+
+    private void processPrint(final Print print) {
+        if (print.hasMcPercent()) {
+            percent = print.getMcPercent();
+        }
+        if (print.hasMcRemainingTime()) {
+            remaining = print.getMcRemainingTime();
+        }
+    }
+
+    private void processMessage(final BambuPrinter.Message message) {
+        if (message == lastMessage) {
+            return;
+        }
+        lastMessage = message;
+        if (message.message().hasPrint()) {
+            processPrint(message.message().getPrint());
+        }
+    }
+
+    private String replaceClass(final String previous, final String next) {
+        if (next.equals(previous)) {
+            return previous;
+        }
+        if (previous != null) {
+            content.removeClassName(previous);
+        }
+        content.addClassName(next);
+        return next;
+    }
+
+    private String getText(final PrinterState state) {
+        if (state != PrinterState.PRINTING || percent < 0) {
+            return state.name();
+        }
+        if (remaining < 0) {
+            return "%d%%".formatted(percent);
+        }
+        final int minutes = printer.getEta().getEstimate().map(PrinterEta.Estimate::remaining).orElse(remaining);
+        return "%d%% - %s".formatted(percent, DashboardPrinter.formatTime(Duration.ofMinutes(minutes)));
+    }
+
+    public void update() {
+        if (lastMessage == null) {
+            printer.getFullStatus().ifPresent(this::processMessage);
+        }
+        printer.getStatus().ifPresent(this::processMessage);
+
+        final PrinterState state = printer.getState();
+        final PrinterHealth health = printer.getHealth();
+        stateCss = replaceClass(stateCss, "state-%s".formatted(state.name().toLowerCase()));
+        healthCss = replaceClass(healthCss, health.getState().getCssName());
+
+        final String text = getText(state);
+        diff.setText(detail, text);
+        final String hms = printer.getHms().isEmpty() ? "" : " / HMS %d".formatted(printer.getHms().size());
+        diff.setTitle(content, health.getState() == PrinterHealth.State.HEALTHY ? text + hms : "%s%s / %s".formatted(text, hms, health.getReason()));
+    }
+
+}
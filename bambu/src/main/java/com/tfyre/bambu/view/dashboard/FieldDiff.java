@@ -0,0 +1,115 @@
+package com.tfyre.bambu.view.dashboard;
+
+import com.vaadin.flow.component.HasStyle;
+import com.vaadin.flow.component.HasText;
+import com.vaadin.flow.component.HtmlComponent;
+import com.vaadin.flow.component.html.Image;
+import com.vaadin.flow.component.progressbar.ProgressBar;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Last rendered value per component property of one card, unchanged values never touch the state tree and are not pushed
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+class FieldDiff {
+
+    private final Map<Object, Map<String, Rendered>> values = new IdentityHashMap<>();
+    private final Stats stats;
+
+    FieldDiff(final Stats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * The value is only formatted when raw differs from the previous call
+     */
+    private void apply(final Object component, final String property, final Object raw, final Supplier<String> formatter, final Consumer<String> setter) {
+        final Map<String, Rendered> properties = values.computeIfAbsent(component, k -> new HashMap<>(4));
+        final Rendered last = properties.get(property);
+        if (last != null && Objects.equals(last.raw(), raw)) {
+            stats.skipped++;
+            stats.skippedChars += last.value().length();
+            return;
+        }
+        final String value = formatter.get();
+        properties.put(property, new Rendered(raw, value));
+        if (last != null && last.value().equals(value)) {
+            stats.skipped++;
+            stats.skippedChars += value.length();
+            return;
+        }
+        stats.applied++;
+        stats.appliedChars += value.length();
+        setter.accept(value);
+    }
+
+    void setText(final HasText component, final Object raw, final Supplier<String> formatter) {
+        apply(component, "text", raw, formatter, component::setText);
+    }
+
+    void setText(final HasText component, final String text) {
+        apply(component, "text", text, () -> text, component::setText);
+    }
+
+    void setTitle(final HtmlComponent component, final String title) {
+        apply(component, "title", title, () -> title, component::setTitle);
+    }
+
+    void setSrc(final Image component, final String src) {
+        apply(component, "src", src, () -> src, component::setSrc);
+    }
+
+    void setBackgroundColor(final HasStyle component, final String color) {
+        apply(component, "background-color", color, () -> color, component.getStyle()::setBackgroundColor);
+    }
+
+    void setValue(final ProgressBar component, final double value) {
+        apply(component, "value", value, () -> Double.toString(value), v -> component.setValue(value));
+    }
+
+    private record Rendered(Object raw, String value) {
+
+    }
+
+    /**
+     * Counters shared by all cards of one dashboard, only touched from the UI thread
+     */
+    static class Stats {
+
+        private long applied;
+        private long skipped;
+        private long appliedChars;
+        private long skippedChars;
+
+        long getApplied() {
+            return applied;
+        }
+
+        long getSkipped() {
+            return skipped;
+        }
+
+        long getAppliedChars() {
+            return appliedChars;
+        }
+
+        long getSkippedChars() {
+            return skippedChars;
+        }
+
+        void reset() {
+            applied = 0;
+            skipped = 0;
+            appliedChars = 0;
+            skippedChars = 0;
+        }
+
+    }
+
+}
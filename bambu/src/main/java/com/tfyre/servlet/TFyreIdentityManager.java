@@ -9,11 +9,14 @@ import io.quarkus.undertow.runtime.QuarkusUndertowAccount;
 import io.undertow.security.idm.Account;
 import io.undertow.security.idm.Credential;
 import io.undertow.security.idm.IdentityManager;
+import io.undertow.servlet.handlers.ServletRequestContext;
 import jakarta.annotation.Priority;
 import jakarta.enterprise.inject.Alternative;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
+import java.util.Optional;
 import org.jboss.logging.Logger;
 
 /**
@@ -48,7 +51,12 @@ public class TFyreIdentityManager implements IdentityManager {
         log.debugf("verify2: %s - %s", id, credential.getClass());
 
         if (credential instanceof io.undertow.security.idm.PasswordCredential password) {
-            return authenticateBlocking(new UsernamePasswordAuthenticationRequest(id, new PasswordCredential(password.getPassword())));
+            final UsernamePasswordAuthenticationRequest request = new UsernamePasswordAuthenticationRequest(id, new PasswordCredential(password.getPassword()));
+            Optional.ofNullable(ServletRequestContext.current())
+                    .map(ServletRequestContext::getOriginalRequest)
+                    .map(HttpServletRequest::getRemoteAddr)
+                    .ifPresent(address -> request.setAttribute(TFyreIdentityProvider.ATTRIBUTE_ADDRESS, address));
+            return authenticateBlocking(request);
         }
 
         return null;
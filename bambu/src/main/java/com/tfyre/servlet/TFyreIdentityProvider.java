@@ -6,48 +6,102 @@ import io.quarkus.security.AuthenticationFailedException;
 import io.quarkus.security.identity.AuthenticationRequestContext;
 import io.quarkus.security.identity.IdentityProvider;
 import io.quarkus.security.identity.SecurityIdentity;
+import io.quarkus.security.identity.request.AuthenticationRequest;
 import io.quarkus.security.identity.request.UsernamePasswordAuthenticationRequest;
 import io.quarkus.security.runtime.QuarkusPrincipal;
 import io.quarkus.security.runtime.QuarkusSecurityIdentity;
+import io.quarkus.vertx.http.runtime.security.HttpSecurityUtils;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.web.RoutingContext;
 import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
 import java.security.Security;
 import java.security.spec.InvalidKeySpecException;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.jboss.logging.Logger;
 import org.wildfly.security.credential.PasswordCredential;
 import org.wildfly.security.evidence.PasswordGuessEvidence;
 import org.wildfly.security.password.util.ModularCrypt;
 
 /**
+ * Basic auth and login against bambu.users.
+ * <p>
+ * A bcrypt check costs tens of milliseconds, so verified logins are remembered for bambu.auth.cache-ttl under an HMAC of user and password
+ * with a key that only lives in memory. Cache hits do not block a worker thread. Failed password checks are limited per user and per
+ * client address, a check over the limit fails without running bcrypt. A successful check does not count, but failed checks for a user
+ * name block its password checks for the rest of the window no matter who sent them, logins still in the cache are not affected.
  *
  * @author Francois Steyn - (fsteyn@tfyre.co.za)
  */
 @Singleton
 public class TFyreIdentityProvider implements IdentityProvider<UsernamePasswordAuthenticationRequest> {
 
+    /**
+     * Client address of requests that do not pass through vert.x, eg the servlet login
+     */
+    public static final String ATTRIBUTE_ADDRESS = "com.tfyre.address";
+
+    private static final String HMAC = "HmacSHA256";
+    private static final int MAX_LIMITERS = 10_000;
+
+    @Inject
+    Logger log;
     @Inject
     BambuConfig config;
 
-    private final Map<String, User> map = new HashMap<>();
+    private final SecretKeySpec key = newKey();
+    private final Map<String, Verified> verified = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Attempts> attempts = new ConcurrentHashMap<>();
+    private volatile Map<String, User> map = Map.of();
+
+    private static SecretKeySpec newKey() {
+        final byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return new SecretKeySpec(bytes, HMAC);
+    }
 
     @PostConstruct
     public void postConstruct() {
-        map.clear();
-        map.putAll(config.users().entrySet()
-                .stream()
-                .collect(Collectors.toMap(e -> e.getKey().toLowerCase(), e -> {
+        final long start = System.nanoTime();
+        // bcrypt is slow on purpose, hash plain text passwords on all cores
+        map = config.users().entrySet()
+                .parallelStream()
+                .collect(Collectors.toUnmodifiableMap(e -> e.getKey().toLowerCase(), e -> {
                     String password = e.getValue().password();
                     if (ModularCrypt.identifyAlgorithm(password.toCharArray()) == null) {
                         password = BcryptUtil.bcryptHash(password);
                     }
                     return new User(password, e.getValue().role());
-                }))
-        );
+                }));
+        invalidate();
+        log.debugf("%d users loaded in %dms", map.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Forgets all verified logins, users replaced by a reload are never matched by old entries either
+     */
+    public void invalidate() {
+        synchronized (verified) {
+            verified.clear();
+        }
     }
 
     @Override
@@ -57,17 +111,123 @@ public class TFyreIdentityProvider implements IdentityProvider<UsernamePasswordA
 
     @Override
     public Uni<SecurityIdentity> authenticate(final UsernamePasswordAuthenticationRequest request, final AuthenticationRequestContext context) {
-        return context.runBlocking(() ->
-                Optional.ofNullable(map.get(request.getUsername().toLowerCase()))
-                        .filter(u -> passwordValid(u.password, request.getPassword().getPassword()))
-                        .map(u -> QuarkusSecurityIdentity.builder()
-                                .setPrincipal(new QuarkusPrincipal(request.getUsername()))
-                                .addCredential(request.getPassword())
-                                .addRole(u.role())
-                                .build()
-                        )
-                        .orElseThrow(AuthenticationFailedException::new)
-        );
+        final String username = request.getUsername().toLowerCase();
+        final User user = map.get(username);
+        if (user == null) {
+            return Uni.createFrom().failure(new AuthenticationFailedException());
+        }
+        final char[] password = request.getPassword().getPassword();
+        final String cacheKey = getCacheKey(username, password);
+        if (isVerified(cacheKey, user)) {
+            return Uni.createFrom().item(newIdentity(request, user));
+        }
+        final Optional<String> address = getAddress(request);
+        final List<String> limiters = address.map(a -> List.of("user:" + username, "address:" + a)).orElse(List.of("user:" + username));
+        if (!tryAttempts(limiters)) {
+            log.warnf("%s: too many login attempts from %s", username, address.orElse("unknown"));
+            return Uni.createFrom().failure(new AuthenticationFailedException("Too many attempts"));
+        }
+        return context.runBlocking(() -> {
+            if (!passwordValid(user.password, password)) {
+                throw new AuthenticationFailedException();
+            }
+            // only failed checks count, the attempt is taken up front so parallel guesses are limited as well
+            refund(limiters);
+            putVerified(cacheKey, user);
+            return newIdentity(request, user);
+        });
+    }
+
+    private static SecurityIdentity newIdentity(final UsernamePasswordAuthenticationRequest request, final User user) {
+        return QuarkusSecurityIdentity.builder()
+                .setPrincipal(new QuarkusPrincipal(request.getUsername()))
+                .addCredential(request.getPassword())
+                .addRole(user.role())
+                .build();
+    }
+
+    private static Optional<String> getAddress(final AuthenticationRequest request) {
+        if (request.getAttribute(ATTRIBUTE_ADDRESS) instanceof String address) {
+            return Optional.of(address);
+        }
+        return Optional.ofNullable(HttpSecurityUtils.getRoutingContextAttribute(request))
+                .map(RoutingContext::request)
+                .map(HttpServerRequest::remoteAddress)
+                .map(SocketAddress::hostAddress);
+    }
+
+    private String getCacheKey(final String username, final char[] password) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            final ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+            mac.update(bytes);
+            Arrays.fill(bytes.array(), (byte) 0);
+            return HexFormat.of().formatHex(mac.doFinal());
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    private boolean isVerified(final String cacheKey, final User user) {
+        synchronized (verified) {
+            final Verified entry = verified.get(cacheKey);
+            if (entry == null) {
+                return false;
+            }
+            if (entry.user != user || System.nanoTime() - entry.expires > 0) {
+                verified.remove(cacheKey);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void putVerified(final String cacheKey, final User user) {
+        final BambuConfig.Auth auth = config.auth();
+        if (auth.cacheTtl().isZero() || auth.cacheSize() <= 0) {
+            return;
+        }
+        synchronized (verified) {
+            verified.put(cacheKey, new Verified(user, System.nanoTime() + auth.cacheTtl().toNanos()));
+            final Iterator<String> it = verified.keySet().iterator();
+            while (verified.size() > auth.cacheSize() && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return false when the password check is over the limit
+     */
+    private boolean tryAttempt(final String limiter) {
+        final BambuConfig.Auth auth = config.auth();
+        if (auth.maxAttempts() <= 0) {
+            return true;
+        }
+        final long now = System.nanoTime();
+        final long window = auth.attemptWindow().toNanos();
+        if (attempts.size() > MAX_LIMITERS) {
+            attempts.values().removeIf(a -> a.isExpired(now, window));
+        }
+        return attempts.computeIfAbsent(limiter, k -> new Attempts(now)).tryAttempt(now, window, auth.maxAttempts());
+    }
+
+    private boolean tryAttempts(final List<String> limiters) {
+        for (int i = 0; i < limiters.size(); i++) {
+            if (!tryAttempt(limiters.get(i))) {
+                refund(limiters.subList(0, i));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void refund(final List<String> limiters) {
+        limiters.forEach(limiter -> Optional.ofNullable(attempts.get(limiter)).ifPresent(Attempts::refund));
     }
 
     private boolean passwordValid(final String password, final char[] requestPassword) {
@@ -83,4 +243,40 @@ public class TFyreIdentityProvider implements IdentityProvider<UsernamePasswordA
 
     }
 
+    private record Verified(User user, long expires) {
+
+    }
+
+    /**
+     * Failed and running password checks in the current fixed window
+     */
+    private static final class Attempts {
+
+        private long start;
+        private int count;
+
+        private Attempts(final long start) {
+            this.start = start;
+        }
+
+        private synchronized boolean isExpired(final long now, final long window) {
+            return now - start > window;
+        }
+
+        private synchronized boolean tryAttempt(final long now, final long window, final int max) {
+            if (now - start > window) {
+                start = now;
+                count = 0;
+            }
+            return ++count <= max;
+        }
+
+        private synchronized void refund() {
+            if (count > 0) {
+                count--;
+            }
+        }
+
+    }
+
 }
@@ -0,0 +1,70 @@
+package com.tfyre.bambu.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH json results and fails when a benchmark regressed more than the threshold (in percent)
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class BaselineCompare {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    private static Map<String, Result> read(final String fileName) throws IOException {
+        final Map<String, Result> result = new LinkedHashMap<>();
+        for (final JsonNode node : OM.readTree(new File(fileName))) {
+            final StringBuilder sb = new StringBuilder(node.path("benchmark").asText());
+            node.path("params").fields().forEachRemaining(e -> sb.append(" ").append(e.getKey()).append("=").append(e.getValue().asText()));
+            final JsonNode metric = node.path("primaryMetric");
+            result.put(sb.toString(), new Result(node.path("mode").asText(), metric.path("score").asDouble(), metric.path("scoreUnit").asText()));
+        }
+        return result;
+    }
+
+    private static double getChange(final Result baseline, final Result current) {
+        final double change = (current.score() - baseline.score()) / baseline.score() * 100.0;
+        // throughput: higher is better, everything else: lower is better
+        return "thrpt".equals(current.mode()) ? -change : change;
+    }
+
+    public static void main(final String... args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineCompare baseline.json current.json [threshold%]");
+            System.exit(2);
+        }
+        final Map<String, Result> baseline = read(args[0]);
+        final Map<String, Result> current = read(args[1]);
+        final double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        int regressions = 0;
+        for (final Map.Entry<String, Result> entry : current.entrySet()) {
+            final Result base = baseline.get(entry.getKey());
+            if (base == null || base.score() == 0) {
+                System.out.printf("NEW        %-80s %12.3f %s%n", entry.getKey(), entry.getValue().score(), entry.getValue().unit());
+                continue;
+            }
+            final double change = getChange(base, entry.getValue());
+            final boolean regressed = change > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-10s %-80s %12.3f -> %12.3f %s (%+.1f%%)%n", regressed ? "REGRESSED" : "OK",
+                    entry.getKey(), base.score(), entry.getValue().score(), entry.getValue().unit(), change);
+        }
+        if (regressions > 0) {
+            System.err.printf("%d benchmark(s) regressed more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private record Result(String mode, double score, String unit) {
+
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.tfyre.bambu.benchmark;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.util.JsonFormat;
+import com.tfyre.bambu.model.BambuMessage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Realistic payloads captured from the printers, see server/src/main/resources/json
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class Payloads {
+
+    public static final String STATUS = "status";
+    public static final String FULLSTATUS = "fullstatus";
+
+    private Payloads() {
+    }
+
+    public static BambuMessage parse(final String data) {
+        final BambuMessage.Builder builder = BambuMessage.newBuilder();
+        try {
+            JsonFormat.parser().ignoringUnknownFields().merge(data, builder);
+        } catch (InvalidProtocolBufferException ex) {
+            throw new IllegalStateException("Cannot parse payload - %s".formatted(ex.getMessage()), ex);
+        }
+        return builder.build();
+    }
+
+    public static String get(final String name) {
+        final String fullName = "json/%s.json".formatted(name);
+        try (final InputStream resource = Payloads.class.getClassLoader().getResourceAsStream(fullName)) {
+            if (resource == null) {
+                throw new IllegalStateException("Cannot find %s".formatted(fullName));
+            }
+            return new String(resource.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read %s - %s".formatted(fullName, ex.getMessage()), ex);
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.tfyre.bambu.printer;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Error lookup done by the dashboard on every update tick for every printer with an error
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BambuErrorsBenchmark {
+
+    // known: 0x0300400C (Printing was cancelled), unknown: 0x0BADC0DE
+    @Param({ "50348044", "195936478" })
+    int printError;
+
+    @Benchmark
+    public Optional<String> getPrinterError() {
+        return BambuErrors.getPrinterError(printError);
+    }
+
+    @Benchmark
+    public String findPrinterError() {
+        return BambuErrors.findPrinterError(printError);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.tfyre.bambu.printer;
+
+import com.tfyre.bambu.benchmark.Payloads;
+import com.tfyre.bambu.model.BambuMessage;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ingestion hot path: json parse / print and history insertion
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BambuPrinterImplBenchmark {
+
+    @Param({ Payloads.STATUS, Payloads.FULLSTATUS })
+    String payload;
+
+    private final BambuPrinterImpl printer = BenchmarkPrinters.newPrinter();
+    private String raw;
+    private BambuMessage message;
+    private BambuPrinter.Message historyMessage;
+
+    @Setup
+    public void setup() {
+        raw = Payloads.get(payload);
+        message = printer.fromJson(raw).orElseThrow();
+        historyMessage = new BambuPrinter.Message(OffsetDateTime.now(), message, raw);
+    }
+
+    @Benchmark
+    public Optional<BambuMessage> fromJson() {
+        return printer.fromJson(raw);
+    }
+
+    @Benchmark
+    public Optional<String> toJson() {
+        return printer.toJson(message);
+    }
+
+    @Benchmark
+    public Optional<String> roundTrip() {
+        return printer.fromJson(raw).flatMap(printer::toJson);
+    }
+
+    @Benchmark
+    public BambuPrinterImpl addLast() {
+        printer.addLast(historyMessage);
+        return printer;
+    }
+
+}
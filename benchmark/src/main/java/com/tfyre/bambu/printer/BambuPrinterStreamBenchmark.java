@@ -0,0 +1,66 @@
+package com.tfyre.bambu.printer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Camera frame reassembly, a frame arrives split over socket reads
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BambuPrinterStreamBenchmark {
+
+    private static final int MAX_SIZE = 10_000_000;
+
+    @Param({ "100000", "400000" })
+    int frameSize;
+
+    @Param({ "16384" })
+    int chunkSize;
+
+    private final List<ByteBuf> chunks = new ArrayList<>();
+    private BambuPrinterStreamDecoder decoder;
+
+    @Setup
+    public void setup() {
+        final ByteBuf frame = Unpooled.buffer(16 + frameSize)
+                .writeIntLE(frameSize)
+                .writeIntLE(0)
+                .writeIntLE(1)
+                .writeIntLE(0)
+                .writeZero(frameSize);
+        while (frame.isReadable()) {
+            chunks.add(frame.readRetainedSlice(Math.min(chunkSize, frame.readableBytes())));
+        }
+        decoder = new BambuPrinterStreamDecoder(MAX_SIZE);
+    }
+
+    @Benchmark
+    public void decode(final Blackhole blackhole) {
+        for (final ByteBuf chunk : chunks) {
+            decoder.decode(chunk.duplicate(), blackhole::consume);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.tfyre.bambu.printer;
+
+import com.tfyre.bambu.BambuConfig;
+import io.quarkus.runtime.configuration.DurationConverter;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+import java.time.Duration;
+import java.util.Map;
+import org.jboss.logging.Logger;
+
+/**
+ * Printers without a CDI container, only the collaborators the hot paths touch are wired
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class BenchmarkPrinters {
+
+    public static final String NAME = "benchmark";
+
+    private BenchmarkPrinters() {
+    }
+
+    /**
+     * @return the application config with its defaults
+     */
+    public static BambuConfig newConfig(final Map<String, String> properties) {
+        final SmallRyeConfig config = new SmallRyeConfigBuilder()
+                .addDefaultInterceptors()
+                .withConverter(Duration.class, 100, new DurationConverter())
+                .withSources(new PropertiesConfigSource(properties, "benchmark", 100))
+                .withMapping(BambuConfig.class)
+                .withValidateUnknown(false)
+                .build();
+        return config.getConfigMapping(BambuConfig.class);
+    }
+
+    public static BambuPrinterImpl newPrinter() {
+        final BambuConfig config = newConfig(Map.of(
+                "bambu.printers.%s.device-id".formatted(NAME), "00M00A000000000",
+                "bambu.printers.%s.access-code".formatted(NAME), "12345678",
+                "bambu.printers.%s.ip".formatted(NAME), "127.0.0.1",
+                "bambu.printers.%s.model".formatted(NAME), "X1C"));
+        final PrintTimes times = new PrintTimes();
+        times.log = Logger.getLogger(PrintTimes.class);
+        times.config = config;
+        final BambuPrinterImpl result = new BambuPrinterImpl();
+        result.log = Logger.getLogger(BambuPrinterImpl.class);
+        result.bambuConfig = config;
+        result.config = config.printers().get(NAME);
+        result.events = new PrinterEvents();
+        result.times = times;
+        return result;
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.tfyre.bambu.view.dashboard;
+
+import com.tfyre.bambu.benchmark.Payloads;
+import com.tfyre.bambu.printer.BambuPrinter;
+import com.tfyre.bambu.printer.BambuPrinterImpl;
+import com.tfyre.bambu.printer.BenchmarkPrinters;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dashboard card update tick, the state diffing done for every printer every second in every open tab
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DashboardPrinterBenchmark {
+
+    private final BambuPrinterImpl printer = BenchmarkPrinters.newPrinter();
+    private DashboardPrinter card;
+
+    private BambuPrinter.Message getMessage(final String name) {
+        final String raw = Payloads.get(name);
+        return new BambuPrinter.Message(OffsetDateTime.now(), Payloads.parse(raw), raw);
+    }
+
+    @Setup
+    public void setup() {
+        printer.setFullStatus(getMessage(Payloads.FULLSTATUS));
+        printer.setStatus(getMessage(Payloads.STATUS));
+        card = new DashboardPrinter(printer);
+        card.build();
+    }
+
+    @Benchmark
+    public DashboardPrinter update() {
+        card.update();
+        return card;
+    }
+
+}
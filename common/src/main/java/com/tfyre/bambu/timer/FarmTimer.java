@@ -0,0 +1,178 @@
+package com.tfyre.bambu.timer;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jboss.logging.Logger;
+
+/**
+ * One hashed timer wheel shared by every printer, tasks run on the wheel thread and must hand blocking work to an executor
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+@ApplicationScoped
+public class FarmTimer {
+
+    private static final Logger log = Logger.getLogger(FarmTimer.class.getName());
+    private static final Duration TICK = Duration.ofMillis(100);
+    private static final int TICKS_PER_WHEEL = 512;
+    private static final Executor DIRECT = Runnable::run;
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(new DefaultThreadFactory("farm-timer", true),
+            TICK.toMillis(), TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+
+    private final AtomicInteger tasks = new AtomicInteger();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong runNanos = new AtomicLong();
+    private final AtomicLong lateNanos = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    /**
+     * Runs runnable on the wheel thread every interval (fixed delay) after initialDelay
+     *
+     * @param name used for logging
+     * @param initialDelay delay before the first run
+     * @param interval delay between the end of a run and the next run
+     * @param runnable the task
+     * @return handle to cancel the task
+     */
+    public Task schedule(final String name, final Duration initialDelay, final Duration interval, final Runnable runnable) {
+        return newTask(name, initialDelay, interval, DIRECT, runnable);
+    }
+
+    /**
+     * Runs runnable on executor every interval, the first run is spread over the interval by phaseKey so that tasks with the same
+     * interval do not all fire in the same tick. A run is skipped while the previous run is still busy.
+     *
+     * @param name used for logging
+     * @param phaseKey usually the printer name
+     * @param interval delay between runs
+     * @param executor executor for the task
+     * @param runnable the task
+     * @return handle to cancel the task
+     */
+    public Task schedule(final String name, final Object phaseKey, final Duration interval, final Executor executor, final Runnable runnable) {
+        return newTask(name, getPhase(phaseKey, interval), interval, executor, runnable);
+    }
+
+    private Task newTask(final String name, final Duration initialDelay, final Duration interval, final Executor executor, final Runnable runnable) {
+        final Task result = new Task(name, interval, executor, runnable);
+        tasks.incrementAndGet();
+        result.schedule(initialDelay.toNanos());
+        return result;
+    }
+
+    static Duration getPhase(final Object phaseKey, final Duration interval) {
+        // spread keys that only differ in the last character, ie printer1, printer2
+        final int hash = phaseKey.hashCode() * 0x9E3779B9;
+        return Duration.ofMillis(Math.floorMod(hash ^ (hash >>> 16), Math.max(1, interval.toMillis())));
+    }
+
+    public Stats getStats() {
+        return new Stats(tasks.get(), runs.get(), runNanos.get(), lateNanos.get(), skipped.get());
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        timer.stop();
+    }
+
+    /**
+     * @param tasks scheduled tasks
+     * @param runs completed runs
+     * @param runNanos total time spent running tasks
+     * @param lateNanos total time tasks started after their deadline, the tick resolution is 100ms
+     * @param skipped runs skipped because the previous run was still busy or the executor rejected it
+     */
+    public record Stats(int tasks, long runs, long runNanos, long lateNanos, long skipped) {
+
+    }
+
+    public class Task implements TimerTask {
+
+        private final String name;
+        private final long interval;
+        private final Executor executor;
+        private final Runnable runnable;
+        private final AtomicBoolean busy = new AtomicBoolean();
+        private volatile Timeout timeout;
+        private volatile long deadline;
+        private volatile boolean cancelled;
+
+        private Task(final String name, final Duration interval, final Executor executor, final Runnable runnable) {
+            this.name = name;
+            this.interval = interval.toNanos();
+            this.executor = executor;
+            this.runnable = runnable;
+        }
+
+        private void schedule(final long delay) {
+            deadline = System.nanoTime() + delay;
+            timeout = timer.newTimeout(this, delay, TimeUnit.NANOSECONDS);
+        }
+
+        private void execute() {
+            final long start = System.nanoTime();
+            try {
+                runnable.run();
+            } catch (Throwable t) {
+                log.errorf(t, "%s: task failed - %s", name, t.getMessage());
+            } finally {
+                runs.incrementAndGet();
+                runNanos.addAndGet(System.nanoTime() - start);
+                busy.set(false);
+            }
+        }
+
+        @Override
+        public void run(final Timeout _timeout) {
+            if (cancelled) {
+                return;
+            }
+            lateNanos.addAndGet(Math.max(0, System.nanoTime() - deadline));
+            if (!busy.compareAndSet(false, true)) {
+                skipped.incrementAndGet();
+            } else if (executor == DIRECT) {
+                execute();
+            } else {
+                try {
+                    executor.execute(this::execute);
+                } catch (RejectedExecutionException ex) {
+                    busy.set(false);
+                    skipped.incrementAndGet();
+                }
+            }
+            if (!cancelled) {
+                schedule(interval);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            tasks.decrementAndGet();
+            final Timeout _timeout = timeout;
+            if (_timeout != null) {
+                _timeout.cancel();
+            }
+        }
+
+    }
+
+}
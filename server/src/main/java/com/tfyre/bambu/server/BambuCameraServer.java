@@ -0,0 +1,165 @@
+package com.tfyre.bambu.server;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetServerOptions;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.net.PfxOptions;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+import org.jboss.logging.Logger;
+
+/**
+ * Serves the printer camera protocol (port 6000): an 80 byte handshake followed by a stream of 16 byte headers + jpeg frames
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class BambuCameraServer {
+
+    private static final Logger log = Logger.getLogger(BambuCameraServer.class.getName());
+    private static final Map<FrameSize, List<Buffer>> FRAMES = new ConcurrentHashMap<>();
+    private static final int HANDSHAKE_SIZE = 80;
+    private static final int FRAME_COUNT = 30;
+
+    private final Vertx vertx;
+    private final String name;
+    private final BambuConfig.Printer config;
+    private final BambuConfig.Ssl ssl;
+    private NetServer server;
+
+    public BambuCameraServer(final Vertx vertx, final String name, final BambuConfig.Printer config, final BambuConfig.Ssl ssl) {
+        this.vertx = vertx;
+        this.name = name;
+        this.config = config;
+        this.ssl = ssl;
+    }
+
+    private static Buffer renderFrame(final FrameSize size, final int index) {
+        final BufferedImage image = new BufferedImage(size.width(), size.height(), BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = image.createGraphics();
+        try {
+            g.setPaint(new GradientPaint(0, 0, Color.DARK_GRAY, size.width(), size.height(), Color.LIGHT_GRAY));
+            g.fillRect(0, 0, size.width(), size.height());
+            final int barWidth = Math.max(1, size.width() / FRAME_COUNT);
+            g.setColor(Color.GREEN);
+            g.fillRect(index * barWidth, 0, barWidth, size.height());
+        } finally {
+            g.dispose();
+        }
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "jpg", baos);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot render frame %s - %s".formatted(size, ex.getMessage()), ex);
+        }
+        final byte[] data = baos.toByteArray();
+        return Buffer.buffer(16 + data.length)
+                .appendIntLE(data.length)
+                .appendIntLE(0)
+                .appendIntLE(1)
+                .appendIntLE(0)
+                .appendBytes(data);
+    }
+
+    private static List<Buffer> renderFrames(final FrameSize size) {
+        return IntStream.range(0, FRAME_COUNT)
+                .mapToObj(i -> renderFrame(size, i))
+                .toList();
+    }
+
+    private boolean isValid(final Buffer handshake) {
+        return handshake.getIntLE(0) == 0x40
+                && handshake.getIntLE(4) == 0x3000
+                && config.username().equals(handshake.getString(16, 48).trim())
+                && config.accessCode().equals(handshake.getString(48, 80).trim());
+    }
+
+    private void sendFrame(final NetSocket socket, final List<Buffer> frames, final Connection connection) {
+        if (socket.writeQueueFull()) {
+            connection.dropped.incrementAndGet();
+            return;
+        }
+        socket.write(frames.get(connection.index.getAndIncrement() % frames.size()));
+        connection.sent.incrementAndGet();
+    }
+
+    private void onConnect(final NetSocket socket) {
+        log.infof("%s: camera connected from %s", name, socket.remoteAddress());
+        final List<Buffer> frames = FRAMES.computeIfAbsent(new FrameSize(config.stream().width(), config.stream().height()), BambuCameraServer::renderFrames);
+        final long interval = Math.max(1, 1_000 / Math.max(1, config.stream().fps()));
+        final Buffer handshake = Buffer.buffer(HANDSHAKE_SIZE);
+        final Connection connection = new Connection();
+        final AtomicLong timerId = new AtomicLong(-1);
+        socket.handler(data -> {
+            if (timerId.get() != -1) {
+                return;
+            }
+            handshake.appendBuffer(data);
+            if (handshake.length() < HANDSHAKE_SIZE) {
+                return;
+            }
+            if (!isValid(handshake)) {
+                log.errorf("%s: camera handshake rejected from %s", name, socket.remoteAddress());
+                socket.close();
+                return;
+            }
+            timerId.set(vertx.setPeriodic(interval, id -> sendFrame(socket, frames, connection)));
+        });
+        socket.closeHandler(v -> {
+            vertx.cancelTimer(timerId.get());
+            log.infof("%s: camera disconnected - sent[%d] dropped[%d]", name, connection.sent.get(), connection.dropped.get());
+        });
+    }
+
+    public void start() {
+        if (ssl.keyStore().isEmpty()) {
+            log.errorf("%s: bambu.ssl.key-store not configured, camera not started", name);
+            return;
+        }
+        final NetServerOptions options = new NetServerOptions()
+                .setPort(config.stream().port())
+                .setSsl(true)
+                .setKeyCertOptions(new PfxOptions().setPath(ssl.keyStore().get()).setPassword(ssl.keyStorePassword()));
+        server = vertx.createNetServer(options)
+                .connectHandler(this::onConnect);
+        server.listen()
+                .onSuccess(s -> log.infof("%s: camera listening on %d at %d fps", name, s.actualPort(), config.stream().fps()))
+                .onFailure(t -> log.errorf(t, "%s: camera failed to listen on %d", name, config.stream().port()));
+    }
+
+    public void stop() {
+        if (server == null) {
+            return;
+        }
+        server.close();
+        server = null;
+    }
+
+    private record FrameSize(int width, int height) {
+
+    }
+
+    /**
+     * Frames of one camera connection
+     */
+    private static final class Connection {
+
+        private final AtomicInteger index = new AtomicInteger();
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+
+    }
+
+}
@@ -14,6 +14,8 @@ public interface BambuConfig {
 
     Map<String, Printer> printers();
 
+    Ssl ssl();
+
     public interface Printer {
 
         @WithDefault("true")
@@ -32,5 +34,50 @@ public interface BambuConfig {
 
         Optional<String> requestTopic();
 
+        Stream stream();
+
+        Ftp ftp();
+
+        public interface Stream {
+
+            @WithDefault("false")
+            boolean enabled();
+
+            @WithDefault("6000")
+            int port();
+
+            @WithDefault("1")
+            int fps();
+
+            @WithDefault("1280")
+            int width();
+
+            @WithDefault("720")
+            int height();
+
+        }
+
+        public interface Ftp {
+
+            @WithDefault("false")
+            boolean enabled();
+
+            @WithDefault("990")
+            int port();
+
+            @WithDefault("sdcard")
+            String root();
+
+        }
+
+    }
+
+    public interface Ssl {
+
+        Optional<String> keyStore();
+
+        @WithDefault("1234")
+        String keyStorePassword();
+
     }
 }
@@ -0,0 +1,96 @@
+package com.tfyre.bambu.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.UserManager;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.ssl.SslConfigurationFactory;
+import org.apache.ftpserver.usermanager.ClearTextPasswordEncryptor;
+import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.WritePermission;
+import org.jboss.logging.Logger;
+
+/**
+ * Implicit FTPS server (port 990) with a directory backed virtual sd card
+ *
+ * @author Francois Steyn - (fsteyn@tfyre.co.za)
+ */
+public class BambuFtpServer {
+
+    private static final Logger log = Logger.getLogger(BambuFtpServer.class.getName());
+
+    private final String name;
+    private final BambuConfig.Printer config;
+    private final BambuConfig.Ssl ssl;
+    private FtpServer server;
+
+    public BambuFtpServer(final String name, final BambuConfig.Printer config, final BambuConfig.Ssl ssl) {
+        this.name = name;
+        this.config = config;
+        this.ssl = ssl;
+    }
+
+    private Path getSdCard() throws IOException {
+        final Path result = Paths.get(config.ftp().root(), name).toAbsolutePath();
+        Files.createDirectories(result);
+        return result;
+    }
+
+    private UserManager getUserManager(final Path sdCard) throws FtpException {
+        final PropertiesUserManagerFactory factory = new PropertiesUserManagerFactory();
+        factory.setPasswordEncryptor(new ClearTextPasswordEncryptor());
+        final UserManager result = factory.createUserManager();
+        final BaseUser user = new BaseUser();
+        user.setName(config.username());
+        user.setPassword(config.accessCode());
+        user.setHomeDirectory(sdCard.toString());
+        user.setAuthorities(List.of(new WritePermission()));
+        result.save(user);
+        return result;
+    }
+
+    public void start() {
+        if (ssl.keyStore().isEmpty()) {
+            log.errorf("%s: bambu.ssl.key-store not configured, ftp not started", name);
+            return;
+        }
+        try {
+            final Path sdCard = getSdCard();
+            final SslConfigurationFactory sslFactory = new SslConfigurationFactory();
+            sslFactory.setKeystoreFile(new File(ssl.keyStore().get()));
+            sslFactory.setKeystorePassword(ssl.keyStorePassword());
+            sslFactory.setKeystoreType("PKCS12");
+
+            final ListenerFactory listener = new ListenerFactory();
+            listener.setPort(config.ftp().port());
+            listener.setImplicitSsl(true);
+            listener.setSslConfiguration(sslFactory.createSslConfiguration());
+
+            final FtpServerFactory factory = new FtpServerFactory();
+            factory.addListener("default", listener.createListener());
+            factory.setUserManager(getUserManager(sdCard));
+            server = factory.createServer();
+            server.start();
+            log.infof("%s: ftp listening on %d with sdcard %s", name, config.ftp().port(), sdCard);
+        } catch (IOException | FtpException ex) {
+            log.errorf(ex, "%s: ftp failed to start - %s", name, ex.getMessage());
+        }
+    }
+
+    public void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop();
+        server = null;
+    }
+
+}
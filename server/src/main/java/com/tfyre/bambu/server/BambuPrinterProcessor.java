@@ -3,16 +3,18 @@ package com.tfyre.bambu.server;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.util.JsonFormat;
 import com.tfyre.bambu.model.BambuMessage;
-import io.quarkus.scheduler.Scheduler;
+import com.tfyre.bambu.timer.FarmTimer;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -38,16 +40,19 @@ public class BambuPrinterProcessor implements Processor, StartupListener {
     private static final Random RND = new SecureRandom();
     private static final String RES_STATUS = "status";
     private static final String RES_FULLSTATUS = "fullstatus";
+    private static final Duration STATUS_INTERVAL = Duration.ofSeconds(1);
 
     private final AtomicLong counter = new AtomicLong(Math.abs(RND.nextInt()));
     private final AtomicInteger time = new AtomicInteger(RND.nextInt(100));
     private final Endpoint endpoint;
     private ProducerTemplate producerTemplate;
-    private final Scheduler scheduler;
+    private final FarmTimer timer;
+    private final Executor executor;
     private final String name;
 
-    public BambuPrinterProcessor(final Scheduler scheduler, final Endpoint endpoint, final String name) {
-        this.scheduler = scheduler;
+    public BambuPrinterProcessor(final FarmTimer timer, final Executor executor, final Endpoint endpoint, final String name) {
+        this.timer = timer;
+        this.executor = executor;
         this.endpoint = endpoint;
         this.name = name;
     }
@@ -131,10 +136,7 @@ public class BambuPrinterProcessor implements Processor, StartupListener {
     public void onCamelContextStarted(final CamelContext context, boolean alreadyStarted) throws Exception {
         log.debug("onCamelContextStarted");
         producerTemplate = context.createProducerTemplate();
-        scheduler.newJob("%s#%s".formatted(getClass().getSimpleName(), this.name))
-                .setInterval("1s")
-                .setTask(c -> sendStatus())
-                .schedule();
+        timer.schedule("%s#%s".formatted(getClass().getSimpleName(), this.name), name, STATUS_INTERVAL, executor, this::sendStatus);
     }
 
     private void sendFullStatus() {
@@ -3,9 +3,15 @@ package com.tfyre.bambu.server;
 import com.tfyre.bambu.mqtt.AbstractMqttController;
 import com.tfyre.bambu.server.BambuConfig.Printer;
 import io.quarkus.runtime.Startup;
-import io.quarkus.scheduler.Scheduler;
+import com.tfyre.bambu.timer.FarmTimer;
+import io.vertx.core.Vertx;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.jboss.logging.Logger;
@@ -18,23 +24,35 @@ import org.jboss.logging.Logger;
 @ApplicationScoped
 public class CamelController extends AbstractMqttController {
 
+    private static final Duration STATS_INTERVAL = Duration.ofMinutes(5);
+
     @Inject
     BambuConfig config;
     @Inject
     Logger log;
     @Inject
-    Scheduler scheduler;
+    FarmTimer timer;
     @Inject
     CamelContext camelContext;
+    @Inject
+    Vertx vertx;
+
+    private final List<BambuCameraServer> cameras = new ArrayList<>();
+    private final List<BambuFtpServer> ftpServers = new ArrayList<>();
+    private final Executor executor = r -> vertx.executeBlocking(() -> {
+        r.run();
+        return null;
+    }, false);
 
     @Override
     public void configure() throws Exception {
         config.printers().forEach(this::configurePrinter);
+        timer.schedule("stats", STATS_INTERVAL, STATS_INTERVAL, () -> log.infof("timer: %s", timer.getStats()));
         log.info("configured");
     }
 
     private BambuPrinterProcessor newPrinter(final Endpoint endpoint, final String name) {
-        final BambuPrinterProcessor printer = new BambuPrinterProcessor(scheduler, endpoint, name);
+        final BambuPrinterProcessor printer = new BambuPrinterProcessor(timer, executor, endpoint, name);
         try {
             camelContext.addStartupListener(printer);
         } catch (Exception ex) {
@@ -63,5 +81,22 @@ public class CamelController extends AbstractMqttController {
                 .id("consumer-%s".formatted(name))
                 .group(name)
                 .process(printer);
+
+        if (config.stream().enabled()) {
+            final BambuCameraServer camera = new BambuCameraServer(vertx, name, config, this.config.ssl());
+            camera.start();
+            cameras.add(camera);
+        }
+        if (config.ftp().enabled()) {
+            final BambuFtpServer ftp = new BambuFtpServer(name, config, this.config.ssl());
+            ftp.start();
+            ftpServers.add(ftp);
+        }
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        cameras.forEach(BambuCameraServer::stop);
+        ftpServers.forEach(BambuFtpServer::stop);
     }
 }